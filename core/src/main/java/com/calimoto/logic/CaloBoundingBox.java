@@ -0,0 +1,253 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Mutable bounding box of latitudes and longitudes, which is empty until the first location is added.
+ * The box does not wrap at the antimeridian.
+ */
+public class CaloBoundingBox
+{
+	// attributes
+	private double minLatitude = Double.POSITIVE_INFINITY;
+	private double minLongitude = Double.POSITIVE_INFINITY;
+	private double maxLatitude = Double.NEGATIVE_INFINITY;
+	private double maxLongitude = Double.NEGATIVE_INFINITY;
+	
+	/**
+	 * Create a new empty {@link CaloBoundingBox} instance.
+	 */
+	public CaloBoundingBox()
+	{
+		// empty constructor
+	}
+	
+	/**
+	 * Create a new {@link CaloBoundingBox} instance with the given bounds.
+	 * @param minLatitude
+	 * 		minimum latitude
+	 * @param minLongitude
+	 * 		minimum longitude
+	 * @param maxLatitude
+	 * 		maximum latitude
+	 * @param maxLongitude
+	 * 		maximum longitude
+	 */
+	public CaloBoundingBox(
+			final double minLatitude,
+			final double minLongitude,
+			final double maxLatitude,
+			final double maxLongitude)
+	{
+		set(minLatitude, minLongitude, maxLatitude, maxLongitude);
+	}
+	
+	/**
+	 * Create a new {@link CaloBoundingBox} instance of all coordinates of the given list.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to create the box for
+	 * @return bounding box of the list, empty if the list is empty
+	 */
+	@NonNull
+	public static CaloBoundingBox of(@NonNull final CaloCoordinateList<?> list)
+	{
+		final CaloBoundingBox box = new CaloBoundingBox();
+		for (int i = 0; i < list.size(); i++)
+		{
+			box.extend(list.getLatitude(i), list.getLongitude(i));
+		}
+		return box;
+	}
+	
+	/**
+	 * Get the minimum latitude.
+	 * @return minimum latitude, infinite if empty
+	 */
+	public double getMinLatitude()
+	{
+		return this.minLatitude;
+	}
+	
+	/**
+	 * Get the minimum longitude.
+	 * @return minimum longitude, infinite if empty
+	 */
+	public double getMinLongitude()
+	{
+		return this.minLongitude;
+	}
+	
+	/**
+	 * Get the maximum latitude.
+	 * @return maximum latitude, negative infinite if empty
+	 */
+	public double getMaxLatitude()
+	{
+		return this.maxLatitude;
+	}
+	
+	/**
+	 * Get the maximum longitude.
+	 * @return maximum longitude, negative infinite if empty
+	 */
+	public double getMaxLongitude()
+	{
+		return this.maxLongitude;
+	}
+	
+	/**
+	 * Check if no location has been added.
+	 * @return true if the box is empty, else false
+	 */
+	public boolean isEmpty()
+	{
+		return this.minLatitude > this.maxLatitude;
+	}
+	
+	/**
+	 * Set the bounds of this box.
+	 * @param minLatitude
+	 * 		minimum latitude
+	 * @param minLongitude
+	 * 		minimum longitude
+	 * @param maxLatitude
+	 * 		maximum latitude
+	 * @param maxLongitude
+	 * 		maximum longitude
+	 */
+	public void set(
+			final double minLatitude,
+			final double minLongitude,
+			final double maxLatitude,
+			final double maxLongitude)
+	{
+		this.minLatitude = minLatitude;
+		this.minLongitude = minLongitude;
+		this.maxLatitude = maxLatitude;
+		this.maxLongitude = maxLongitude;
+	}
+	
+	/**
+	 * Set the bounds of this box to the ones of the given box.
+	 * @param box
+	 * 		{@link CaloBoundingBox} to copy
+	 */
+	public void set(@NonNull final CaloBoundingBox box)
+	{
+		set(box.minLatitude, box.minLongitude, box.maxLatitude, box.maxLongitude);
+	}
+	
+	/**
+	 * Make this box empty.
+	 */
+	public void reset()
+	{
+		set(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+	}
+	
+	/**
+	 * Extend this box to contain the given location.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 */
+	public void extend(final double latitude, final double longitude)
+	{
+		this.minLatitude = CaloMath.min(this.minLatitude, latitude);
+		this.minLongitude = CaloMath.min(this.minLongitude, longitude);
+		this.maxLatitude = CaloMath.max(this.maxLatitude, latitude);
+		this.maxLongitude = CaloMath.max(this.maxLongitude, longitude);
+	}
+	
+	/**
+	 * Extend this box to contain the given box.
+	 * @param box
+	 * 		{@link CaloBoundingBox} to contain
+	 */
+	public void extend(@NonNull final CaloBoundingBox box)
+	{
+		this.minLatitude = CaloMath.min(this.minLatitude, box.minLatitude);
+		this.minLongitude = CaloMath.min(this.minLongitude, box.minLongitude);
+		this.maxLatitude = CaloMath.max(this.maxLatitude, box.maxLatitude);
+		this.maxLongitude = CaloMath.max(this.maxLongitude, box.maxLongitude);
+	}
+	
+	/**
+	 * Check if the given location lies within this box, including its border.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return true if the location lies within this box, else false
+	 */
+	public boolean contains(final double latitude, final double longitude)
+	{
+		return latitude >= this.minLatitude && latitude <= this.maxLatitude
+				&& longitude >= this.minLongitude && longitude <= this.maxLongitude;
+	}
+	
+	/**
+	 * Check if the given box overlaps this box, including their borders.
+	 * @param box
+	 * 		{@link CaloBoundingBox} to check
+	 * @return true if the boxes overlap, else false
+	 */
+	public boolean intersects(@NonNull final CaloBoundingBox box)
+	{
+		return box.minLatitude <= this.maxLatitude && box.maxLatitude >= this.minLatitude
+				&& box.minLongitude <= this.maxLongitude && box.maxLongitude >= this.minLongitude;
+	}
+	
+	@Override
+	public boolean equals(final Object other)
+	{
+		if (this == other)
+		{
+			return true;
+		}
+		if (!(other instanceof CaloBoundingBox))
+		{
+			return false;
+		}
+		final CaloBoundingBox box = (CaloBoundingBox) other;
+		return Double.compare(this.minLatitude, box.minLatitude) == 0
+				&& Double.compare(this.minLongitude, box.minLongitude) == 0
+				&& Double.compare(this.maxLatitude, box.maxLatitude) == 0
+				&& Double.compare(this.maxLongitude, box.maxLongitude) == 0;
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		int hash = Double.hashCode(this.minLatitude);
+		hash = 31 * hash + Double.hashCode(this.minLongitude);
+		hash = 31 * hash + Double.hashCode(this.maxLatitude);
+		return 31 * hash + Double.hashCode(this.maxLongitude);
+	}
+	
+	@NonNull
+	@Override
+	public String toString()
+	{
+		return this.minLatitude + ", " + this.minLongitude + " | " + this.maxLatitude + ", " + this.maxLongitude;
+	}
+	
+}
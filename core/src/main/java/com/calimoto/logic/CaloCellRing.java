@@ -0,0 +1,230 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+/**
+ * Walk over the rings of grid cells around a queried location, shared by the nearest searches of the spatial indexes.
+ * <p></p>
+ * The rings start at the first ring touching the occupied cells and are clamped to them. After each ring the walk
+ * ends if the nearest distance found so far is within the lower bound of the distance to the unvisited entries or all
+ * occupied cells are visited. It also ends once the visited rows and cells exceed a budget, e.g. for a location far
+ * from the occupied cells, then {@link #isOverBudget()} tells the caller to compare all entries instead.
+ */
+final class CaloCellRing
+{
+	// attributes
+	private int centerX;
+	private int centerY;
+	private int minCellX;
+	private int minCellY;
+	private int maxCellX;
+	private int maxCellY;
+	/**
+	 * Absolute normalized latitude of the queried location
+	 */
+	private double y;
+	private double cellSize;
+	/**
+	 * Number of cells every entry is registered around the cells it covers
+	 */
+	private int margin;
+	private int budget;
+	private int visited;
+	private boolean overBudget;
+	private int ring;
+	private int cellX;
+	private int cellY;
+	private int lastX;
+	private int lastY;
+	private int step;
+	
+	/**
+	 * Start a new walk around the given location.
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param y
+	 * 		normalized latitude of the location
+	 * @param cellSize
+	 * 		cell size in normalized degrees
+	 * @param margin
+	 * 		number of cells every entry is registered around the cells it covers
+	 * @param minCellX
+	 * 		minimum x index of the occupied cells
+	 * @param minCellY
+	 * 		minimum y index of the occupied cells
+	 * @param maxCellX
+	 * 		maximum x index of the occupied cells
+	 * @param maxCellY
+	 * 		maximum y index of the occupied cells
+	 * @param budget
+	 * 		number of visited rows and cells after which the walk ends, about the cost of comparing all entries
+	 */
+	void start(
+			final double longitude,
+			final double y,
+			final double cellSize,
+			final int margin,
+			final int minCellX,
+			final int minCellY,
+			final int maxCellX,
+			final int maxCellY,
+			final int budget)
+	{
+		this.centerX = (int) CaloMath.floor(longitude / cellSize);
+		this.centerY = (int) CaloMath.floor(y / cellSize);
+		this.minCellX = minCellX;
+		this.minCellY = minCellY;
+		this.maxCellX = maxCellX;
+		this.maxCellY = maxCellY;
+		this.y = CaloMath.abs(y);
+		this.cellSize = cellSize;
+		this.margin = margin;
+		this.budget = budget;
+		this.visited = 0;
+		this.overBudget = false;
+		// the rings before the first one touching the occupied cells are empty
+		final int ringX = CaloMath.max(CaloMath.max(minCellX - this.centerX, this.centerX - maxCellX), 0);
+		final int ringY = CaloMath.max(CaloMath.max(minCellY - this.centerY, this.centerY - maxCellY), 0);
+		startRing(CaloMath.max(ringX, ringY));
+	}
+	
+	/**
+	 * Move to the next occupied cell of the walk.
+	 * @param nearestDistance
+	 * 		distance in meters of the nearest entry found so far or infinity
+	 * @return true if the walk moved to the next cell, false if it ended
+	 */
+	boolean next(final double nearestDistance)
+	{
+		while (true)
+		{
+			if (this.cellX + this.step <= this.lastX)
+			{
+				this.cellX += this.step;
+				if (this.cellX >= this.minCellX && this.cellX <= this.maxCellX)
+				{
+					this.visited++;
+					return true;
+				}
+			}
+			else if (this.cellY < this.lastY)
+			{
+				startRow(this.cellY + 1);
+			}
+			else if (nearestDistance <= unvisitedDistance() || coversAllCells())
+			{
+				return false;
+			}
+			else if (this.visited > this.budget)
+			{
+				this.overBudget = true;
+				return false;
+			}
+			else
+			{
+				startRing(this.ring + 1);
+			}
+		}
+	}
+	
+	/**
+	 * Get the x index of the current cell.
+	 * @return x index of the cell
+	 */
+	int getCellX()
+	{
+		return this.cellX;
+	}
+	
+	/**
+	 * Get the y index of the current cell.
+	 * @return y index of the cell
+	 */
+	int getCellY()
+	{
+		return this.cellY;
+	}
+	
+	/**
+	 * Check if the walk ended because it exceeded its budget, so the nearest entry may not have been found.
+	 * @return true if all entries have to be compared
+	 */
+	boolean isOverBudget()
+	{
+		return this.overBudget;
+	}
+	
+	/**
+	 * Start the given ring, its rows are clamped to the occupied cells.
+	 * @param ring
+	 * 		Chebyshev distance of the ring to the center cell
+	 */
+	private void startRing(final int ring)
+	{
+		this.ring = ring;
+		this.lastY = CaloMath.min(this.centerY + ring, this.maxCellY);
+		startRow(CaloMath.max(this.centerY - ring, this.minCellY));
+	}
+	
+	/**
+	 * Start the given row of the current ring, positioned before its first cell.
+	 * @param cellY
+	 * 		y index of the row
+	 */
+	private void startRow(final int cellY)
+	{
+		final int ring = this.ring;
+		this.cellY = cellY;
+		this.visited++;
+		// the first and the last row of the ring are complete, the other rows only have their first and last cell
+		if (cellY == this.centerY - ring || cellY == this.centerY + ring)
+		{
+			this.step = 1;
+			this.cellX = CaloMath.max(this.centerX - ring, this.minCellX) - 1;
+			this.lastX = CaloMath.min(this.centerX + ring, this.maxCellX);
+		}
+		else
+		{
+			this.step = 2 * ring;
+			this.cellX = this.centerX - 3 * ring;
+			this.lastX = this.centerX + ring;
+		}
+	}
+	
+	/**
+	 * Get a lower bound of the distance in meters from the queried location to the entries not visited after the current ring.
+	 * @return minimum distance in meters of the unvisited entries
+	 */
+	private double unvisitedDistance()
+	{
+		final int cells = this.ring + this.margin;
+		// the scale is taken one ring further poleward to cover great circles bulging towards the pole
+		return cells * this.cellSize * CaloCoordinateGridIndex.metersPerDegree(this.y + (cells + 2) * this.cellSize);
+	}
+	
+	/**
+	 * Check if the square of rings up to the current ring covers all occupied cells.
+	 * @return true if all occupied cells have been visited
+	 */
+	private boolean coversAllCells()
+	{
+		return this.centerX - this.ring <= this.minCellX && this.centerX + this.ring >= this.maxCellX
+				&& this.centerY - this.ring <= this.minCellY && this.centerY + this.ring >= this.maxCellY;
+	}
+	
+}
@@ -0,0 +1,180 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table from a grid cell to an {@code int} value, e.g. the head of a linked list of entries
+ * stored in primitive arrays. Used by the spatial indexes to only allocate memory for occupied cells.
+ */
+final class CaloCellTable
+{
+	/**
+	 * Value returned for cells without entry
+	 */
+	static final int NONE = -1;
+	
+	private static final int MIN_CAPACITY = 16;
+	
+	// attributes
+	private long[] keys;
+	private int[] values;
+	private int size;
+	private int mask;
+	
+	/**
+	 * Create a new empty {@link CaloCellTable} instance.
+	 */
+	CaloCellTable()
+	{
+		allocate(MIN_CAPACITY);
+	}
+	
+	/**
+	 * Get the number of cells with a value.
+	 * @return number of cells with a value
+	 */
+	int size()
+	{
+		return this.size;
+	}
+	
+	/**
+	 * Get the value of the given cell.
+	 * @param cellX
+	 * 		x index of the cell
+	 * @param cellY
+	 * 		y index of the cell
+	 * @return value of the cell or {@link #NONE}
+	 */
+	int get(final int cellX, final int cellY)
+	{
+		final long key = key(cellX, cellY);
+		for (int slot = hash(key) & this.mask; this.values[slot] != NONE; slot = (slot + 1) & this.mask)
+		{
+			if (this.keys[slot] == key)
+			{
+				return this.values[slot];
+			}
+		}
+		return NONE;
+	}
+	
+	/**
+	 * Set the value of the given cell.
+	 * @param cellX
+	 * 		x index of the cell
+	 * @param cellY
+	 * 		y index of the cell
+	 * @param value
+	 * 		value to set, must not be {@link #NONE}
+	 */
+	void put(final int cellX, final int cellY, final int value)
+	{
+		if (2 * (this.size + 1) > this.keys.length)
+		{
+			resize();
+		}
+		final long key = key(cellX, cellY);
+		int slot = hash(key) & this.mask;
+		while (this.values[slot] != NONE)
+		{
+			if (this.keys[slot] == key)
+			{
+				this.values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & this.mask;
+		}
+		this.keys[slot] = key;
+		this.values[slot] = value;
+		this.size++;
+	}
+	
+	/**
+	 * Remove all cells.
+	 */
+	void clear()
+	{
+		Arrays.fill(this.values, NONE);
+		this.size = 0;
+	}
+	
+	/**
+	 * Double the capacity and rehash all cells.
+	 */
+	private void resize()
+	{
+		final long[] oldKeys = this.keys;
+		final int[] oldValues = this.values;
+		allocate(2 * oldKeys.length);
+		for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++)
+		{
+			if (oldValues[oldSlot] != NONE)
+			{
+				int slot = hash(oldKeys[oldSlot]) & this.mask;
+				while (this.values[slot] != NONE)
+				{
+					slot = (slot + 1) & this.mask;
+				}
+				this.keys[slot] = oldKeys[oldSlot];
+				this.values[slot] = oldValues[oldSlot];
+			}
+		}
+	}
+	
+	/**
+	 * Allocate empty tables of the given capacity.
+	 * @param capacity
+	 * 		number of slots, power of 2
+	 */
+	private void allocate(final int capacity)
+	{
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.values, NONE);
+		this.mask = capacity - 1;
+	}
+	
+	/**
+	 * Combine the cell indexes to a single key.
+	 * @param cellX
+	 * 		x index of the cell
+	 * @param cellY
+	 * 		y index of the cell
+	 * @return key of the cell
+	 */
+	private static long key(final int cellX, final int cellY)
+	{
+		return ((long) cellY << 32) | (cellX & 0xffffffffL);
+	}
+	
+	/**
+	 * Create a well distributed hash of the given key.
+	 * @param key
+	 * 		key to hash
+	 * @return hash of the key
+	 */
+	private static int hash(final long key)
+	{
+		final long hash = CaloMath.mix(key);
+		return (int) (hash ^ (hash >>> 32));
+	}
+	
+}
@@ -19,14 +19,18 @@ package com.calimoto.logic;
 
 import androidx.annotation.NonNull;
 
-import java.util.Objects;
-
 /**
  * Simple coordinate to implement by the client with a latitude and a longitude to work with coordinates.
  * @author Luca Osten
  */
 public interface CaloCoordinate
 {
+	/**
+	 * Maximum difference in degrees of latitude and longitude for two coordinates to be at the same location,
+	 * see {@link #sameLocation(CaloCoordinate)}
+	 */
+	public static final double SAME_LOCATION_TOLERANCE = 0.0000011;
+	
 	/**
 	 * Compare the given {@link CaloCoordinate} objects, e.g. for {@link Comparable#compareTo(Object)}.
 	 * @param coordinate
@@ -49,13 +53,14 @@ public interface CaloCoordinate
 	
 	/**
 	 * Create a hash for the given {@link CaloCoordinate}.
+	 * Equal to {@link java.util.Objects#hash(Object...)} of latitude and longitude without boxing them.
 	 * @param coordinate
 	 * 		{@link CaloCoordinate} to create hash for
 	 * @return hash for the given {@link CaloCoordinate}
 	 */
 	public static int hash(@NonNull final CaloCoordinate coordinate)
 	{
-		return Objects.hash(coordinate.getLatitude(), coordinate.getLongitude());
+		return 31 * (31 + Double.hashCode(coordinate.getLatitude())) + Double.hashCode(coordinate.getLongitude());
 	}
 	
 	/**
@@ -78,8 +83,8 @@ public interface CaloCoordinate
 	 */
 	public default boolean sameLocation(@NonNull final CaloCoordinate coordinate)
 	{
-		return CaloMath.abs(getLatitude() - coordinate.getLatitude()) < 0.0000011
-				&& CaloMath.abs(getLongitude() - coordinate.getLongitude()) < 0.0000011;
+		return CaloMath.abs(getLatitude() - coordinate.getLatitude()) < SAME_LOCATION_TOLERANCE
+				&& CaloMath.abs(getLongitude() - coordinate.getLongitude()) < SAME_LOCATION_TOLERANCE;
 	}
 	
 	/**
@@ -0,0 +1,175 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Mutable {@link CaloCoordinate} pointing at one location of a {@link CaloCoordinateList}, which can be moved
+ * over the list to read all locations without creating a coordinate for each of them. <p></p>
+ * The cursor reads the location from the list on every call, so it follows changes of the list and becomes invalid
+ * when the list shrinks below its index. The same cursor instance stands for a different location after every move,
+ * so the following rules apply:
+ * <ul>
+ *     <li>do not keep a reference to the cursor, e.g. by adding it to a list, set or map,
+ *     use {@link #toCoordinate(CaloCoordinateFactory)} to get a coordinate which does not change</li>
+ *     <li>do not use the cursor as key of hash based collections, {@link #equals(Object)} and {@link #hashCode()}
+ *     are the ones of {@link Object} on purpose</li>
+ *     <li>do not share the cursor between threads, create one cursor per thread instead</li>
+ * </ul>
+ * Usage:
+ * <pre>
+ * final CaloCoordinateCursor cursor = new CaloCoordinateCursor(list);
+ * while (cursor.next())
+ * {
+ *     distance += CaloCoordinateUtil.calculateDistance(coordinate, cursor);
+ * }
+ * </pre>
+ */
+public final class CaloCoordinateCursor implements CaloCoordinate
+{
+	// attributes
+	@NonNull
+	private CaloCoordinateList<?> list;
+	private int index;
+	
+	/**
+	 * Create a new {@link CaloCoordinateCursor} instance before the first location of the given list.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to move over
+	 */
+	public CaloCoordinateCursor(@NonNull final CaloCoordinateList<?> list)
+	{
+		reset(list);
+	}
+	
+	/**
+	 * Move this cursor before the first location of the given list, so the cursor can be reused for another list.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to move over
+	 */
+	public void reset(@NonNull final CaloCoordinateList<?> list)
+	{
+		this.list = list;
+		this.index = -1;
+	}
+	
+	/**
+	 * Get the list this cursor moves over.
+	 * @return {@link CaloCoordinateList} of this cursor
+	 */
+	@NonNull
+	public CaloCoordinateList<?> getList()
+	{
+		return this.list;
+	}
+	
+	/**
+	 * Get the index of the location this cursor points at.
+	 * @return index of the location, -1 before the first location
+	 */
+	public int getIndex()
+	{
+		return this.index;
+	}
+	
+	/**
+	 * Move this cursor to the location at the given index.
+	 * @param index
+	 * 		index of the location, -1 to move before the first location
+	 * @return this cursor
+	 */
+	@NonNull
+	public CaloCoordinateCursor moveTo(final int index)
+	{
+		if (index < -1 || index >= this.list.size())
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.list.size());
+		}
+		this.index = index;
+		return this;
+	}
+	
+	/**
+	 * Check if this cursor can be moved to the next location.
+	 * @return true if there is a location after the current one, else false
+	 */
+	public boolean hasNext()
+	{
+		return this.index + 1 < this.list.size();
+	}
+	
+	/**
+	 * Move this cursor to the next location, if there is one.
+	 * @return true if the cursor has been moved, false if it already points at the last location
+	 */
+	public boolean next()
+	{
+		if (this.index + 1 < this.list.size())
+		{
+			this.index++;
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Create a coordinate of the current location which does not change when this cursor moves.
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} to create the coordinate
+	 * @param <Coordinate>
+	 * 		type of the coordinate
+	 * @return new {@link CaloCoordinate} of the current location
+	 */
+	@NonNull
+	public <Coordinate extends CaloCoordinate> Coordinate toCoordinate(@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory)
+	{
+		return coordinateFactory.create(getLatitude(), getLongitude());
+	}
+	
+	/**
+	 * Get this cursor, which changes when it moves, see {@link #toCoordinate(CaloCoordinateFactory)}.
+	 * @return this cursor
+	 */
+	@NonNull
+	@Override
+	public CaloCoordinate getCoordinate()
+	{
+		return this;
+	}
+	
+	@Override
+	public double getLatitude()
+	{
+		return this.list.getLatitude(this.index);
+	}
+	
+	@Override
+	public double getLongitude()
+	{
+		return this.list.getLongitude(this.index);
+	}
+	
+	@NonNull
+	@Override
+	public String toString()
+	{
+		return this.index < 0 ? "before first" : CaloCoordinate.toString(this);
+	}
+	
+}
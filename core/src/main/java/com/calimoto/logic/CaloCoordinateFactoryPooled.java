@@ -0,0 +1,191 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link CaloCoordinateFactory} handing out mutable coordinates from a bounded pool, so loops creating short lived
+ * coordinates, e.g. {@link CaloCoordinateListPacked#get(int)}, produce no garbage once the pool is filled. <p></p>
+ * A coordinate returned by {@link #create(double, double)} belongs to the caller until it is given back with
+ * {@link #release(CaloCoordinate)}. After that the caller must not use it anymore, because the next call to
+ * {@link #create(double, double)} may return the same instance with another location. Therefore, released
+ * coordinates must not be contained in any list, set or map. Coordinates which are never released are simply
+ * collected as garbage, and released coordinates exceeding the capacity of the pool are dropped. <p></p>
+ * This class is not thread safe, use one factory per thread.
+ */
+public class CaloCoordinateFactoryPooled implements CaloCoordinateFactory<CaloCoordinate>
+{
+	/**
+	 * Mutable {@link CaloCoordinate} of a {@link CaloCoordinateFactoryPooled}.
+	 */
+	private static final class CaloCoordinatePooled implements CaloCoordinate
+	{
+		// attributes
+		@NonNull
+		private final CaloCoordinateFactoryPooled factory;
+		private double latitude;
+		private double longitude;
+		private boolean released;
+		
+		/**
+		 * Create a new {@link CaloCoordinatePooled} instance.
+		 * @param factory
+		 * 		{@link CaloCoordinateFactoryPooled} the coordinate belongs to
+		 */
+		private CaloCoordinatePooled(@NonNull final CaloCoordinateFactoryPooled factory)
+		{
+			this.factory = factory;
+		}
+		
+		@NonNull
+		@Override
+		public CaloCoordinate getCoordinate()
+		{
+			return this;
+		}
+		
+		@Override
+		public double getLatitude()
+		{
+			return this.latitude;
+		}
+		
+		@Override
+		public double getLongitude()
+		{
+			return this.longitude;
+		}
+		
+		@NonNull
+		@Override
+		public String toString()
+		{
+			return CaloCoordinate.toString(this);
+		}
+		
+	}
+	
+	// attributes
+	@NonNull
+	private final CaloCoordinatePooled[] pool;
+	private int size;
+	
+	/**
+	 * Create a new {@link CaloCoordinateFactoryPooled} instance.
+	 * @param capacity
+	 * 		maximum number of released coordinates to keep for reuse
+	 */
+	public CaloCoordinateFactoryPooled(final int capacity)
+	{
+		if (capacity < 0)
+		{
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		this.pool = new CaloCoordinatePooled[capacity];
+	}
+	
+	/**
+	 * Get the maximum number of released coordinates to keep for reuse.
+	 * @return capacity of the pool
+	 */
+	public int getCapacity()
+	{
+		return this.pool.length;
+	}
+	
+	/**
+	 * Get the number of released coordinates available for reuse.
+	 * @return number of coordinates in the pool
+	 */
+	public int getPooledCount()
+	{
+		return this.size;
+	}
+	
+	/**
+	 * Create a {@link CaloCoordinate} with the given location, reusing a released coordinate if available.
+	 * @param latitude
+	 * 		latitude of the coordinate
+	 * @param longitude
+	 * 		longitude of the coordinate
+	 * @return {@link CaloCoordinate}, which might have been used before
+	 */
+	@NonNull
+	@Override
+	public CaloCoordinate create(final double latitude, final double longitude)
+	{
+		final CaloCoordinatePooled coordinate;
+		if (this.size > 0)
+		{
+			coordinate = this.pool[--this.size];
+			this.pool[this.size] = null;
+			coordinate.released = false;
+		}
+		else
+		{
+			coordinate = new CaloCoordinatePooled(this);
+		}
+		coordinate.latitude = latitude;
+		coordinate.longitude = longitude;
+		return coordinate;
+	}
+	
+	/**
+	 * Give the given coordinate back to the pool. The coordinate must not be used after this call.
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} created by this factory
+	 * @throws IllegalArgumentException
+	 * 		if the coordinate has not been created by this factory
+	 * @throws IllegalStateException
+	 * 		if the coordinate has already been released
+	 */
+	public void release(@NonNull final CaloCoordinate coordinate)
+	{
+		if (!(coordinate instanceof CaloCoordinatePooled) || ((CaloCoordinatePooled) coordinate).factory != this)
+		{
+			throw new IllegalArgumentException("Coordinate not created by this factory: " + coordinate);
+		}
+		final CaloCoordinatePooled pooled = (CaloCoordinatePooled) coordinate;
+		if (pooled.released)
+		{
+			throw new IllegalStateException("Coordinate already released: " + coordinate);
+		}
+		pooled.released = true;
+		if (this.size < this.pool.length)
+		{
+			this.pool[this.size++] = pooled;
+		}
+	}
+	
+	/**
+	 * Give all coordinates of the given list back to the pool and remove them from the list.
+	 * @param list
+	 * 		{@link CaloCoordinateList} holding only coordinates created by this factory, e.g. created by
+	 * 		{@link CaloCoordinateListFactory#deepCopy(CaloCoordinateList, CaloCoordinateFactory)} with this factory
+	 */
+	public void releaseAll(@NonNull final CaloCoordinateList<? extends CaloCoordinate> list)
+	{
+		for (int i = 0; i < list.size(); i++)
+		{
+			release(list.get(i));
+		}
+		list.removeAll();
+	}
+	
+}
@@ -0,0 +1,400 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Spatial index over the coordinates of a {@link CaloCoordinateList} answering nearest point, k nearest points and
+ * within radius queries by only looking at the grid cells around the queried location. <p></p>
+ * The grid is uniform in the normalized space of {@link CaloCoordinateUtil#normalizeLatitude(double)}, where
+ * the longitude is the x and the normalized latitude the y axis. Only occupied cells take memory and the points of
+ * a cell are linked in primitive arrays. Distances are calculated like
+ * {@link CaloCoordinateUtil#calculateDistance(CaloCoordinate, CaloCoordinate)}. The index does not wrap at the
+ * antimeridian. <p></p>
+ * Points appended to the list are indexed by {@link #update()}. Any other modification of the list requires
+ * a new index. Queries do not modify the index, so concurrent queries are safe as long as no update runs.
+ */
+public class CaloCoordinateGridIndex
+{
+	private static final int MIN_CAPACITY = 16;
+	
+	// attributes
+	@NonNull
+	private final CaloCoordinateList<?> list;
+	private final double cellSizeInMeters;
+	/**
+	 * Cell size in normalized degrees, derived from the latitude of the first point
+	 */
+	private double cellSize;
+	@NonNull
+	private final CaloCellTable cells = new CaloCellTable();
+	/**
+	 * Latitude at {@code 2 * index} and longitude at {@code 2 * index + 1}
+	 */
+	@NonNull
+	private double[] locations = new double[2 * MIN_CAPACITY];
+	@NonNull
+	private double[] cosLatitudes = new double[MIN_CAPACITY];
+	/**
+	 * Index of the next point in the same cell or {@link CaloCellTable#NONE}
+	 */
+	@NonNull
+	private int[] next = new int[MIN_CAPACITY];
+	private int size;
+	private int minCellX = Integer.MAX_VALUE;
+	private int maxCellX = Integer.MIN_VALUE;
+	private int minCellY = Integer.MAX_VALUE;
+	private int maxCellY = Integer.MIN_VALUE;
+	
+	/**
+	 * Create a new {@link CaloCoordinateGridIndex} instance and index all coordinates of the given list.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to index
+	 * @param cellSizeInMeters
+	 * 		edge length of a grid cell in meters at the latitude of the first point,
+	 * 		should be about the typical query radius resp. distance to the nearest point
+	 */
+	public CaloCoordinateGridIndex(@NonNull final CaloCoordinateList<?> list, final double cellSizeInMeters)
+	{
+		if (!(cellSizeInMeters > 0))
+		{
+			throw new IllegalArgumentException("Illegal cell size: " + cellSizeInMeters);
+		}
+		this.list = list;
+		this.cellSizeInMeters = cellSizeInMeters;
+		update();
+	}
+	
+	/**
+	 * Get the number of indexed points.
+	 * @return number of indexed points
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+	
+	/**
+	 * Index all coordinates added to the end of the list since the last update.
+	 */
+	public void update()
+	{
+		final int listSize = this.list.size();
+		if (listSize < this.size)
+		{
+			throw new IllegalStateException("List shrunk from " + this.size + " to " + listSize + ", create a new index");
+		}
+		for (int i = this.size; i < listSize; i++)
+		{
+			insert(this.list.getLatitude(i), this.list.getLongitude(i));
+		}
+	}
+	
+	/**
+	 * Find the point nearest to the given location. The rings of cells around the location are only searched within the
+	 * occupied cells, and if that takes longer than comparing all points, all points are compared instead.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return index of the nearest point in the list or -1 if the index is empty
+	 */
+	public int findNearest(final double latitude, final double longitude)
+	{
+		if (this.size == 0)
+		{
+			return -1;
+		}
+		final double cosLatitude = CaloCoordinateUtil.cosLatitude(latitude);
+		int nearest = -1;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+		final CaloCellRing ring = startRing(latitude, longitude);
+		while (ring.next(nearestDistance))
+		{
+			for (int point = this.cells.get(ring.getCellX(), ring.getCellY()); point != CaloCellTable.NONE;
+					point = this.next[point])
+			{
+				final double distance = distance(latitude, longitude, cosLatitude, point);
+				if (distance < nearestDistance || (distance == nearestDistance && point < nearest))
+				{
+					nearest = point;
+					nearestDistance = distance;
+				}
+			}
+		}
+		if (!ring.isOverBudget())
+		{
+			return nearest;
+		}
+		// the points are spread over much more cells, e.g. for a location far from them
+		for (int point = 0; point < this.size; point++)
+		{
+			final double distance = distance(latitude, longitude, cosLatitude, point);
+			if (distance < nearestDistance || (distance == nearestDistance && point < nearest))
+			{
+				nearest = point;
+				nearestDistance = distance;
+			}
+		}
+		return nearest;
+	}
+	
+	/**
+	 * Find the points nearest to the given location, sorted by ascending distance. The rings of cells are searched
+	 * like {@link #findNearest(double, double)}.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param indices
+	 * 		array to fill with the indexes of the nearest points in the list, its length is the number of points to find
+	 * @param distances
+	 * 		array of at least the length of the indices to fill with the distances in meters
+	 * @return number of points found, less than the length of the indices only if the index contains less points
+	 */
+	public int findNearest(
+			final double latitude,
+			final double longitude,
+			@NonNull final int[] indices,
+			@NonNull final double[] distances)
+	{
+		final int k = indices.length;
+		if (distances.length < k)
+		{
+			throw new IllegalArgumentException("Distances length " + distances.length + " < indices length " + k);
+		}
+		if (this.size == 0 || k == 0)
+		{
+			return 0;
+		}
+		final double cosLatitude = CaloCoordinateUtil.cosLatitude(latitude);
+		int count = 0;
+		final CaloCellRing ring = startRing(latitude, longitude);
+		while (ring.next(count == k ? distances[k - 1] : Double.POSITIVE_INFINITY))
+		{
+			for (int point = this.cells.get(ring.getCellX(), ring.getCellY()); point != CaloCellTable.NONE;
+					point = this.next[point])
+			{
+				count = insertNearest(indices, distances, count, point, distance(latitude, longitude, cosLatitude, point));
+			}
+		}
+		if (!ring.isOverBudget())
+		{
+			return count;
+		}
+		// the points are spread over much more cells, e.g. for a location far from them
+		count = 0;
+		for (int point = 0; point < this.size; point++)
+		{
+			count = insertNearest(indices, distances, count, point, distance(latitude, longitude, cosLatitude, point));
+		}
+		return count;
+	}
+	
+	/**
+	 * Find all points within the given radius around the given location, in no particular order.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param radius
+	 * 		radius in meters
+	 * @param indices
+	 * 		array to fill with the indexes of the points in the list, points exceeding its length are only counted
+	 * @return number of points within the radius
+	 */
+	public int findWithinRadius(
+			final double latitude,
+			final double longitude,
+			final double radius,
+			@NonNull final int[] indices)
+	{
+		if (this.size == 0 || !(radius >= 0))
+		{
+			return 0;
+		}
+		final double cosLatitude = CaloCoordinateUtil.cosLatitude(latitude);
+		final double y = CaloCoordinateUtil.normalizeLatitude(latitude);
+		// widen the normalized radius by the scale at the poleward edge of the searched band
+		double extent = radius / (CaloCoordinateUtil.METERS_PER_DEGREE * cosLatitude);
+		extent = radius / metersPerDegree(CaloMath.abs(y) + extent) + this.cellSize;
+		final int minX = CaloMath.max(cell(longitude - extent), this.minCellX);
+		final int maxX = CaloMath.min(cell(longitude + extent), this.maxCellX);
+		final int minY = CaloMath.max(cell(y - extent), this.minCellY);
+		final int maxY = CaloMath.min(cell(y + extent), this.maxCellY);
+		int count = 0;
+		for (int cellY = minY; cellY <= maxY; cellY++)
+		{
+			for (int cellX = minX; cellX <= maxX; cellX++)
+			{
+				for (int point = this.cells.get(cellX, cellY); point != CaloCellTable.NONE; point = this.next[point])
+				{
+					if (distance(latitude, longitude, cosLatitude, point) <= radius)
+					{
+						if (count < indices.length)
+						{
+							indices[count] = point;
+						}
+						count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Add a point to the grid.
+	 * @param latitude
+	 * 		latitude of the point
+	 * @param longitude
+	 * 		longitude of the point
+	 */
+	private void insert(final double latitude, final double longitude)
+	{
+		if (this.size == 0)
+		{
+			this.cellSize = this.cellSizeInMeters / metersPerDegree(CaloMath.abs(CaloCoordinateUtil.normalizeLatitude(latitude)));
+		}
+		if (this.size == this.next.length)
+		{
+			final int capacity = this.size + (this.size >> 1);
+			final double[] newLocations = new double[2 * capacity];
+			System.arraycopy(this.locations, 0, newLocations, 0, 2 * this.size);
+			this.locations = newLocations;
+			final double[] newCosLatitudes = new double[capacity];
+			System.arraycopy(this.cosLatitudes, 0, newCosLatitudes, 0, this.size);
+			this.cosLatitudes = newCosLatitudes;
+			final int[] newNext = new int[capacity];
+			System.arraycopy(this.next, 0, newNext, 0, this.size);
+			this.next = newNext;
+		}
+		final int cellX = cell(longitude);
+		final int cellY = cell(CaloCoordinateUtil.normalizeLatitude(latitude));
+		this.locations[2 * this.size] = latitude;
+		this.locations[2 * this.size + 1] = longitude;
+		this.cosLatitudes[this.size] = CaloCoordinateUtil.cosLatitude(latitude);
+		this.next[this.size] = this.cells.get(cellX, cellY);
+		this.cells.put(cellX, cellY, this.size);
+		this.minCellX = CaloMath.min(this.minCellX, cellX);
+		this.maxCellX = CaloMath.max(this.maxCellX, cellX);
+		this.minCellY = CaloMath.min(this.minCellY, cellY);
+		this.maxCellY = CaloMath.max(this.maxCellY, cellY);
+		this.size++;
+	}
+	
+	/**
+	 * Insert the given point into the points sorted by ascending distance if it is nearer than the farthest of them,
+	 * dropping the farthest point if the arrays are full.
+	 * @param indices
+	 * 		indexes of the nearest points
+	 * @param distances
+	 * 		distances of the nearest points
+	 * @param count
+	 * 		number of nearest points found so far
+	 * @param point
+	 * 		index of the point
+	 * @param distance
+	 * 		distance of the point
+	 * @return new number of nearest points
+	 */
+	private static int insertNearest(
+			@NonNull final int[] indices,
+			@NonNull final double[] distances,
+			final int count,
+			final int point,
+			final double distance)
+	{
+		final int k = indices.length;
+		if (count == k && !(distance < distances[k - 1]))
+		{
+			return count;
+		}
+		int insert = count < k ? count : k - 1;
+		while (insert > 0 && distances[insert - 1] > distance)
+		{
+			indices[insert] = indices[insert - 1];
+			distances[insert] = distances[insert - 1];
+			insert--;
+		}
+		indices[insert] = point;
+		distances[insert] = distance;
+		return count < k ? count + 1 : count;
+	}
+	
+	/**
+	 * Calculate the distance from the given location to an indexed point.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param cosLatitude
+	 * 		cosine of the latitude of the location
+	 * @param point
+	 * 		index of the point
+	 * @return distance in meters
+	 */
+	private double distance(final double latitude, final double longitude, final double cosLatitude, final int point)
+	{
+		return CaloCoordinateUtil.calculateDistance(latitude, longitude, cosLatitude,
+				this.locations[2 * point], this.locations[2 * point + 1], this.cosLatitudes[point]);
+	}
+	
+	/**
+	 * Start the walk over the rings of cells around the given location.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return {@link CaloCellRing} before the first cell
+	 */
+	@NonNull
+	private CaloCellRing startRing(final double latitude, final double longitude)
+	{
+		final CaloCellRing ring = new CaloCellRing();
+		// rows and cells visited are limited to about the cost of comparing all points
+		ring.start(longitude, CaloCoordinateUtil.normalizeLatitude(latitude), this.cellSize, 0,
+				this.minCellX, this.minCellY, this.maxCellX, this.maxCellY, 2 * this.size);
+		return ring;
+	}
+	
+	/**
+	 * Get the grid cell of the given normalized degrees.
+	 * @param degrees
+	 * 		longitude or normalized latitude
+	 * @return index of the cell
+	 */
+	private int cell(final double degrees)
+	{
+		return (int) CaloMath.floor(degrees / this.cellSize);
+	}
+	
+	/**
+	 * Get the length in meters of 1 normalized degree at the given normalized latitude.
+	 * @param y
+	 * 		absolute normalized latitude
+	 * @return meters per normalized degree
+	 */
+	static double metersPerDegree(final double y)
+	{
+		return CaloCoordinateUtil.METERS_PER_DEGREE
+				* CaloCoordinateUtil.cosLatitude(CaloCoordinateUtil.denormalizeLatitude(CaloMath.min(y, 180)));
+	}
+	
+}
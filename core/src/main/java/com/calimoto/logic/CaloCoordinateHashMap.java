@@ -0,0 +1,223 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Map from a location to a value, stored in open addressing tables without an object per entry.
+ * Use it instead of a {@link java.util.HashMap} keyed by {@link CaloCoordinate} to deduplicate nodes or cache values per location. <p></p>
+ * With a tolerance, e.g. {@link CaloCoordinate#SAME_LOCATION_TOLERANCE}, a location matches an entry like
+ * {@link CaloCoordinate#sameLocation(CaloCoordinate)}. As this is not transitive, the location of an entry is
+ * the one of the first put and following locations only replace its value.
+ * @param <V>
+ * 		type of the values
+ */
+public class CaloCoordinateHashMap<V> extends CaloCoordinateHashTable
+{
+	/**
+	 * Visitor of the entries of a {@link CaloCoordinateHashMap}.
+	 * @param <V>
+	 * 		type of the values
+	 */
+	public interface Visitor<V>
+	{
+		/**
+		 * Visit an entry.
+		 * @param latitude
+		 * 		latitude of the entry
+		 * @param longitude
+		 * 		longitude of the entry
+		 * @param value
+		 * 		value of the entry
+		 */
+		public void visit(double latitude, double longitude, V value);
+		
+	}
+	
+	/**
+	 * Create a new {@link CaloCoordinateHashMap} instance matching locations exactly.
+	 */
+	public CaloCoordinateHashMap()
+	{
+		this(0, 0);
+	}
+	
+	/**
+	 * Create a new {@link CaloCoordinateHashMap} instance.
+	 * @param tolerance
+	 * 		maximum difference in degrees of two matching locations, 0 for exact matching
+	 * @param expectedSize
+	 * 		expected number of entries
+	 */
+	public CaloCoordinateHashMap(final double tolerance, final int expectedSize)
+	{
+		super(tolerance, expectedSize, true);
+	}
+	
+	/**
+	 * Get the value of the given location.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return value of the location or null if there is none
+	 */
+	@Nullable
+	public V get(final double latitude, final double longitude)
+	{
+		final int slot = findSlot(latitude, longitude);
+		return slot < 0 ? null : value(slot);
+	}
+	
+	/**
+	 * Get the value of the location of the given {@link CaloCoordinate}.
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} of the location
+	 * @return value of the location or null if there is none
+	 */
+	@Nullable
+	public V get(@NonNull final CaloCoordinate coordinate)
+	{
+		return get(coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Check if there is an entry for the given location.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return true if there is an entry for the location, else false
+	 */
+	public boolean containsKey(final double latitude, final double longitude)
+	{
+		return findSlot(latitude, longitude) >= 0;
+	}
+	
+	/**
+	 * Check if there is an entry for the location of the given {@link CaloCoordinate}.
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} of the location
+	 * @return true if there is an entry for the location, else false
+	 */
+	public boolean containsKey(@NonNull final CaloCoordinate coordinate)
+	{
+		return containsKey(coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Set the value of the given location.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param value
+	 * 		value to set
+	 * @return previous value of the location or null if there was none
+	 */
+	@Nullable
+	public V put(final double latitude, final double longitude, @Nullable final V value)
+	{
+		int slot = findSlot(latitude, longitude);
+		if (slot < 0)
+		{
+			slot = insert(latitude, longitude);
+		}
+		final V previous = value(slot);
+		this.values[slot] = value;
+		return previous;
+	}
+	
+	/**
+	 * Set the value of the location of the given {@link CaloCoordinate}.
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} of the location
+	 * @param value
+	 * 		value to set
+	 * @return previous value of the location or null if there was none
+	 */
+	@Nullable
+	public V put(@NonNull final CaloCoordinate coordinate, @Nullable final V value)
+	{
+		return put(coordinate.getLatitude(), coordinate.getLongitude(), value);
+	}
+	
+	/**
+	 * Remove the entry of the given location.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return value of the removed entry or null if there was none
+	 */
+	@Nullable
+	public V remove(final double latitude, final double longitude)
+	{
+		final int slot = findSlot(latitude, longitude);
+		if (slot < 0)
+		{
+			return null;
+		}
+		final V value = value(slot);
+		removeSlot(slot);
+		return value;
+	}
+	
+	/**
+	 * Remove the entry of the location of the given {@link CaloCoordinate}.
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} of the location
+	 * @return value of the removed entry or null if there was none
+	 */
+	@Nullable
+	public V remove(@NonNull final CaloCoordinate coordinate)
+	{
+		return remove(coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Visit all entries in no particular order. The map must not be modified while visiting.
+	 * @param visitor
+	 * 		{@link Visitor} to call for every entry
+	 */
+	public void forEach(@NonNull final Visitor<? super V> visitor)
+	{
+		for (int slot = 0; slot < this.used.length; slot++)
+		{
+			if (this.used[slot])
+			{
+				visitor.visit(latitude(slot), longitude(slot), value(slot));
+			}
+		}
+	}
+	
+	/**
+	 * Get the value in the given slot.
+	 * @param slot
+	 * 		slot of the value
+	 * @return value in the slot
+	 */
+	@SuppressWarnings("unchecked")
+	private V value(final int slot)
+	{
+		return (V) this.values[slot];
+	}
+	
+}
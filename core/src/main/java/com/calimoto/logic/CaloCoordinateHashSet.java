@@ -0,0 +1,166 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Set of locations, stored in open addressing tables without an object per entry.
+ * Use it instead of a {@link java.util.HashSet} of {@link CaloCoordinate} to deduplicate locations. <p></p>
+ * With a tolerance, e.g. {@link CaloCoordinate#SAME_LOCATION_TOLERANCE}, a location is contained if it is at the
+ * same location as an entry like {@link CaloCoordinate#sameLocation(CaloCoordinate)}. As this is not transitive,
+ * the location of an entry is the one of the first add.
+ */
+public class CaloCoordinateHashSet extends CaloCoordinateHashTable
+{
+	/**
+	 * Visitor of the entries of a {@link CaloCoordinateHashSet}.
+	 */
+	public interface Visitor
+	{
+		/**
+		 * Visit an entry.
+		 * @param latitude
+		 * 		latitude of the entry
+		 * @param longitude
+		 * 		longitude of the entry
+		 */
+		public void visit(double latitude, double longitude);
+		
+	}
+	
+	/**
+	 * Create a new {@link CaloCoordinateHashSet} instance matching locations exactly.
+	 */
+	public CaloCoordinateHashSet()
+	{
+		this(0, 0);
+	}
+	
+	/**
+	 * Create a new {@link CaloCoordinateHashSet} instance.
+	 * @param tolerance
+	 * 		maximum difference in degrees of two matching locations, 0 for exact matching
+	 * @param expectedSize
+	 * 		expected number of entries
+	 */
+	public CaloCoordinateHashSet(final double tolerance, final int expectedSize)
+	{
+		super(tolerance, expectedSize, false);
+	}
+	
+	/**
+	 * Add the given location if it is not contained yet.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return true if the location was added, else false
+	 */
+	public boolean add(final double latitude, final double longitude)
+	{
+		if (findSlot(latitude, longitude) >= 0)
+		{
+			return false;
+		}
+		insert(latitude, longitude);
+		return true;
+	}
+	
+	/**
+	 * Add the location of the given {@link CaloCoordinate} if it is not contained yet.
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} of the location
+	 * @return true if the location was added, else false
+	 */
+	public boolean add(@NonNull final CaloCoordinate coordinate)
+	{
+		return add(coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Check if the given location is contained.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return true if the location is contained, else false
+	 */
+	public boolean contains(final double latitude, final double longitude)
+	{
+		return findSlot(latitude, longitude) >= 0;
+	}
+	
+	/**
+	 * Check if the location of the given {@link CaloCoordinate} is contained.
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} of the location
+	 * @return true if the location is contained, else false
+	 */
+	public boolean contains(@NonNull final CaloCoordinate coordinate)
+	{
+		return contains(coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Remove the entry of the given location.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return true if an entry was removed, else false
+	 */
+	public boolean remove(final double latitude, final double longitude)
+	{
+		final int slot = findSlot(latitude, longitude);
+		if (slot < 0)
+		{
+			return false;
+		}
+		removeSlot(slot);
+		return true;
+	}
+	
+	/**
+	 * Remove the entry of the location of the given {@link CaloCoordinate}.
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} of the location
+	 * @return true if an entry was removed, else false
+	 */
+	public boolean remove(@NonNull final CaloCoordinate coordinate)
+	{
+		return remove(coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Visit all entries in no particular order. The set must not be modified while visiting.
+	 * @param visitor
+	 * 		{@link Visitor} to call for every entry
+	 */
+	public void forEach(@NonNull final Visitor visitor)
+	{
+		for (int slot = 0; slot < this.used.length; slot++)
+		{
+			if (this.used[slot])
+			{
+				visitor.visit(latitude(slot), longitude(slot));
+			}
+		}
+	}
+	
+}
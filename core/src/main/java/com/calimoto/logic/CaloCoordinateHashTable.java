@@ -0,0 +1,333 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Base of the open addressing hash tables keyed by a location.
+ * The locations are stored as raw bits in a {@code long} array, so no object is created per entry.
+ * Collisions are resolved by linear probing and removal shifts back the following entries instead of leaving tombstones. <p></p>
+ * With a tolerance of 0 two locations are equal if their latitudes and longitudes are equal.
+ * With a tolerance greater than 0 a location matches an entry if the latitude and the longitude differ less than the tolerance,
+ * like {@link CaloCoordinate#sameLocation(CaloCoordinate)}. The entries are hashed by a grid of cells twice the size of the
+ * tolerance, so a lookup has to probe at most four cells.
+ */
+abstract class CaloCoordinateHashTable
+{
+	private static final int MIN_CAPACITY = 16;
+	
+	// attributes
+	private final double tolerance;
+	private final double cellSize;
+	/**
+	 * Latitude bits at {@code 2 * slot} and longitude bits at {@code 2 * slot + 1}
+	 */
+	long[] locations;
+	boolean[] used;
+	@Nullable
+	Object[] values;
+	int size;
+	private int mask;
+	
+	/**
+	 * Create a new {@link CaloCoordinateHashTable} instance.
+	 * @param tolerance
+	 * 		maximum difference in degrees of two matching locations, 0 for exact matching
+	 * @param expectedSize
+	 * 		expected number of entries
+	 * @param withValues
+	 * 		true to store a value per entry
+	 */
+	CaloCoordinateHashTable(final double tolerance, final int expectedSize, final boolean withValues)
+	{
+		if (!(tolerance >= 0))
+		{
+			throw new IllegalArgumentException("Illegal tolerance: " + tolerance);
+		}
+		if (expectedSize < 0)
+		{
+			throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+		}
+		this.tolerance = tolerance;
+		this.cellSize = 2 * tolerance;
+		int capacity = MIN_CAPACITY;
+		while (capacity < 2 * expectedSize)
+		{
+			capacity <<= 1;
+		}
+		allocate(capacity, withValues);
+	}
+	
+	/**
+	 * Get the tolerance of this table.
+	 * @return maximum difference in degrees of two matching locations, 0 for exact matching
+	 */
+	public double getTolerance()
+	{
+		return this.tolerance;
+	}
+	
+	/**
+	 * Get the number of entries.
+	 * @return number of entries
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+	
+	/**
+	 * Check if this table has no entries.
+	 * @return true if this table has no entries, else false
+	 */
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+	
+	/**
+	 * Remove all entries.
+	 */
+	public void clear()
+	{
+		Arrays.fill(this.used, false);
+		if (this.values != null)
+		{
+			Arrays.fill(this.values, null);
+		}
+		this.size = 0;
+	}
+	
+	/**
+	 * Find the slot of the entry matching the given location.
+	 * @param latitude
+	 * 		latitude to find
+	 * @param longitude
+	 * 		longitude to find
+	 * @return slot of the matching entry or -1 if there is none
+	 */
+	final int findSlot(final double latitude, final double longitude)
+	{
+		if (this.tolerance == 0)
+		{
+			final long latitudeBits = Double.doubleToLongBits(latitude + 0.0);
+			final long longitudeBits = Double.doubleToLongBits(longitude + 0.0);
+			for (int slot = hash(latitudeBits, longitudeBits) & this.mask; this.used[slot]; slot = (slot + 1) & this.mask)
+			{
+				if (this.locations[2 * slot] == latitudeBits && this.locations[2 * slot + 1] == longitudeBits)
+				{
+					return slot;
+				}
+			}
+			return -1;
+		}
+		final long minCellX = cell(longitude - this.tolerance);
+		final long maxCellX = cell(longitude + this.tolerance);
+		final long minCellY = cell(latitude - this.tolerance);
+		final long maxCellY = cell(latitude + this.tolerance);
+		for (long cellY = minCellY; cellY <= maxCellY; cellY++)
+		{
+			for (long cellX = minCellX; cellX <= maxCellX; cellX++)
+			{
+				for (int slot = hash(cellY, cellX) & this.mask; this.used[slot]; slot = (slot + 1) & this.mask)
+				{
+					if (CaloMath.abs(Double.longBitsToDouble(this.locations[2 * slot]) - latitude) < this.tolerance
+							&& CaloMath.abs(Double.longBitsToDouble(this.locations[2 * slot + 1]) - longitude) < this.tolerance)
+					{
+						return slot;
+					}
+				}
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Insert a new entry for the given location, which must not match any entry yet.
+	 * @param latitude
+	 * 		latitude to insert
+	 * @param longitude
+	 * 		longitude to insert
+	 * @return slot of the new entry
+	 */
+	final int insert(final double latitude, final double longitude)
+	{
+		if (2 * (this.size + 1) > this.used.length)
+		{
+			resize(2 * this.used.length);
+		}
+		final long latitudeBits = Double.doubleToLongBits(latitude + 0.0);
+		final long longitudeBits = Double.doubleToLongBits(longitude + 0.0);
+		int slot = homeSlot(latitudeBits, longitudeBits);
+		while (this.used[slot])
+		{
+			slot = (slot + 1) & this.mask;
+		}
+		this.used[slot] = true;
+		this.locations[2 * slot] = latitudeBits;
+		this.locations[2 * slot + 1] = longitudeBits;
+		this.size++;
+		return slot;
+	}
+	
+	/**
+	 * Remove the entry in the given slot and shift back the following entries of the probe sequence.
+	 * @param slot
+	 * 		slot of the entry to remove
+	 */
+	final void removeSlot(int slot)
+	{
+		int next = (slot + 1) & this.mask;
+		while (this.used[next])
+		{
+			final int home = homeSlot(this.locations[2 * next], this.locations[2 * next + 1]);
+			// move the entry if the emptied slot lies between its home slot and its current slot
+			if (((next - home) & this.mask) >= ((next - slot) & this.mask))
+			{
+				this.locations[2 * slot] = this.locations[2 * next];
+				this.locations[2 * slot + 1] = this.locations[2 * next + 1];
+				if (this.values != null)
+				{
+					this.values[slot] = this.values[next];
+				}
+				slot = next;
+			}
+			next = (next + 1) & this.mask;
+		}
+		this.used[slot] = false;
+		if (this.values != null)
+		{
+			this.values[slot] = null;
+		}
+		this.size--;
+	}
+	
+	/**
+	 * Get the latitude of the entry in the given slot.
+	 * @param slot
+	 * 		slot of the entry
+	 * @return latitude of the entry
+	 */
+	final double latitude(final int slot)
+	{
+		return Double.longBitsToDouble(this.locations[2 * slot]);
+	}
+	
+	/**
+	 * Get the longitude of the entry in the given slot.
+	 * @param slot
+	 * 		slot of the entry
+	 * @return longitude of the entry
+	 */
+	final double longitude(final int slot)
+	{
+		return Double.longBitsToDouble(this.locations[2 * slot + 1]);
+	}
+	
+	/**
+	 * Get the slot where the probe sequence of the given location starts.
+	 * @param latitudeBits
+	 * 		bits of the latitude
+	 * @param longitudeBits
+	 * 		bits of the longitude
+	 * @return first slot to probe
+	 */
+	private int homeSlot(final long latitudeBits, final long longitudeBits)
+	{
+		if (this.tolerance == 0)
+		{
+			return hash(latitudeBits, longitudeBits) & this.mask;
+		}
+		return hash(cell(Double.longBitsToDouble(latitudeBits)), cell(Double.longBitsToDouble(longitudeBits))) & this.mask;
+	}
+	
+	/**
+	 * Get the grid cell of the given degrees.
+	 * @param degrees
+	 * 		latitude or longitude
+	 * @return index of the cell
+	 */
+	private long cell(final double degrees)
+	{
+		return (long) CaloMath.floor(degrees / this.cellSize);
+	}
+	
+	/**
+	 * Rehash all entries into tables of the given capacity.
+	 * @param capacity
+	 * 		new number of slots, power of 2
+	 */
+	private void resize(final int capacity)
+	{
+		final long[] oldLocations = this.locations;
+		final boolean[] oldUsed = this.used;
+		final Object[] oldValues = this.values;
+		allocate(capacity, oldValues != null);
+		for (int oldSlot = 0; oldSlot < oldUsed.length; oldSlot++)
+		{
+			if (oldUsed[oldSlot])
+			{
+				int slot = homeSlot(oldLocations[2 * oldSlot], oldLocations[2 * oldSlot + 1]);
+				while (this.used[slot])
+				{
+					slot = (slot + 1) & this.mask;
+				}
+				this.used[slot] = true;
+				this.locations[2 * slot] = oldLocations[2 * oldSlot];
+				this.locations[2 * slot + 1] = oldLocations[2 * oldSlot + 1];
+				if (oldValues != null)
+				{
+					this.values[slot] = oldValues[oldSlot];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Allocate empty tables of the given capacity.
+	 * @param capacity
+	 * 		number of slots, power of 2
+	 * @param withValues
+	 * 		true to allocate the value table
+	 */
+	private void allocate(final int capacity, final boolean withValues)
+	{
+		this.locations = new long[2 * capacity];
+		this.used = new boolean[capacity];
+		this.values = withValues ? new Object[capacity] : null;
+		this.mask = capacity - 1;
+	}
+	
+	/**
+	 * Create a well distributed hash of the given pair of values.
+	 * @param first
+	 * 		first value
+	 * @param second
+	 * 		second value
+	 * @return hash of the values
+	 */
+	private static int hash(final long first, final long second)
+	{
+		final long hash = CaloMath.mix(first * 0x9e3779b97f4a7c15L ^ second);
+		return (int) (hash ^ (hash >>> 32));
+	}
+	
+}
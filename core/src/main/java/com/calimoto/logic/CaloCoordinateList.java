@@ -20,7 +20,14 @@ package com.calimoto.logic;
 import androidx.annotation.NonNull;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Interface to access a list of {@link CaloCoordinate}.
@@ -44,6 +51,30 @@ public interface CaloCoordinateList<Coordinate extends CaloCoordinate>
 	@NonNull
 	public Coordinate get(int index);
 	
+	/**
+	 * Get the latitude of the {@link CaloCoordinate} at the given index.
+	 * Primitive backed lists override this to avoid creating a {@link CaloCoordinate}.
+	 * @param index
+	 * 		index of the {@link CaloCoordinate}
+	 * @return latitude of the {@link CaloCoordinate} at the given index
+	 */
+	public default double getLatitude(final int index)
+	{
+		return get(index).getLatitude();
+	}
+	
+	/**
+	 * Get the longitude of the {@link CaloCoordinate} at the given index.
+	 * Primitive backed lists override this to avoid creating a {@link CaloCoordinate}.
+	 * @param index
+	 * 		index of the {@link CaloCoordinate}
+	 * @return longitude of the {@link CaloCoordinate} at the given index
+	 */
+	public default double getLongitude(final int index)
+	{
+		return get(index).getLongitude();
+	}
+	
 	/**
 	 * Set the {@link CaloCoordinate} at the given index.
 	 * @param index
@@ -82,9 +113,40 @@ public interface CaloCoordinateList<Coordinate extends CaloCoordinate>
 	 */
 	public default void addAll(@NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
 	{
-		for (int i = 0; i < listToAdd.size(); i++)
+		addAll(size(), listToAdd);
+	}
+	
+	/**
+	 * Add all elements of the given {@link CaloCoordinateList} at the given index of this list,
+	 * shifting the following elements. Performs a shallow copy of the elements. <p></p>
+	 * The default implementation adds one element after the other, array backed lists override it to move
+	 * the following elements only once.
+	 * @param index
+	 * 		index to add the first element at
+	 * @param listToAdd
+	 * 		List to be added, may be this list
+	 */
+	public default void addAll(final int index, @NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
+	{
+		if (index < 0 || index > size())
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		final int sizeToAdd = listToAdd.size();
+		ensureCapacity(size() + sizeToAdd);
+		if (listToAdd == this)
 		{
-			add(listToAdd.get(i));
+			// the elements move while adding, so add from a copy
+			final List<Coordinate> copy = new ArrayList<>(asList());
+			for (int i = 0; i < sizeToAdd; i++)
+			{
+				add(index + i, copy.get(i));
+			}
+			return;
+		}
+		for (int i = 0; i < sizeToAdd; i++)
+		{
+			add(index + i, listToAdd.get(i));
 		}
 	}
 	
@@ -118,7 +180,56 @@ public interface CaloCoordinateList<Coordinate extends CaloCoordinate>
 	public void removeAll();
 	
 	/**
-	 * Transform to a {@link List} of Coordinates
+	 * Remove the elements from the given index to the element before the given end index, shifting the following elements.
+	 * The default implementation removes one element after the other, array backed lists override it to move
+	 * the following elements only once.
+	 * @param from
+	 * 		index of the first element to remove
+	 * @param to
+	 * 		index after the last element to remove
+	 */
+	public default void removeRange(final int from, final int to)
+	{
+		if (from < 0 || to > size() || from > to)
+		{
+			throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + size());
+		}
+		for (int i = to - 1; i >= from; i--)
+		{
+			remove(i);
+		}
+	}
+	
+	/**
+	 * Get a view of the elements from the given index to the element before the given end index.
+	 * Changes of the view are written to this list and vice versa, e.g. {@code subList(from, to).removeAll()}
+	 * removes a range. The view becomes invalid when the size of this list is changed other than through the view.
+	 * @param from
+	 * 		index of the first element of the view
+	 * @param to
+	 * 		index after the last element of the view
+	 * @return {@link CaloCoordinateList} view of the range
+	 */
+	@NonNull
+	public default CaloCoordinateList<Coordinate> subList(final int from, final int to)
+	{
+		return new CaloCoordinateListSubList<>(this, from, to);
+	}
+	
+	/**
+	 * Reserve memory, if necessary, so this list can hold at least the given number of elements without growing.
+	 * The default implementation does nothing.
+	 * @param minCapacity
+	 * 		minimum number of elements to hold
+	 */
+	public default void ensureCapacity(final int minCapacity)
+	{
+		// nothing to reserve
+	}
+	
+	/**
+	 * Transform to a {@link List} of Coordinates. The default implementation copies the coordinates,
+	 * see {@link #asList()} for a view without copying.
 	 */
 	@NonNull
 	public default List<Coordinate> toList()
@@ -131,6 +242,109 @@ public interface CaloCoordinateList<Coordinate extends CaloCoordinate>
 		return list;
 	}
 	
+	/**
+	 * Create a {@link Spliterator} over the coordinates of this list without copying them.
+	 * It reports {@link Spliterator#SIZED}, {@link Spliterator#SUBSIZED} and {@link Spliterator#ORDERED}
+	 * and splits in halves. The list must not be modified while it is traversed.
+	 * @return {@link Spliterator} over this list
+	 */
+	@NonNull
+	public default Spliterator<Coordinate> spliterator()
+	{
+		return new CaloCoordinateListSpliterator<>(this, 0, size());
+	}
+	
+	/**
+	 * Create a sequential {@link Stream} of the coordinates of this list without copying them.
+	 * @return {@link Stream} of this list
+	 */
+	@NonNull
+	public default Stream<Coordinate> stream()
+	{
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Create a parallel {@link Stream} of the coordinates of this list without copying them.
+	 * Reading the list concurrently must be safe, which is the case for all lists of this library.
+	 * @return parallel {@link Stream} of this list
+	 */
+	@NonNull
+	public default Stream<Coordinate> parallelStream()
+	{
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Get a {@link List} view of this list. Changes of the view are written to this list and vice versa,
+	 * nothing is copied.
+	 * @return {@link List} view of this list
+	 */
+	@NonNull
+	public default List<Coordinate> asList()
+	{
+		return new CaloCoordinateListView<>(this);
+	}
+	
+	/**
+	 * Create an {@link Iterator} over the coordinates of this list without copying them.
+	 * The list must not be modified while it is traversed.
+	 * @return {@link Iterator} over this list
+	 */
+	@NonNull
+	public default Iterator<Coordinate> iterator()
+	{
+		return Spliterators.iterator(spliterator());
+	}
+	
+	/**
+	 * Perform the given action for every coordinate of this list in order.
+	 * @param action
+	 * 		action to perform
+	 */
+	public default void forEach(@NonNull final Consumer<? super Coordinate> action)
+	{
+		for (int i = 0; i < size(); i++)
+		{
+			action.accept(get(i));
+		}
+	}
+	
+	/**
+	 * Create a {@link CaloCoordinateCursor} before the first location of this list, which reads the locations
+	 * without creating a {@link CaloCoordinate} for each of them. See the cursor for the rules of its usage.
+	 * @return new {@link CaloCoordinateCursor} of this list
+	 */
+	@NonNull
+	public default CaloCoordinateCursor cursor()
+	{
+		return new CaloCoordinateCursor(this);
+	}
+	
+	/**
+	 * Create a sequential {@link DoubleStream} of the latitudes of this list, read with {@link #getLatitude(int)}
+	 * so primitive backed lists create no {@link CaloCoordinate}. Use {@link DoubleStream#parallel()} to process it
+	 * in parallel, it splits like {@link #spliterator()}.
+	 * @return {@link DoubleStream} of the latitudes
+	 */
+	@NonNull
+	public default DoubleStream latitudes()
+	{
+		return StreamSupport.doubleStream(new CaloCoordinateListDoubleSpliterator(this, true, 0, size()), false);
+	}
+	
+	/**
+	 * Create a sequential {@link DoubleStream} of the longitudes of this list, read with {@link #getLongitude(int)}
+	 * so primitive backed lists create no {@link CaloCoordinate}. Use {@link DoubleStream#parallel()} to process it
+	 * in parallel, it splits like {@link #spliterator()}.
+	 * @return {@link DoubleStream} of the longitudes
+	 */
+	@NonNull
+	public default DoubleStream longitudes()
+	{
+		return StreamSupport.doubleStream(new CaloCoordinateListDoubleSpliterator(this, false, 0, size()), false);
+	}
+	
 	/**
 	 * Wraps a List of Coordinates in a {@link CaloCoordinateList}
 	 * @param listOfCoordinates
@@ -0,0 +1,374 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact encoding of a {@link CaloCoordinateList}, quantizing latitude and longitude to a fixed number of
+ * decimal places and storing the differences to the previous location. <p></p>
+ * The binary format is the number of locations followed by the latitude and longitude differences of every location,
+ * all as zigzag varints, so a track of GPS fixes takes about 3 to 6 bytes per location instead of 16.
+ * The text format is the <a href="https://developers.google.com/maps/documentation/utilities/polylinealgorithm">Google
+ * encoded polyline</a>, which uses 5 decimal places ({@link #GOOGLE_POLYLINE}) or 6 decimal places for polyline6. <p></p>
+ * Decoding into a {@link CaloCoordinateListPacked} does not create any {@link CaloCoordinate}.
+ */
+public class CaloCoordinateListCodec
+{
+	/**
+	 * Codec with 6 decimal places, the quantization error of at most 0.0000005 degrees lies within
+	 * {@link CaloCoordinate#SAME_LOCATION_TOLERANCE}
+	 */
+	public static final CaloCoordinateListCodec DEFAULT = new CaloCoordinateListCodec(6);
+	
+	/**
+	 * Codec with 5 decimal places as used by the Google encoded polyline
+	 */
+	public static final CaloCoordinateListCodec GOOGLE_POLYLINE = new CaloCoordinateListCodec(5);
+	
+	/**
+	 * Maximum number of bytes of a varint of 64 bits
+	 */
+	private static final int MAX_VARINT_BYTES = 10;
+	
+	// attributes
+	private final int decimalPlaces;
+	private final double factor;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListCodec} instance.
+	 * @param decimalPlaces
+	 * 		number of decimal places to keep of latitude and longitude, from 0 to 10
+	 */
+	public CaloCoordinateListCodec(final int decimalPlaces)
+	{
+		if (decimalPlaces < 0 || decimalPlaces > 10)
+		{
+			throw new IllegalArgumentException("Illegal decimal places: " + decimalPlaces);
+		}
+		this.decimalPlaces = decimalPlaces;
+		this.factor = CaloMath.pow(10, decimalPlaces);
+	}
+	
+	/**
+	 * Get the number of decimal places kept by this codec.
+	 * @return number of decimal places
+	 */
+	public int getDecimalPlaces()
+	{
+		return this.decimalPlaces;
+	}
+	
+	/**
+	 * Get the maximum number of bytes {@link #encode(CaloCoordinateList, ByteBuffer)} writes for the given number of locations.
+	 * @param size
+	 * 		number of locations
+	 * @return maximum number of bytes
+	 */
+	public static int getMaxEncodedSize(final int size)
+	{
+		return MAX_VARINT_BYTES * (2 * size + 1);
+	}
+	
+	/**
+	 * Encode the given {@link CaloCoordinateList} into the binary format.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to encode
+	 * @param buffer
+	 * 		{@link ByteBuffer} to write to, starting at its position
+	 */
+	public void encode(@NonNull final CaloCoordinateList<?> list, @NonNull final ByteBuffer buffer)
+	{
+		final int size = list.size();
+		writeVarint(buffer, size);
+		long previousLatitude = 0;
+		long previousLongitude = 0;
+		for (int i = 0; i < size; i++)
+		{
+			final long latitude = quantize(list.getLatitude(i));
+			final long longitude = quantize(list.getLongitude(i));
+			writeVarint(buffer, zigzag(latitude - previousLatitude));
+			writeVarint(buffer, zigzag(longitude - previousLongitude));
+			previousLatitude = latitude;
+			previousLongitude = longitude;
+		}
+	}
+	
+	/**
+	 * Decode a list in the binary format and add its locations to the end of the given list.
+	 * @param buffer
+	 * 		{@link ByteBuffer} to read from, starting at its position
+	 * @param target
+	 * 		{@link CaloCoordinateListPacked} to add the locations to
+	 */
+	public void decode(@NonNull final ByteBuffer buffer, @NonNull final CaloCoordinateListPacked<?> target)
+	{
+		final int size = readSize(buffer);
+		target.ensureCapacity(target.size() + size);
+		long latitude = 0;
+		long longitude = 0;
+		for (int i = 0; i < size; i++)
+		{
+			latitude += unzigzag(readVarint(buffer));
+			longitude += unzigzag(readVarint(buffer));
+			target.add(latitude / this.factor, longitude / this.factor);
+		}
+	}
+	
+	/**
+	 * Decode a list in the binary format and add its locations to the end of the given list.
+	 * @param buffer
+	 * 		{@link ByteBuffer} to read from, starting at its position
+	 * @param target
+	 * 		{@link CaloCoordinateList} to add the locations to
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} to create the coordinates
+	 * @param <Coordinate>
+	 * 		{@link CaloCoordinate} type
+	 */
+	public <Coordinate extends CaloCoordinate> void decode(
+			@NonNull final ByteBuffer buffer,
+			@NonNull final CaloCoordinateList<Coordinate> target,
+			@NonNull final CaloCoordinateFactory<? extends Coordinate> coordinateFactory)
+	{
+		if (target instanceof CaloCoordinateListPacked)
+		{
+			decode(buffer, (CaloCoordinateListPacked<?>) target);
+			return;
+		}
+		final int size = readSize(buffer);
+		long latitude = 0;
+		long longitude = 0;
+		for (int i = 0; i < size; i++)
+		{
+			latitude += unzigzag(readVarint(buffer));
+			longitude += unzigzag(readVarint(buffer));
+			target.add(coordinateFactory.create(latitude / this.factor, longitude / this.factor));
+		}
+	}
+	
+	/**
+	 * Encode the given {@link CaloCoordinateList} as encoded polyline.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to encode
+	 * @param builder
+	 * 		{@link StringBuilder} to append the encoded polyline to
+	 */
+	public void encodePolyline(@NonNull final CaloCoordinateList<?> list, @NonNull final StringBuilder builder)
+	{
+		long previousLatitude = 0;
+		long previousLongitude = 0;
+		for (int i = 0; i < list.size(); i++)
+		{
+			final long latitude = quantize(list.getLatitude(i));
+			final long longitude = quantize(list.getLongitude(i));
+			appendPolylineValue(builder, zigzag(latitude - previousLatitude));
+			appendPolylineValue(builder, zigzag(longitude - previousLongitude));
+			previousLatitude = latitude;
+			previousLongitude = longitude;
+		}
+	}
+	
+	/**
+	 * Encode the given {@link CaloCoordinateList} as encoded polyline.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to encode
+	 * @return encoded polyline
+	 */
+	@NonNull
+	public String encodePolyline(@NonNull final CaloCoordinateList<?> list)
+	{
+		final StringBuilder builder = new StringBuilder(8 * list.size());
+		encodePolyline(list, builder);
+		return builder.toString();
+	}
+	
+	/**
+	 * Decode an encoded polyline and add its locations to the end of the given list.
+	 * @param polyline
+	 * 		encoded polyline
+	 * @param target
+	 * 		{@link CaloCoordinateListPacked} to add the locations to
+	 */
+	public void decodePolyline(@NonNull final CharSequence polyline, @NonNull final CaloCoordinateListPacked<?> target)
+	{
+		long latitude = 0;
+		long longitude = 0;
+		boolean isLongitude = false;
+		int index = 0;
+		while (index < polyline.length())
+		{
+			long value = 0;
+			int shift = 0;
+			int chunk;
+			do
+			{
+				chunk = readPolylineChunk(polyline, index++, shift);
+				value |= (long) (chunk & 0x1f) << shift;
+				shift += 5;
+			}
+			while (chunk >= 0x20);
+			if (isLongitude)
+			{
+				longitude += unzigzag(value);
+				target.add(latitude / this.factor, longitude / this.factor);
+			}
+			else
+			{
+				latitude += unzigzag(value);
+			}
+			isLongitude = !isLongitude;
+		}
+		if (isLongitude)
+		{
+			throw new IllegalArgumentException("Polyline ends without longitude");
+		}
+	}
+	
+	/**
+	 * Quantize the given degrees to an integer of the decimal places of this codec.
+	 * @param degrees
+	 * 		latitude or longitude
+	 * @return quantized value
+	 */
+	private long quantize(final double degrees)
+	{
+		return CaloMath.round(degrees * this.factor);
+	}
+	
+	/**
+	 * Map signed to unsigned values so small magnitudes of both signs get short varints.
+	 * @param value
+	 * 		signed value
+	 * @return zigzag encoded value
+	 */
+	private static long zigzag(final long value)
+	{
+		return (value << 1) ^ (value >> 63);
+	}
+	
+	/**
+	 * Revert {@link #zigzag(long)}.
+	 * @param value
+	 * 		zigzag encoded value
+	 * @return signed value
+	 */
+	private static long unzigzag(final long value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	/**
+	 * Write the given value as varint of 7 bits per byte, least significant first.
+	 * @param buffer
+	 * 		{@link ByteBuffer} to write to
+	 * @param value
+	 * 		unsigned value to write
+	 */
+	private static void writeVarint(@NonNull final ByteBuffer buffer, long value)
+	{
+		while ((value & ~0x7fL) != 0)
+		{
+			buffer.put((byte) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	/**
+	 * Read a varint written by {@link #writeVarint(ByteBuffer, long)}.
+	 * @param buffer
+	 * 		{@link ByteBuffer} to read from
+	 * @return unsigned value
+	 */
+	private static long readVarint(@NonNull final ByteBuffer buffer)
+	{
+		long value = 0;
+		for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7)
+		{
+			final byte current = buffer.get();
+			value |= (long) (current & 0x7f) << shift;
+			if (current >= 0)
+			{
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint at position " + buffer.position());
+	}
+	
+	/**
+	 * Read the number of locations of the binary format.
+	 * @param buffer
+	 * 		{@link ByteBuffer} to read from
+	 * @return number of locations
+	 */
+	private static int readSize(@NonNull final ByteBuffer buffer)
+	{
+		final long size = readVarint(buffer);
+		// every location takes at least 2 bytes
+		if (size > buffer.remaining() / 2)
+		{
+			throw new IllegalArgumentException("Illegal size " + size + " for " + buffer.remaining() + " remaining bytes");
+		}
+		return (int) size;
+	}
+	
+	/**
+	 * Append the given value as chunks of 5 bits of the encoded polyline.
+	 * @param builder
+	 * 		{@link StringBuilder} to append to
+	 * @param value
+	 * 		zigzag encoded value
+	 */
+	private static void appendPolylineValue(@NonNull final StringBuilder builder, long value)
+	{
+		while (value >= 0x20)
+		{
+			builder.append((char) ((0x20 | (value & 0x1f)) + 63));
+			value >>>= 5;
+		}
+		builder.append((char) (value + 63));
+	}
+	
+	/**
+	 * Read a chunk of 5 bits and the continuation bit of the encoded polyline.
+	 * @param polyline
+	 * 		encoded polyline
+	 * @param index
+	 * 		index of the character
+	 * @param shift
+	 * 		number of bits read of the current value
+	 * @return chunk value
+	 */
+	private static int readPolylineChunk(@NonNull final CharSequence polyline, final int index, final int shift)
+	{
+		if (index >= polyline.length() || shift >= 64)
+		{
+			throw new IllegalArgumentException("Truncated polyline at index " + index);
+		}
+		final int chunk = polyline.charAt(index) - 63;
+		if (chunk < 0 || chunk >= 0x40)
+		{
+			throw new IllegalArgumentException("Illegal polyline character at index " + index);
+		}
+		return chunk;
+	}
+	
+}
@@ -0,0 +1,120 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+
+/**
+ * {@link Spliterator.OfDouble} over the latitudes or the longitudes of a range of indices of a {@link CaloCoordinateList},
+ * reading them with {@link CaloCoordinateList#getLatitude(int)} and {@link CaloCoordinateList#getLongitude(int)}
+ * so primitive backed lists create no {@link CaloCoordinate}.
+ */
+final class CaloCoordinateListDoubleSpliterator implements Spliterator.OfDouble
+{
+	// attributes
+	private final CaloCoordinateList<?> list;
+	private final boolean latitudes;
+	private int index;
+	private final int fence;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListDoubleSpliterator} instance.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to traverse
+	 * @param latitudes
+	 * 		true to traverse the latitudes, false to traverse the longitudes
+	 * @param from
+	 * 		first index to traverse
+	 * @param to
+	 * 		index after the last index to traverse
+	 */
+	CaloCoordinateListDoubleSpliterator(
+			@NonNull final CaloCoordinateList<?> list,
+			final boolean latitudes,
+			final int from,
+			final int to)
+	{
+		this.list = list;
+		this.latitudes = latitudes;
+		this.index = from;
+		this.fence = to;
+	}
+	
+	@Override
+	public boolean tryAdvance(@NonNull final DoubleConsumer action)
+	{
+		if (this.index >= this.fence)
+		{
+			return false;
+		}
+		action.accept(get(this.index++));
+		return true;
+	}
+	
+	@Override
+	public void forEachRemaining(@NonNull final DoubleConsumer action)
+	{
+		for (int i = this.index; i < this.fence; i++)
+		{
+			action.accept(get(i));
+		}
+		this.index = this.fence;
+	}
+	
+	@Nullable
+	@Override
+	public Spliterator.OfDouble trySplit()
+	{
+		final int middle = (this.index + this.fence) >>> 1;
+		if (middle <= this.index)
+		{
+			return null;
+		}
+		final Spliterator.OfDouble prefix = new CaloCoordinateListDoubleSpliterator(this.list, this.latitudes, this.index, middle);
+		this.index = middle;
+		return prefix;
+	}
+	
+	@Override
+	public long estimateSize()
+	{
+		return this.fence - this.index;
+	}
+	
+	@Override
+	public int characteristics()
+	{
+		return ORDERED | SIZED | SUBSIZED | NONNULL;
+	}
+	
+	/**
+	 * Get the traversed value at the given index.
+	 * @param index
+	 * 		index of the value
+	 * @return latitude or longitude at the index
+	 */
+	private double get(final int index)
+	{
+		return this.latitudes ? this.list.getLatitude(index) : this.list.getLongitude(index);
+	}
+	
+}
@@ -84,12 +84,54 @@ public class CaloCoordinateListFactorySimple<Coordinate extends CaloCoordinate>
 			list.clear();
 		}
 		
+		@Override
+		public void addAll(@NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
+		{
+			addAll(this.list.size(), listToAdd);
+		}
+		
+		@Override
+		public void addAll(final int index, @NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
+		{
+			// the List copies the elements to an array first, so adding a view of this list is safe
+			this.list.addAll(index, listToAdd.asList());
+		}
+		
+		@Override
+		public void removeRange(final int from, final int to)
+		{
+			this.list.subList(from, to).clear();
+		}
+		
+		@NonNull
+		@Override
+		public CaloCoordinateList<Coordinate> subList(final int from, final int to)
+		{
+			return new CaloCoordinateListSimple<>(this.list.subList(from, to));
+		}
+		
+		@Override
+		public void ensureCapacity(final int minCapacity)
+		{
+			if (this.list instanceof ArrayList)
+			{
+				((ArrayList<Coordinate>) this.list).ensureCapacity(minCapacity);
+			}
+		}
+		
 		@NonNull
 		@Override
 		public List<Coordinate> toList()
 		{
 			return this.list;
 		}
+		
+		@NonNull
+		@Override
+		public List<Coordinate> asList()
+		{
+			return this.list;
+		}
 	}
 	
 	@NonNull
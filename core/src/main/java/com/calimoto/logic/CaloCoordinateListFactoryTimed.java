@@ -0,0 +1,58 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Implementation of {@link CaloCoordinateListFactory} constructing a {@link CaloCoordinateListTimed}
+ * which stores the locations and their timestamps in primitive arrays.
+ * @param <Coordinate>
+ *     type of {@link CaloCoordinate} contained
+ */
+public class CaloCoordinateListFactoryTimed<Coordinate extends CaloCoordinate>
+		implements CaloCoordinateListFactory<Coordinate, CaloCoordinateListTimed<Coordinate>>
+{
+	// attributes
+	@NonNull
+	private final CaloCoordinateFactory<Coordinate> coordinateFactory;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListFactoryTimed} instance.
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} used by the created lists to hand out coordinates
+	 */
+	public CaloCoordinateListFactoryTimed(@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory)
+	{
+		this.coordinateFactory = coordinateFactory;
+	}
+	
+	@NonNull
+	@Override
+	public CaloCoordinateListTimed<Coordinate> create()
+	{
+		return new CaloCoordinateListTimed<>(this.coordinateFactory, 0);
+	}
+	
+	@NonNull
+	@Override
+	public CaloCoordinateListTimed<Coordinate> create(final int initialCapacity)
+	{
+		return new CaloCoordinateListTimed<>(this.coordinateFactory, initialCapacity);
+	}
+}
@@ -0,0 +1,510 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link CaloCoordinateList} reading the locations directly from a memory mapped track file, so opening even
+ * a track of several gigabytes only maps the file and every access decodes the location on demand. <p></p>
+ * The file consists of a header of 16 bytes (magic "CALT", format version and number of locations) followed by
+ * latitude and longitude of every location as little endian {@code double}. It is mapped in chunks of 1 GiB,
+ * as a single mapping is limited to 2 GiB. <p></p>
+ * A list opened by {@link #open(File, CaloCoordinateFactory)} is read-only. A list opened by
+ * {@link #create(File, CaloCoordinateFactory)} or {@link #openForAppend(File, CaloCoordinateFactory)} additionally
+ * supports setting locations and adding locations at the end, e.g. for live recording. The number of locations in the
+ * header is updated after every added location, so a crash loses at most the location being added.
+ * Removing is not supported. Reading is thread-safe, the list must not be used after {@link #close()}.
+ * @param <Coordinate>
+ * 		type of the coordinates
+ */
+public class CaloCoordinateListMapped<Coordinate extends CaloCoordinate> implements CaloCoordinateList<Coordinate>, Closeable
+{
+	/**
+	 * Magic number "CALT" at the start of a track file
+	 */
+	private static final int MAGIC = 0x43414c54;
+	
+	/**
+	 * Version of the file format
+	 */
+	private static final int VERSION = 1;
+	
+	private static final int HEADER_BYTES = 16;
+	private static final int LOCATION_BYTES = 16;
+	private static final int CHUNK_SHIFT = 26;
+	private static final int CHUNK_LOCATIONS = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_LOCATIONS - 1;
+	private static final int MIN_APPEND_CAPACITY = 1024;
+	
+	// attributes
+	@NonNull
+	private final CaloCoordinateFactory<Coordinate> coordinateFactory;
+	@NonNull
+	private final RandomAccessFile file;
+	@NonNull
+	private final FileChannel channel;
+	private final boolean writable;
+	@Nullable
+	private final MappedByteBuffer header;
+	@Nullable
+	private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+	/**
+	 * Number of locations mapped by the last chunk
+	 */
+	private int lastChunkCapacity;
+	private int size;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListMapped} instance.
+	 * @param file
+	 * 		track file
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} to create the coordinates returned by {@link #get(int)}
+	 * @param writable
+	 * 		true to open the file for writing, creating it if it does not exist
+	 * @param truncate
+	 * 		true to remove all locations of an existing file
+	 * @throws IOException
+	 * 		if the file cannot be opened or is no track file
+	 */
+	private CaloCoordinateListMapped(
+			@NonNull final File file,
+			@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory,
+			final boolean writable,
+			final boolean truncate) throws IOException
+	{
+		this.coordinateFactory = coordinateFactory;
+		this.writable = writable;
+		this.file = new RandomAccessFile(file, writable ? "rw" : "r");
+		this.channel = this.file.getChannel();
+		try
+		{
+			if (writable && (truncate || this.channel.size() == 0))
+			{
+				this.channel.truncate(0);
+				final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+				buffer.putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+				while (buffer.hasRemaining())
+				{
+					this.channel.write(buffer, buffer.position());
+				}
+			}
+			final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			while (buffer.hasRemaining())
+			{
+				if (this.channel.read(buffer, buffer.position()) < 0)
+				{
+					throw new IOException("Truncated header of " + file);
+				}
+			}
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			{
+				throw new IOException("Unsupported track file " + file);
+			}
+			final long count = buffer.getLong(8);
+			if (count < 0 || count > Integer.MAX_VALUE || this.channel.size() < HEADER_BYTES + count * LOCATION_BYTES)
+			{
+				throw new IOException("Corrupt location count " + count + " of " + file);
+			}
+			this.header = writable ? map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES) : null;
+			this.size = (int) count;
+			final int chunkCount = (this.size + CHUNK_LOCATIONS - 1) >>> CHUNK_SHIFT;
+			this.chunks = new MappedByteBuffer[chunkCount];
+			for (int chunk = 0; chunk < chunkCount; chunk++)
+			{
+				this.lastChunkCapacity = CaloMath.min(this.size - (chunk << CHUNK_SHIFT), CHUNK_LOCATIONS);
+				this.chunks[chunk] = mapChunk(chunk, this.lastChunkCapacity);
+			}
+		}
+		catch (final IOException | RuntimeException e)
+		{
+			this.file.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Open the given track file read-only.
+	 * @param file
+	 * 		track file to open
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} to create the coordinates returned by {@link #get(int)}
+	 * @param <Coordinate>
+	 * 		{@link CaloCoordinate} type
+	 * @return list of the locations in the file
+	 * @throws IOException
+	 * 		if the file cannot be opened or is no track file
+	 */
+	@NonNull
+	public static <Coordinate extends CaloCoordinate> CaloCoordinateListMapped<Coordinate> open(
+			@NonNull final File file,
+			@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory) throws IOException
+	{
+		return new CaloCoordinateListMapped<>(file, coordinateFactory, false, false);
+	}
+	
+	/**
+	 * Create an empty track file for writing, replacing an existing file.
+	 * @param file
+	 * 		track file to create
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} to create the coordinates returned by {@link #get(int)}
+	 * @param <Coordinate>
+	 * 		{@link CaloCoordinate} type
+	 * @return empty list writing to the file
+	 * @throws IOException
+	 * 		if the file cannot be created
+	 */
+	@NonNull
+	public static <Coordinate extends CaloCoordinate> CaloCoordinateListMapped<Coordinate> create(
+			@NonNull final File file,
+			@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory) throws IOException
+	{
+		return new CaloCoordinateListMapped<>(file, coordinateFactory, true, true);
+	}
+	
+	/**
+	 * Open the given track file for appending locations, creating it if it does not exist.
+	 * @param file
+	 * 		track file to open
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} to create the coordinates returned by {@link #get(int)}
+	 * @param <Coordinate>
+	 * 		{@link CaloCoordinate} type
+	 * @return list of the locations in the file
+	 * @throws IOException
+	 * 		if the file cannot be opened or is no track file
+	 */
+	@NonNull
+	public static <Coordinate extends CaloCoordinate> CaloCoordinateListMapped<Coordinate> openForAppend(
+			@NonNull final File file,
+			@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory) throws IOException
+	{
+		return new CaloCoordinateListMapped<>(file, coordinateFactory, true, false);
+	}
+	
+	/**
+	 * Write the given {@link CaloCoordinateList} to a track file, replacing an existing file.
+	 * @param file
+	 * 		track file to write
+	 * @param list
+	 * 		{@link CaloCoordinateList} to write
+	 * @throws IOException
+	 * 		if the file cannot be written
+	 */
+	public static void write(@NonNull final File file, @NonNull final CaloCoordinateList<?> list) throws IOException
+	{
+		try (final CaloCoordinateListMapped<CaloCoordinate> mapped = create(file, CaloCoordinateFactorySimple.INSTANCE))
+		{
+			mapped.ensureCapacity(list.size());
+			for (int i = 0; i < list.size(); i++)
+			{
+				mapped.add(list.getLatitude(i), list.getLongitude(i));
+			}
+		}
+	}
+	
+	/**
+	 * Check if locations can be set and added.
+	 * @return true if the list is writable, else false
+	 */
+	public boolean isWritable()
+	{
+		return this.writable;
+	}
+	
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+	
+	@NonNull
+	@Override
+	public Coordinate get(final int index)
+	{
+		return this.coordinateFactory.create(getLatitude(index), getLongitude(index));
+	}
+	
+	@Override
+	public double getLatitude(final int index)
+	{
+		checkIndex(index);
+		return this.chunks[index >>> CHUNK_SHIFT].getDouble((index & CHUNK_MASK) * LOCATION_BYTES);
+	}
+	
+	@Override
+	public double getLongitude(final int index)
+	{
+		checkIndex(index);
+		return this.chunks[index >>> CHUNK_SHIFT].getDouble((index & CHUNK_MASK) * LOCATION_BYTES + 8);
+	}
+	
+	@Override
+	public void set(final int index, @NonNull final Coordinate coordinate)
+	{
+		set(index, coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Set the location at the given index.
+	 * @param index
+	 * 		index of the location to set
+	 * @param latitude
+	 * 		latitude to set
+	 * @param longitude
+	 * 		longitude to set
+	 */
+	public void set(final int index, final double latitude, final double longitude)
+	{
+		checkWritable();
+		checkIndex(index);
+		final MappedByteBuffer chunk = this.chunks[index >>> CHUNK_SHIFT];
+		final int offset = (index & CHUNK_MASK) * LOCATION_BYTES;
+		chunk.putDouble(offset, latitude);
+		chunk.putDouble(offset + 8, longitude);
+	}
+	
+	/**
+	 * Add the {@link CaloCoordinate} at the given index, which must be the end of the list.
+	 * @param index
+	 * 		index to add the {@link CaloCoordinate} at, must be {@link #size()}
+	 * @param coordinate
+	 * 		{@link CaloCoordinate} to add
+	 */
+	@Override
+	public void add(final int index, @NonNull final Coordinate coordinate)
+	{
+		if (index != this.size)
+		{
+			throw new UnsupportedOperationException("Can only add at the end of a mapped list");
+		}
+		add(coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Add the location at the end of the list.
+	 * @param latitude
+	 * 		latitude to add
+	 * @param longitude
+	 * 		longitude to add
+	 */
+	public void add(final double latitude, final double longitude)
+	{
+		checkWritable();
+		ensureCapacity(this.size + 1);
+		final MappedByteBuffer chunk = this.chunks[this.size >>> CHUNK_SHIFT];
+		final int offset = (this.size & CHUNK_MASK) * LOCATION_BYTES;
+		chunk.putDouble(offset, latitude);
+		chunk.putDouble(offset + 8, longitude);
+		this.size++;
+		this.header.putLong(8, this.size);
+	}
+	
+	/**
+	 * Not supported, a mapped list can only grow.
+	 * @param index
+	 * 		index to remove
+	 */
+	@Override
+	public void remove(final int index)
+	{
+		throw new UnsupportedOperationException("Cannot remove from a mapped list");
+	}
+	
+	/**
+	 * Not supported, a mapped list can only grow.
+	 */
+	@Override
+	public void removeAll()
+	{
+		throw new UnsupportedOperationException("Cannot remove from a mapped list");
+	}
+	
+	/**
+	 * Map enough of the file to add locations up to the given size without remapping.
+	 * @param minCapacity
+	 * 		minimum number of locations to hold
+	 */
+	@Override
+	public void ensureCapacity(final int minCapacity)
+	{
+		checkWritable();
+		try
+		{
+			while (capacity() < minCapacity)
+			{
+				final int chunkCount = this.chunks.length;
+				if (chunkCount == 0 || this.lastChunkCapacity == CHUNK_LOCATIONS)
+				{
+					final MappedByteBuffer[] newChunks = new MappedByteBuffer[chunkCount + 1];
+					System.arraycopy(this.chunks, 0, newChunks, 0, chunkCount);
+					this.lastChunkCapacity = CaloMath.min(CaloMath.max(minCapacity - capacity(), MIN_APPEND_CAPACITY), CHUNK_LOCATIONS);
+					newChunks[chunkCount] = mapChunk(chunkCount, this.lastChunkCapacity);
+					this.chunks = newChunks;
+				}
+				else
+				{
+					final int needed = minCapacity - capacity() + this.lastChunkCapacity;
+					this.lastChunkCapacity = CaloMath.min(CaloMath.max(2 * this.lastChunkCapacity, needed), CHUNK_LOCATIONS);
+					this.chunks[chunkCount - 1] = mapChunk(chunkCount - 1, this.lastChunkCapacity);
+				}
+			}
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException("Cannot grow mapping", e);
+		}
+	}
+	
+	/**
+	 * Write all changes to the storage device.
+	 */
+	public void flush()
+	{
+		checkWritable();
+		for (final MappedByteBuffer chunk : this.chunks)
+		{
+			chunk.force();
+		}
+		this.header.force();
+	}
+	
+	/**
+	 * Close the file. A writable file is flushed and its unused mapped space is cut off.
+	 * @throws IOException
+	 * 		if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (this.chunks == null)
+		{
+			return;
+		}
+		try
+		{
+			if (this.writable)
+			{
+				flush();
+			}
+			this.chunks = null;
+			if (this.writable)
+			{
+				this.channel.truncate(HEADER_BYTES + (long) this.size * LOCATION_BYTES);
+			}
+		}
+		finally
+		{
+			this.file.close();
+		}
+	}
+	
+	/**
+	 * Get the number of locations the current mappings can hold.
+	 * @return number of mapped locations
+	 */
+	private int capacity()
+	{
+		return this.chunks.length == 0 ? 0 : ((this.chunks.length - 1) << CHUNK_SHIFT) + this.lastChunkCapacity;
+	}
+	
+	/**
+	 * Map the given chunk of locations.
+	 * @param chunk
+	 * 		index of the chunk
+	 * @param locations
+	 * 		number of locations to map
+	 * @return mapped chunk
+	 * @throws IOException
+	 * 		if the file cannot be mapped
+	 */
+	@NonNull
+	private MappedByteBuffer mapChunk(final int chunk, final int locations) throws IOException
+	{
+		return map(this.writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+				HEADER_BYTES + ((long) chunk << CHUNK_SHIFT) * LOCATION_BYTES, (long) locations * LOCATION_BYTES);
+	}
+	
+	/**
+	 * Map the given region of the file in little endian order.
+	 * @param mode
+	 * 		{@link FileChannel.MapMode} of the mapping
+	 * @param position
+	 * 		start of the region in bytes
+	 * @param length
+	 * 		length of the region in bytes
+	 * @return mapped region
+	 * @throws IOException
+	 * 		if the file cannot be mapped
+	 */
+	@NonNull
+	private MappedByteBuffer map(
+			@NonNull final FileChannel.MapMode mode,
+			final long position,
+			final long length) throws IOException
+	{
+		final MappedByteBuffer buffer = this.channel.map(mode, position, length);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+	
+	/**
+	 * Check that the list is writable.
+	 */
+	private void checkWritable()
+	{
+		if (!this.writable)
+		{
+			throw new UnsupportedOperationException("Mapped list is read-only");
+		}
+		if (this.chunks == null)
+		{
+			throw new IllegalStateException("Mapped list is closed");
+		}
+	}
+	
+	/**
+	 * Check that the given index points to an existing element.
+	 * @param index
+	 * 		index to check
+	 */
+	private void checkIndex(final int index)
+	{
+		if (this.chunks == null)
+		{
+			throw new IllegalStateException("Mapped list is closed");
+		}
+		if (index < 0 || index >= this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+	
+}
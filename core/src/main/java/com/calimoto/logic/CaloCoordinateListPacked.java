@@ -0,0 +1,337 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link CaloCoordinateList} storing latitudes and longitudes interleaved in a single {@code double} array
+ * instead of holding {@link CaloCoordinate} objects. <p></p>
+ * {@link #get(int)} creates a new {@link CaloCoordinate} with the {@link CaloCoordinateFactory} on every call,
+ * so hot loops should use {@link #getLatitude(int)} and {@link #getLongitude(int)} instead.
+ * Use {@link CaloCoordinateListFactoryPacked} to create instances.
+ * @param <Coordinate>
+ * 		type of the coordinates
+ */
+public class CaloCoordinateListPacked<Coordinate extends CaloCoordinate> implements CaloCoordinateList<Coordinate>
+{
+	/**
+	 * Shared empty array for lists created without capacity
+	 */
+	private static final double[] EMPTY = new double[0];
+	
+	// attributes
+	@NonNull
+	private final CaloCoordinateFactory<Coordinate> coordinateFactory;
+	/**
+	 * Latitude at {@code 2 * index} and longitude at {@code 2 * index + 1}
+	 */
+	@NonNull
+	double[] coordinates;
+	int size;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListPacked} instance.
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} to create the coordinates returned by {@link #get(int)}
+	 * @param initialCapacity
+	 * 		initial number of coordinates to reserve memory for
+	 */
+	CaloCoordinateListPacked(
+			@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory,
+			final int initialCapacity)
+	{
+		if (initialCapacity < 0)
+		{
+			throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+		}
+		this.coordinateFactory = coordinateFactory;
+		this.coordinates = initialCapacity == 0 ? EMPTY : new double[2 * initialCapacity];
+	}
+	
+	/**
+	 * Get the {@link CaloCoordinateFactory} used to create the coordinates of this list.
+	 * @return {@link CaloCoordinateFactory} of this list
+	 */
+	@NonNull
+	public CaloCoordinateFactory<Coordinate> getCoordinateFactory()
+	{
+		return this.coordinateFactory;
+	}
+	
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+	
+	@NonNull
+	@Override
+	public Coordinate get(final int index)
+	{
+		checkIndex(index);
+		return this.coordinateFactory.create(this.coordinates[2 * index], this.coordinates[2 * index + 1]);
+	}
+	
+	@Override
+	public double getLatitude(final int index)
+	{
+		checkIndex(index);
+		return this.coordinates[2 * index];
+	}
+	
+	@Override
+	public double getLongitude(final int index)
+	{
+		checkIndex(index);
+		return this.coordinates[2 * index + 1];
+	}
+	
+	@Override
+	public void set(final int index, @NonNull final Coordinate coordinate)
+	{
+		set(index, coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Set the location at the given index.
+	 * @param index
+	 * 		index of the location to set
+	 * @param latitude
+	 * 		latitude to set
+	 * @param longitude
+	 * 		longitude to set
+	 */
+	public void set(final int index, final double latitude, final double longitude)
+	{
+		checkIndex(index);
+		this.coordinates[2 * index] = latitude;
+		this.coordinates[2 * index + 1] = longitude;
+	}
+	
+	@Override
+	public void add(final int index, @NonNull final Coordinate coordinate)
+	{
+		add(index, coordinate.getLatitude(), coordinate.getLongitude());
+	}
+	
+	/**
+	 * Add the location at the end of the list.
+	 * @param latitude
+	 * 		latitude to add
+	 * @param longitude
+	 * 		longitude to add
+	 */
+	public void add(final double latitude, final double longitude)
+	{
+		ensureCapacity(this.size + 1);
+		this.coordinates[2 * this.size] = latitude;
+		this.coordinates[2 * this.size + 1] = longitude;
+		this.size++;
+	}
+	
+	/**
+	 * Add the location at the given index.
+	 * @param index
+	 * 		index to add the location at
+	 * @param latitude
+	 * 		latitude to add
+	 * @param longitude
+	 * 		longitude to add
+	 */
+	public void add(final int index, final double latitude, final double longitude)
+	{
+		if (index < 0 || index > this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+		ensureCapacity(this.size + 1);
+		System.arraycopy(this.coordinates, 2 * index, this.coordinates, 2 * index + 2, 2 * (this.size - index));
+		this.coordinates[2 * index] = latitude;
+		this.coordinates[2 * index + 1] = longitude;
+		this.size++;
+	}
+	
+	/**
+	 * Add all locations of the given {@link CaloCoordinateList} at the end of this list.
+	 * Since only latitude and longitude are stored, this copies the values without creating any {@link CaloCoordinate}.
+	 * @param listToAdd
+	 * 			List to be added.
+	 */
+	@Override
+	public void addAll(@NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
+	{
+		addAllLocations(this.size, listToAdd);
+	}
+	
+	/**
+	 * Add all locations of the given {@link CaloCoordinateList} at the given index of this list,
+	 * moving the following locations only once.
+	 * Since only latitude and longitude are stored, this copies the values without creating any {@link CaloCoordinate}.
+	 * @param index
+	 * 		index to add the first location at
+	 * @param listToAdd
+	 * 		List to be added, may be this list
+	 */
+	@Override
+	public void addAll(final int index, @NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
+	{
+		addAllLocations(index, listToAdd);
+	}
+	
+	/**
+	 * Add all locations of the given {@link CaloCoordinateList} at the end of this list.
+	 * Since only latitude and longitude are stored, the {@link CaloCoordinateFactory} is not required for cloning.
+	 * @param listToAdd
+	 * 			List to be added.
+	 * @param coordinateFactory
+	 * 			ignored
+	 */
+	@Override
+	public void addAll(
+			@NonNull final CaloCoordinateList<? extends CaloCoordinate> listToAdd,
+			@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory)
+	{
+		addAllLocations(this.size, listToAdd);
+	}
+	
+	/**
+	 * Copy the locations of the given {@link CaloCoordinateList} to the given index of this list.
+	 * @param index
+	 * 		index to add the first location at
+	 * @param listToAdd
+	 * 		list to copy the locations from
+	 */
+	private void addAllLocations(final int index, @NonNull final CaloCoordinateList<? extends CaloCoordinate> listToAdd)
+	{
+		if (index < 0 || index > this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+		final int sizeToAdd = listToAdd.size();
+		if (listToAdd instanceof CaloCoordinateListPacked)
+		{
+			final CaloCoordinateListPacked<?> packed = (CaloCoordinateListPacked<?>) listToAdd;
+			ensureCapacity(this.size + sizeToAdd);
+			System.arraycopy(this.coordinates, 2 * index, this.coordinates, 2 * (index + sizeToAdd), 2 * (this.size - index));
+			if (packed == this)
+			{
+				// the locations after the index have just been moved behind the gap
+				System.arraycopy(this.coordinates, 0, this.coordinates, 2 * index, 2 * index);
+				System.arraycopy(this.coordinates, 2 * (index + sizeToAdd), this.coordinates, 4 * index, 2 * (sizeToAdd - index));
+			}
+			else
+			{
+				System.arraycopy(packed.coordinates, 0, this.coordinates, 2 * index, 2 * sizeToAdd);
+			}
+		}
+		else if (index == this.size)
+		{
+			ensureCapacity(this.size + sizeToAdd);
+			for (int i = 0; i < sizeToAdd; i++)
+			{
+				this.coordinates[2 * (index + i)] = listToAdd.getLatitude(i);
+				this.coordinates[2 * (index + i) + 1] = listToAdd.getLongitude(i);
+			}
+		}
+		else
+		{
+			// read first, the list may be a view of this list
+			final double[] locations = new double[2 * sizeToAdd];
+			for (int i = 0; i < sizeToAdd; i++)
+			{
+				locations[2 * i] = listToAdd.getLatitude(i);
+				locations[2 * i + 1] = listToAdd.getLongitude(i);
+			}
+			ensureCapacity(this.size + sizeToAdd);
+			System.arraycopy(this.coordinates, 2 * index, this.coordinates, 2 * (index + sizeToAdd), 2 * (this.size - index));
+			System.arraycopy(locations, 0, this.coordinates, 2 * index, 2 * sizeToAdd);
+		}
+		this.size += sizeToAdd;
+	}
+	
+	@Override
+	public void remove(final int index)
+	{
+		checkIndex(index);
+		System.arraycopy(this.coordinates, 2 * index + 2, this.coordinates, 2 * index, 2 * (this.size - index - 1));
+		this.size--;
+	}
+	
+	@Override
+	public void removeAll()
+	{
+		this.size = 0;
+	}
+	
+	@Override
+	public void removeRange(final int from, final int to)
+	{
+		if (from < 0 || to > this.size || from > to)
+		{
+			throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + this.size);
+		}
+		System.arraycopy(this.coordinates, 2 * to, this.coordinates, 2 * from, 2 * (this.size - to));
+		this.size -= to - from;
+	}
+	
+	/**
+	 * Increase the capacity of this list, if necessary, so it can hold at least the given number of coordinates.
+	 * @param minCapacity
+	 * 		minimum number of coordinates to hold
+	 */
+	@Override
+	public void ensureCapacity(final int minCapacity)
+	{
+		final int capacity = this.coordinates.length / 2;
+		if (minCapacity > capacity)
+		{
+			final int newCapacity = CaloMath.max(CaloMath.max(capacity + (capacity >> 1), minCapacity), 10);
+			final double[] newCoordinates = new double[2 * newCapacity];
+			System.arraycopy(this.coordinates, 0, newCoordinates, 0, 2 * this.size);
+			this.coordinates = newCoordinates;
+		}
+	}
+	
+	/**
+	 * Reduce the capacity of this list to its size.
+	 */
+	public void trimToSize()
+	{
+		if (this.coordinates.length > 2 * this.size)
+		{
+			final double[] newCoordinates = this.size == 0 ? EMPTY : new double[2 * this.size];
+			System.arraycopy(this.coordinates, 0, newCoordinates, 0, 2 * this.size);
+			this.coordinates = newCoordinates;
+		}
+	}
+	
+	/**
+	 * Check that the given index points to an existing element.
+	 * @param index
+	 * 		index to check
+	 */
+	private void checkIndex(final int index)
+	{
+		if (index < 0 || index >= this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+	
+}
@@ -0,0 +1,503 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Batch engine calculating on many tracks or on single long tracks with the cores of a {@link ForkJoinPool}. <p></p>
+ * Operations on a single track split it into ranges of at least {@link #MIN_RANGE_SIZE} locations. Every result is
+ * bit-identical to the sequential calculation: distances are calculated per segment in parallel, but summed up in
+ * order. Operations on many tracks process every track sequentially, with the tracks spread over the cores.
+ * The lists must not be modified during the calculation, reading them concurrently must be safe, which is the case
+ * for all lists of this library.
+ */
+public class CaloCoordinateListParallel
+{
+	/**
+	 * Minimum number of locations per task when splitting a single track
+	 */
+	public static final int MIN_RANGE_SIZE = 8192;
+	
+	/**
+	 * Task running on a range of indices, split in halves until the range is small enough.
+	 */
+	private abstract static class RangeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		// attributes
+		private final int from;
+		private final int to;
+		private final int threshold;
+		
+		/**
+		 * Create a new {@link RangeTask} instance.
+		 * @param from
+		 * 		first index of the range
+		 * @param to
+		 * 		index after the last index of the range
+		 * @param threshold
+		 * 		maximum size of a range to process without splitting
+		 */
+		private RangeTask(final int from, final int to, final int threshold)
+		{
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (this.to - this.from <= this.threshold)
+			{
+				compute(this.from, this.to);
+			}
+			else
+			{
+				final int middle = (this.from + this.to) >>> 1;
+				invokeAll(createTask(this.from, middle, this.threshold), createTask(middle, this.to, this.threshold));
+			}
+		}
+		
+		/**
+		 * Create a task for the given part of the range.
+		 * @param from
+		 * 		first index of the part
+		 * @param to
+		 * 		index after the last index of the part
+		 * @param threshold
+		 * 		maximum size of a range to process without splitting
+		 * @return task for the part
+		 */
+		@NonNull
+		protected abstract RangeTask createTask(int from, int to, int threshold);
+		
+		/**
+		 * Process the given range sequentially.
+		 * @param from
+		 * 		first index of the range
+		 * @param to
+		 * 		index after the last index of the range
+		 */
+		protected abstract void compute(int from, int to);
+		
+	}
+	
+	/**
+	 * Task calculating the distance of every segment, stored at the index of its end location.
+	 */
+	private static class DistanceTask extends RangeTask
+	{
+		private static final long serialVersionUID = 1L;
+		
+		// attributes
+		private final CaloCoordinateList<?> list;
+		private final double[] distances;
+		
+		/**
+		 * Create a new {@link DistanceTask} instance.
+		 * @param list
+		 * 		{@link CaloCoordinateList} of the track
+		 * @param distances
+		 * 		array to fill
+		 * @param from
+		 * 		first index of the range
+		 * @param to
+		 * 		index after the last index of the range
+		 * @param threshold
+		 * 		maximum size of a range to process without splitting
+		 */
+		private DistanceTask(
+				@NonNull final CaloCoordinateList<?> list,
+				@NonNull final double[] distances,
+				final int from,
+				final int to,
+				final int threshold)
+		{
+			super(from, to, threshold);
+			this.list = list;
+			this.distances = distances;
+		}
+		
+		@NonNull
+		@Override
+		protected RangeTask createTask(final int from, final int to, final int threshold)
+		{
+			return new DistanceTask(this.list, this.distances, from, to, threshold);
+		}
+		
+		@Override
+		protected void compute(final int from, final int to)
+		{
+			final int start = CaloMath.max(from, 1);
+			double latitude = this.list.getLatitude(start - 1);
+			double longitude = this.list.getLongitude(start - 1);
+			double cosLatitude = CaloCoordinateUtil.cosLatitude(latitude);
+			for (int i = start; i < to; i++)
+			{
+				final double nextLatitude = this.list.getLatitude(i);
+				final double nextLongitude = this.list.getLongitude(i);
+				final double nextCosLatitude = CaloCoordinateUtil.cosLatitude(nextLatitude);
+				this.distances[i] = CaloCoordinateUtil.calculateDistance(latitude, longitude, cosLatitude,
+						nextLatitude, nextLongitude, nextCosLatitude);
+				latitude = nextLatitude;
+				longitude = nextLongitude;
+				cosLatitude = nextCosLatitude;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Task calculating a range of resampled locations.
+	 */
+	private static class ResampleTask extends RangeTask
+	{
+		private static final long serialVersionUID = 1L;
+		
+		// attributes
+		private final CaloCoordinateList<?> list;
+		private final double[] cumulativeDistances;
+		private final double intervalInMeters;
+		private final int resampledSize;
+		private final double[] target;
+		
+		/**
+		 * Create a new {@link ResampleTask} instance.
+		 * @param list
+		 * 		{@link CaloCoordinateList} of the track
+		 * @param cumulativeDistances
+		 * 		distance along the track at every index of the list
+		 * @param intervalInMeters
+		 * 		distance between the resampled locations in meters
+		 * @param resampledSize
+		 * 		number of resampled locations
+		 * @param target
+		 * 		array to write the interleaved latitudes and longitudes to
+		 * @param from
+		 * 		first index of the range
+		 * @param to
+		 * 		index after the last index of the range
+		 * @param threshold
+		 * 		maximum size of a range to process without splitting
+		 */
+		private ResampleTask(
+				@NonNull final CaloCoordinateList<?> list,
+				@NonNull final double[] cumulativeDistances,
+				final double intervalInMeters,
+				final int resampledSize,
+				@NonNull final double[] target,
+				final int from,
+				final int to,
+				final int threshold)
+		{
+			super(from, to, threshold);
+			this.list = list;
+			this.cumulativeDistances = cumulativeDistances;
+			this.intervalInMeters = intervalInMeters;
+			this.resampledSize = resampledSize;
+			this.target = target;
+		}
+		
+		@NonNull
+		@Override
+		protected RangeTask createTask(final int from, final int to, final int threshold)
+		{
+			return new ResampleTask(this.list, this.cumulativeDistances, this.intervalInMeters, this.resampledSize,
+					this.target, from, to, threshold);
+		}
+		
+		@Override
+		protected void compute(final int from, final int to)
+		{
+			CaloTrackResampler.resample(this.list, this.cumulativeDistances, this.intervalInMeters, this.resampledSize,
+					this.target, from, to);
+		}
+		
+	}
+	
+	/**
+	 * Task calculating the bounding box of a range of locations.
+	 */
+	private static class BoundingBoxTask extends RecursiveTask<CaloBoundingBox>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		// attributes
+		private final CaloCoordinateList<?> list;
+		private final int from;
+		private final int to;
+		
+		/**
+		 * Create a new {@link BoundingBoxTask} instance.
+		 * @param list
+		 * 		{@link CaloCoordinateList} of the track
+		 * @param from
+		 * 		first index of the range
+		 * @param to
+		 * 		index after the last index of the range
+		 */
+		private BoundingBoxTask(@NonNull final CaloCoordinateList<?> list, final int from, final int to)
+		{
+			this.list = list;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@NonNull
+		@Override
+		protected CaloBoundingBox compute()
+		{
+			if (this.to - this.from <= MIN_RANGE_SIZE)
+			{
+				final CaloBoundingBox box = new CaloBoundingBox();
+				for (int i = this.from; i < this.to; i++)
+				{
+					box.extend(this.list.getLatitude(i), this.list.getLongitude(i));
+				}
+				return box;
+			}
+			final int middle = (this.from + this.to) >>> 1;
+			final BoundingBoxTask second = new BoundingBoxTask(this.list, middle, this.to);
+			second.fork();
+			final CaloBoundingBox box = new BoundingBoxTask(this.list, this.from, middle).compute();
+			box.extend(second.join());
+			return box;
+		}
+		
+	}
+	
+	/**
+	 * Task calculating the length and the bounding box of whole tracks.
+	 */
+	private static class TracksTask extends RangeTask
+	{
+		private static final long serialVersionUID = 1L;
+		
+		// attributes
+		private final List<? extends CaloCoordinateList<?>> tracks;
+		@Nullable
+		private final double[] lengths;
+		@Nullable
+		private final CaloBoundingBox[] boxes;
+		
+		/**
+		 * Create a new {@link TracksTask} instance.
+		 * @param tracks
+		 * 		tracks to process
+		 * @param lengths
+		 * 		array to store the length of every track or null
+		 * @param boxes
+		 * 		array to store the bounding box of every track or null
+		 * @param from
+		 * 		first index of the range
+		 * @param to
+		 * 		index after the last index of the range
+		 * @param threshold
+		 * 		maximum size of a range to process without splitting
+		 */
+		private TracksTask(
+				@NonNull final List<? extends CaloCoordinateList<?>> tracks,
+				@Nullable final double[] lengths,
+				@Nullable final CaloBoundingBox[] boxes,
+				final int from,
+				final int to,
+				final int threshold)
+		{
+			super(from, to, threshold);
+			this.tracks = tracks;
+			this.lengths = lengths;
+			this.boxes = boxes;
+		}
+		
+		@NonNull
+		@Override
+		protected RangeTask createTask(final int from, final int to, final int threshold)
+		{
+			return new TracksTask(this.tracks, this.lengths, this.boxes, from, to, threshold);
+		}
+		
+		@Override
+		protected void compute(final int from, final int to)
+		{
+			for (int i = from; i < to; i++)
+			{
+				final CaloCoordinateList<?> track = this.tracks.get(i);
+				if (this.lengths != null)
+				{
+					this.lengths[i] = CaloCoordinateUtil.calculateLength(track);
+				}
+				if (this.boxes != null)
+				{
+					this.boxes[i] = CaloBoundingBox.of(track);
+				}
+			}
+		}
+		
+	}
+	
+	// attributes
+	@NonNull
+	private final ForkJoinPool pool;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListParallel} instance using the common {@link ForkJoinPool}.
+	 */
+	public CaloCoordinateListParallel()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Create a new {@link CaloCoordinateListParallel} instance.
+	 * @param pool
+	 * 		{@link ForkJoinPool} to run the calculations in
+	 */
+	public CaloCoordinateListParallel(@NonNull final ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+	
+	/**
+	 * Calculate the length of the given track, see {@link CaloCoordinateUtil#calculateLength(CaloCoordinateList)}.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @return length of the track in meters
+	 */
+	public double calculateLength(@NonNull final CaloCoordinateList<?> list)
+	{
+		return calculateCumulativeDistances(list, new double[list.size()]);
+	}
+	
+	/**
+	 * Calculate the distance along the given track at every location,
+	 * see {@link CaloCoordinateUtil#calculateCumulativeDistances(CaloCoordinateList, double[])}.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param cumulativeDistances
+	 * 		array of at least the size of the list to fill with the distance along the track in meters
+	 * @return length of the track in meters
+	 */
+	public double calculateCumulativeDistances(
+			@NonNull final CaloCoordinateList<?> list,
+			@NonNull final double[] cumulativeDistances)
+	{
+		final int size = list.size();
+		if (size <= MIN_RANGE_SIZE)
+		{
+			return CaloCoordinateUtil.calculateCumulativeDistances(list, cumulativeDistances);
+		}
+		if (cumulativeDistances.length < size)
+		{
+			throw new IllegalArgumentException("Array length " + cumulativeDistances.length + " < list size " + size);
+		}
+		this.pool.invoke(new DistanceTask(list, cumulativeDistances, 0, size, MIN_RANGE_SIZE));
+		// sum up in order so the result is the same as the sequential one
+		double length = 0;
+		cumulativeDistances[0] = 0;
+		for (int i = 1; i < size; i++)
+		{
+			length += cumulativeDistances[i];
+			cumulativeDistances[i] = length;
+		}
+		return length;
+	}
+	
+	/**
+	 * Calculate the bounding box of the given track, see {@link CaloBoundingBox#of(CaloCoordinateList)}.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @return bounding box of the track, empty if the track is empty
+	 */
+	@NonNull
+	public CaloBoundingBox calculateBoundingBox(@NonNull final CaloCoordinateList<?> list)
+	{
+		return this.pool.invoke(new BoundingBoxTask(list, 0, list.size()));
+	}
+	
+	/**
+	 * Resample the given track to locations at the given interval along the track,
+	 * see {@link CaloTrackResampler#resample(CaloCoordinateList, double, CaloCoordinateListFactoryPacked)}.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param intervalInMeters
+	 * 		distance between the resampled locations in meters
+	 * @param listFactory
+	 * 		factory to create the resampled list
+	 * @param <Coordinate>
+	 * 		{@link CaloCoordinate} type
+	 * @return resampled track, empty if the track is empty
+	 */
+	@NonNull
+	public <Coordinate extends CaloCoordinate> CaloCoordinateListPacked<Coordinate> resample(
+			@NonNull final CaloCoordinateList<?> list,
+			final double intervalInMeters,
+			@NonNull final CaloCoordinateListFactoryPacked<Coordinate> listFactory)
+	{
+		final int size = list.size();
+		if (size == 0)
+		{
+			return CaloTrackResampler.resample(list, intervalInMeters, listFactory);
+		}
+		final double[] cumulativeDistances = new double[size];
+		final double length = calculateCumulativeDistances(list, cumulativeDistances);
+		final int resampledSize = CaloTrackResampler.getResampledSize(length, intervalInMeters);
+		final CaloCoordinateListPacked<Coordinate> resampled = listFactory.create(resampledSize);
+		this.pool.invoke(new ResampleTask(list, cumulativeDistances, intervalInMeters, resampledSize,
+				resampled.coordinates, 0, resampledSize, MIN_RANGE_SIZE));
+		resampled.size = resampledSize;
+		return resampled;
+	}
+	
+	/**
+	 * Calculate the length of every given track.
+	 * @param tracks
+	 * 		tracks to calculate the lengths of
+	 * @return length in meters of the track at every index
+	 */
+	@NonNull
+	public double[] calculateLengths(@NonNull final List<? extends CaloCoordinateList<?>> tracks)
+	{
+		final double[] lengths = new double[tracks.size()];
+		this.pool.invoke(new TracksTask(tracks, lengths, null, 0, tracks.size(), 1));
+		return lengths;
+	}
+	
+	/**
+	 * Calculate the bounding box of every given track.
+	 * @param tracks
+	 * 		tracks to calculate the bounding boxes of
+	 * @return bounding box of the track at every index
+	 */
+	@NonNull
+	public CaloBoundingBox[] calculateBoundingBoxes(@NonNull final List<? extends CaloCoordinateList<?>> tracks)
+	{
+		final CaloBoundingBox[] boxes = new CaloBoundingBox[tracks.size()];
+		this.pool.invoke(new TracksTask(tracks, null, boxes, 0, tracks.size(), 1));
+		return boxes;
+	}
+	
+}
@@ -0,0 +1,102 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} over a range of indices of a {@link CaloCoordinateList}, splitting the range in halves
+ * so parallel streams get balanced parts.
+ * @param <Coordinate>
+ * 		type of the coordinates
+ */
+final class CaloCoordinateListSpliterator<Coordinate extends CaloCoordinate> implements Spliterator<Coordinate>
+{
+	// attributes
+	private final CaloCoordinateList<Coordinate> list;
+	private int index;
+	private final int fence;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListSpliterator} instance.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to traverse
+	 * @param from
+	 * 		first index to traverse
+	 * @param to
+	 * 		index after the last index to traverse
+	 */
+	CaloCoordinateListSpliterator(@NonNull final CaloCoordinateList<Coordinate> list, final int from, final int to)
+	{
+		this.list = list;
+		this.index = from;
+		this.fence = to;
+	}
+	
+	@Override
+	public boolean tryAdvance(@NonNull final Consumer<? super Coordinate> action)
+	{
+		if (this.index >= this.fence)
+		{
+			return false;
+		}
+		action.accept(this.list.get(this.index++));
+		return true;
+	}
+	
+	@Override
+	public void forEachRemaining(@NonNull final Consumer<? super Coordinate> action)
+	{
+		for (int i = this.index; i < this.fence; i++)
+		{
+			action.accept(this.list.get(i));
+		}
+		this.index = this.fence;
+	}
+	
+	@Nullable
+	@Override
+	public Spliterator<Coordinate> trySplit()
+	{
+		final int middle = (this.index + this.fence) >>> 1;
+		if (middle <= this.index)
+		{
+			return null;
+		}
+		final Spliterator<Coordinate> prefix = new CaloCoordinateListSpliterator<>(this.list, this.index, middle);
+		this.index = middle;
+		return prefix;
+	}
+	
+	@Override
+	public long estimateSize()
+	{
+		return this.fence - this.index;
+	}
+	
+	@Override
+	public int characteristics()
+	{
+		return ORDERED | SIZED | SUBSIZED | NONNULL;
+	}
+	
+}
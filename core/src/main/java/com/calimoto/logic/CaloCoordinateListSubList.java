@@ -0,0 +1,176 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * View of a range of a {@link CaloCoordinateList}, see {@link CaloCoordinateList#subList(int, int)}.
+ * All operations are delegated to the parent list with the offset of the range, so range operations of array backed
+ * parents stay efficient.
+ * @param <Coordinate>
+ * 		type of the coordinates
+ */
+final class CaloCoordinateListSubList<Coordinate extends CaloCoordinate> implements CaloCoordinateList<Coordinate>
+{
+	// attributes
+	private final CaloCoordinateList<Coordinate> parent;
+	private final int offset;
+	private int size;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListSubList} instance.
+	 * @param parent
+	 * 		{@link CaloCoordinateList} to view
+	 * @param from
+	 * 		index of the first element of the view
+	 * @param to
+	 * 		index after the last element of the view
+	 */
+	CaloCoordinateListSubList(@NonNull final CaloCoordinateList<Coordinate> parent, final int from, final int to)
+	{
+		if (from < 0 || to > parent.size() || from > to)
+		{
+			throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + parent.size());
+		}
+		this.parent = parent;
+		this.offset = from;
+		this.size = to - from;
+	}
+	
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+	
+	@NonNull
+	@Override
+	public Coordinate get(final int index)
+	{
+		checkIndex(index);
+		return this.parent.get(this.offset + index);
+	}
+	
+	@Override
+	public double getLatitude(final int index)
+	{
+		checkIndex(index);
+		return this.parent.getLatitude(this.offset + index);
+	}
+	
+	@Override
+	public double getLongitude(final int index)
+	{
+		checkIndex(index);
+		return this.parent.getLongitude(this.offset + index);
+	}
+	
+	@Override
+	public void set(final int index, @NonNull final Coordinate coordinate)
+	{
+		checkIndex(index);
+		this.parent.set(this.offset + index, coordinate);
+	}
+	
+	@Override
+	public void add(final int index, @NonNull final Coordinate coordinate)
+	{
+		checkPosition(index);
+		this.parent.add(this.offset + index, coordinate);
+		this.size++;
+	}
+	
+	@Override
+	public void addAll(final int index, @NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
+	{
+		checkPosition(index);
+		final int sizeToAdd = listToAdd.size();
+		if (listToAdd == this)
+		{
+			// the parent changes while adding, so add from a copy
+			this.parent.addAll(this.offset + index, CaloCoordinateList.fromList(new ArrayList<>(asList())));
+		}
+		else
+		{
+			this.parent.addAll(this.offset + index, listToAdd);
+		}
+		this.size += sizeToAdd;
+	}
+	
+	@Override
+	public void remove(final int index)
+	{
+		checkIndex(index);
+		this.parent.remove(this.offset + index);
+		this.size--;
+	}
+	
+	@Override
+	public void removeAll()
+	{
+		this.parent.removeRange(this.offset, this.offset + this.size);
+		this.size = 0;
+	}
+	
+	@Override
+	public void removeRange(final int from, final int to)
+	{
+		if (from < 0 || to > this.size || from > to)
+		{
+			throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + this.size);
+		}
+		this.parent.removeRange(this.offset + from, this.offset + to);
+		this.size -= to - from;
+	}
+	
+	@Override
+	public void ensureCapacity(final int minCapacity)
+	{
+		this.parent.ensureCapacity(this.parent.size() - this.size + minCapacity);
+	}
+	
+	/**
+	 * Check that the given index points to an existing element.
+	 * @param index
+	 * 		index to check
+	 */
+	private void checkIndex(final int index)
+	{
+		if (index < 0 || index >= this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+	
+	/**
+	 * Check that the given index is a position to add elements at.
+	 * @param index
+	 * 		index to check
+	 */
+	private void checkPosition(final int index)
+	{
+		if (index < 0 || index > this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+	
+}
@@ -0,0 +1,279 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link CaloCoordinateListPacked} with a timestamp in milliseconds like {@link CaloTimeUtil} for every location,
+ * stored in a parallel {@code long} array, so a recorded track needs no wrapper objects. <p></p>
+ * Timestamps are expected to be ascending. Locations added without timestamp, e.g. with the methods of
+ * {@link CaloCoordinateList}, get the timestamp of the preceding location, or of the following location if
+ * added at the start, which keeps the timestamps ascending. {@link #addAll(CaloCoordinateList)} and the other
+ * bulk operations copy the timestamps if the given list is a {@link CaloCoordinateListTimed}.
+ * Use {@link CaloCoordinateListFactoryTimed} to create instances.
+ * @param <Coordinate>
+ * 		type of the coordinates
+ */
+public class CaloCoordinateListTimed<Coordinate extends CaloCoordinate> extends CaloCoordinateListPacked<Coordinate>
+{
+	/**
+	 * Shared empty array for lists created without capacity
+	 */
+	private static final long[] EMPTY_TIMES = new long[0];
+	
+	// attributes
+	/**
+	 * Timestamp in milliseconds at every index, the capacity matches the one of the locations
+	 */
+	@NonNull
+	long[] times;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListTimed} instance.
+	 * @param coordinateFactory
+	 * 		{@link CaloCoordinateFactory} to create the coordinates returned by {@link #get(int)}
+	 * @param initialCapacity
+	 * 		initial number of locations to reserve memory for
+	 */
+	CaloCoordinateListTimed(
+			@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory,
+			final int initialCapacity)
+	{
+		super(coordinateFactory, initialCapacity);
+		this.times = initialCapacity == 0 ? EMPTY_TIMES : new long[initialCapacity];
+	}
+	
+	/**
+	 * Get the timestamp of the location at the given index.
+	 * @param index
+	 * 		index of the location
+	 * @return timestamp in milliseconds
+	 */
+	public long getTimeInMillis(final int index)
+	{
+		checkIndex(index);
+		return this.times[index];
+	}
+	
+	/**
+	 * Set the timestamp of the location at the given index.
+	 * @param index
+	 * 		index of the location
+	 * @param timeInMillis
+	 * 		timestamp in milliseconds
+	 */
+	public void setTimeInMillis(final int index, final long timeInMillis)
+	{
+		checkIndex(index);
+		this.times[index] = timeInMillis;
+	}
+	
+	/**
+	 * Set the location and timestamp at the given index.
+	 * @param index
+	 * 		index of the location to set
+	 * @param latitude
+	 * 		latitude to set
+	 * @param longitude
+	 * 		longitude to set
+	 * @param timeInMillis
+	 * 		timestamp in milliseconds to set
+	 */
+	public void set(final int index, final double latitude, final double longitude, final long timeInMillis)
+	{
+		set(index, latitude, longitude);
+		this.times[index] = timeInMillis;
+	}
+	
+	/**
+	 * Add the location with its timestamp at the end of the list. Named apart from {@link #add(int, double, double)},
+	 * so calls with integer arguments are not ambiguous.
+	 * @param latitude
+	 * 		latitude to add
+	 * @param longitude
+	 * 		longitude to add
+	 * @param timeInMillis
+	 * 		timestamp in milliseconds to add
+	 */
+	public void addTimed(final double latitude, final double longitude, final long timeInMillis)
+	{
+		super.add(latitude, longitude);
+		this.times[this.size - 1] = timeInMillis;
+	}
+	
+	/**
+	 * Add the location with its timestamp at the given index.
+	 * @param index
+	 * 		index to add the location at
+	 * @param latitude
+	 * 		latitude to add
+	 * @param longitude
+	 * 		longitude to add
+	 * @param timeInMillis
+	 * 		timestamp in milliseconds to add
+	 */
+	public void addTimed(final int index, final double latitude, final double longitude, final long timeInMillis)
+	{
+		add(index, latitude, longitude);
+		this.times[index] = timeInMillis;
+	}
+	
+	@Override
+	public void add(final double latitude, final double longitude)
+	{
+		super.add(latitude, longitude);
+		fillTimes(this.size - 1, this.size);
+	}
+	
+	@Override
+	public void add(final int index, final double latitude, final double longitude)
+	{
+		super.add(index, latitude, longitude);
+		System.arraycopy(this.times, index, this.times, index + 1, this.size - 1 - index);
+		fillTimes(index, index + 1);
+	}
+	
+	@Override
+	public void addAll(@NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
+	{
+		addAll(this.size, listToAdd);
+	}
+	
+	@Override
+	public void addAll(final int index, @NonNull final CaloCoordinateList<? extends Coordinate> listToAdd)
+	{
+		final int sizeToAdd = listToAdd.size();
+		super.addAll(index, listToAdd);
+		addTimes(index, sizeToAdd, listToAdd);
+	}
+	
+	@Override
+	public void addAll(
+			@NonNull final CaloCoordinateList<? extends CaloCoordinate> listToAdd,
+			@NonNull final CaloCoordinateFactory<Coordinate> coordinateFactory)
+	{
+		final int index = this.size;
+		final int sizeToAdd = listToAdd.size();
+		super.addAll(listToAdd, coordinateFactory);
+		addTimes(index, sizeToAdd, listToAdd);
+	}
+	
+	@Override
+	public void remove(final int index)
+	{
+		checkIndex(index);
+		System.arraycopy(this.times, index + 1, this.times, index, this.size - index - 1);
+		super.remove(index);
+	}
+	
+	@Override
+	public void removeRange(final int from, final int to)
+	{
+		if (from < 0 || to > this.size || from > to)
+		{
+			throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + this.size);
+		}
+		System.arraycopy(this.times, to, this.times, from, this.size - to);
+		super.removeRange(from, to);
+	}
+	
+	@Override
+	public void ensureCapacity(final int minCapacity)
+	{
+		super.ensureCapacity(minCapacity);
+		final int capacity = this.coordinates.length / 2;
+		if (this.times.length != capacity)
+		{
+			final long[] newTimes = new long[capacity];
+			System.arraycopy(this.times, 0, newTimes, 0, this.size);
+			this.times = newTimes;
+		}
+	}
+	
+	@Override
+	public void trimToSize()
+	{
+		super.trimToSize();
+		if (this.times.length > this.size)
+		{
+			final long[] newTimes = this.size == 0 ? EMPTY_TIMES : new long[this.size];
+			System.arraycopy(this.times, 0, newTimes, 0, this.size);
+			this.times = newTimes;
+		}
+	}
+	
+	/**
+	 * Move the timestamps for the locations just added at the given index and set their timestamps.
+	 * @param index
+	 * 		index of the first added location
+	 * @param sizeToAdd
+	 * 		number of added locations
+	 * @param listToAdd
+	 * 		list the locations were added from
+	 */
+	private void addTimes(final int index, final int sizeToAdd, @NonNull final CaloCoordinateList<?> listToAdd)
+	{
+		System.arraycopy(this.times, index, this.times, index + sizeToAdd, this.size - sizeToAdd - index);
+		if (listToAdd == this)
+		{
+			// the timestamps after the index have just been moved behind the gap
+			System.arraycopy(this.times, 0, this.times, index, index);
+			System.arraycopy(this.times, index + sizeToAdd, this.times, 2 * index, sizeToAdd - index);
+		}
+		else if (listToAdd instanceof CaloCoordinateListTimed)
+		{
+			System.arraycopy(((CaloCoordinateListTimed<?>) listToAdd).times, 0, this.times, index, sizeToAdd);
+		}
+		else
+		{
+			fillTimes(index, index + sizeToAdd);
+		}
+	}
+	
+	/**
+	 * Set the timestamps of the given range to the one of the preceding location,
+	 * or of the following location if the range is at the start.
+	 * @param from
+	 * 		index of the first location to set
+	 * @param to
+	 * 		index after the last location to set
+	 */
+	private void fillTimes(final int from, final int to)
+	{
+		final long time = from > 0 ? this.times[from - 1] : to < this.size ? this.times[to] : 0;
+		for (int i = from; i < to; i++)
+		{
+			this.times[i] = time;
+		}
+	}
+	
+	/**
+	 * Check that the given index points to an existing location.
+	 * @param index
+	 * 		index to check
+	 */
+	private void checkIndex(final int index)
+	{
+		if (index < 0 || index >= this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+	
+}
@@ -0,0 +1,100 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+
+/**
+ * {@link List} view of a {@link CaloCoordinateList}, reading and writing through to the list without copying.
+ * @param <Coordinate>
+ * 		type of the coordinates
+ */
+final class CaloCoordinateListView<Coordinate extends CaloCoordinate> extends AbstractList<Coordinate> implements RandomAccess
+{
+	// attributes
+	private final CaloCoordinateList<Coordinate> list;
+	
+	/**
+	 * Create a new {@link CaloCoordinateListView} instance.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to view
+	 */
+	CaloCoordinateListView(@NonNull final CaloCoordinateList<Coordinate> list)
+	{
+		this.list = list;
+	}
+	
+	@Override
+	public int size()
+	{
+		return this.list.size();
+	}
+	
+	@NonNull
+	@Override
+	public Coordinate get(final int index)
+	{
+		return this.list.get(index);
+	}
+	
+	@NonNull
+	@Override
+	public Coordinate set(final int index, @NonNull final Coordinate coordinate)
+	{
+		final Coordinate previous = this.list.get(index);
+		this.list.set(index, coordinate);
+		return previous;
+	}
+	
+	@Override
+	public void add(final int index, @NonNull final Coordinate coordinate)
+	{
+		this.list.add(index, coordinate);
+		this.modCount++;
+	}
+	
+	@NonNull
+	@Override
+	public Coordinate remove(final int index)
+	{
+		final Coordinate previous = this.list.get(index);
+		this.list.remove(index);
+		this.modCount++;
+		return previous;
+	}
+	
+	@Override
+	public void clear()
+	{
+		this.list.removeAll();
+		this.modCount++;
+	}
+	
+	@NonNull
+	@Override
+	public Spliterator<Coordinate> spliterator()
+	{
+		return this.list.spliterator();
+	}
+	
+}
@@ -18,9 +18,11 @@
 package com.calimoto.logic;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
  * A simple pair of a start and end {@link CaloCoordinate}.
+ * Two pairs are equal if the locations of their coordinates are equal at the time the pairs were created.
  * @author Luca Osten
  */
 public class CaloCoordinatePair
@@ -30,8 +32,17 @@ public class CaloCoordinatePair
 	public final CaloCoordinate coordinateStart;
 	@NonNull
 	public final CaloCoordinate coordinateEnd;
-	@NonNull
-	public final String key;
+	private final long startLatitudeBits;
+	private final long startLongitudeBits;
+	private final long endLatitudeBits;
+	private final long endLongitudeBits;
+	private final int hash;
+	/**
+	 * Key created on first access. It is not volatile, so threads racing on the first access may each create
+	 * an equal key, which is harmless as strings are immutable.
+	 */
+	@Nullable
+	private String key;
 	
 	/**
 	 * Create a new {@link CaloCoordinatePair} instance.
@@ -46,8 +57,31 @@ public class CaloCoordinatePair
 	{
 		this.coordinateStart = coordinateStart;
 		this.coordinateEnd = coordinateEnd;
-		this.key = coordinateStart.getLatitude() + "," + coordinateStart.getLongitude() + "|" +
-				coordinateEnd.getLatitude() + "," + coordinateEnd.getLongitude();
+		this.startLatitudeBits = Double.doubleToLongBits(coordinateStart.getLatitude());
+		this.startLongitudeBits = Double.doubleToLongBits(coordinateStart.getLongitude());
+		this.endLatitudeBits = Double.doubleToLongBits(coordinateEnd.getLatitude());
+		this.endLongitudeBits = Double.doubleToLongBits(coordinateEnd.getLongitude());
+		long hash = CaloMath.mix(this.startLatitudeBits);
+		hash = CaloMath.mix(hash ^ this.startLongitudeBits);
+		hash = CaloMath.mix(hash ^ this.endLatitudeBits);
+		hash = CaloMath.mix(hash ^ this.endLongitudeBits);
+		this.hash = (int) (hash ^ (hash >>> 32));
+	}
+	
+	/**
+	 * Get the key of this pair in the format "startLatitude,startLongitude|endLatitude,endLongitude".
+	 * The key is created on first access, it replaces the public field {@code key} of version 1.2.
+	 * @return key of this pair
+	 */
+	@NonNull
+	public String getKey()
+	{
+		if (this.key == null)
+		{
+			this.key = Double.longBitsToDouble(this.startLatitudeBits) + "," + Double.longBitsToDouble(this.startLongitudeBits) + "|" +
+					Double.longBitsToDouble(this.endLatitudeBits) + "," + Double.longBitsToDouble(this.endLongitudeBits);
+		}
+		return this.key;
 	}
 	
 	@Override
@@ -62,20 +96,23 @@ public class CaloCoordinatePair
 			return false;
 		}
 		final CaloCoordinatePair coordinatePair = (CaloCoordinatePair) other;
-		return this.key.equals(coordinatePair.key);
+		return this.startLatitudeBits == coordinatePair.startLatitudeBits
+				&& this.startLongitudeBits == coordinatePair.startLongitudeBits
+				&& this.endLatitudeBits == coordinatePair.endLatitudeBits
+				&& this.endLongitudeBits == coordinatePair.endLongitudeBits;
 	}
 	
 	@Override
 	public int hashCode()
 	{
-		return this.key.hashCode();
+		return this.hash;
 	}
 	
 	@NonNull
 	@Override
 	public String toString()
 	{
-		return this.key;
+		return getKey();
 	}
 	
 }
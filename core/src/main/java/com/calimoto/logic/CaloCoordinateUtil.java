@@ -18,6 +18,7 @@
 package com.calimoto.logic;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
  * Util class to perform distance calculations.
@@ -25,6 +26,73 @@ import androidx.annotation.NonNull;
  */
 public class CaloCoordinateUtil
 {
+	/**
+	 * System property selecting the {@link CaloDistanceKernel} of {@link #getDistanceKernel()},
+	 * {@code scalar} or {@code vector}, selected automatically if not set
+	 */
+	public static final String DISTANCE_KERNEL_PROPERTY = "com.calimoto.logic.distanceKernel";
+	
+	/**
+	 * Holder of the {@link CaloDistanceKernel}, loaded on first use.
+	 */
+	private static class DistanceKernelHolder
+	{
+		/**
+		 * Name of the vectorized {@link CaloDistanceKernel} in the optional calimoto-logic-vector library
+		 */
+		private static final String VECTOR_KERNEL = "com.calimoto.logic.vector.CaloDistanceKernelVector";
+		
+		/**
+		 * Fastest available {@link CaloDistanceKernel}
+		 */
+		private static final CaloDistanceKernel KERNEL = loadKernel(System.getProperty(DISTANCE_KERNEL_PROPERTY));
+		
+		/**
+		 * Load the {@link CaloDistanceKernel} selected by the given value of {@link #DISTANCE_KERNEL_PROPERTY}.
+		 * Without selection the vectorized kernel is used if it is on the class path, the JVM supports the
+		 * Java Vector API and the CPU accelerates it, else {@link CaloDistanceKernelScalar}.
+		 * @param selection
+		 * 		{@code scalar}, {@code vector} or null to select automatically
+		 * @return selected {@link CaloDistanceKernel}
+		 */
+		@NonNull
+		private static CaloDistanceKernel loadKernel(@Nullable final String selection)
+		{
+			if ("scalar".equals(selection))
+			{
+				return CaloDistanceKernelScalar.INSTANCE;
+			}
+			try
+			{
+				final Class<?> kernelClass = Class.forName(VECTOR_KERNEL);
+				if (!"vector".equals(selection) && !((Boolean) kernelClass.getMethod("isAccelerated").invoke(null)))
+				{
+					// the vector operations would be emulated, which is slower than the scalar kernel
+					return CaloDistanceKernelScalar.INSTANCE;
+				}
+				return (CaloDistanceKernel) kernelClass.getConstructor().newInstance();
+			}
+			catch (final ReflectiveOperationException | LinkageError | RuntimeException e)
+			{
+				// library missing, older JDK, Android or jdk.incubator.vector module not added
+				return CaloDistanceKernelScalar.INSTANCE;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Holder of the shared {@link CaloLatitudeTable}, created on first use.
+	 */
+	private static class LatitudeTableHolder
+	{
+		/**
+		 * Shared {@link CaloLatitudeTable} with {@link CaloLatitudeTable#DEFAULT_INTERVAL_COUNT} intervals
+		 */
+		private static final CaloLatitudeTable TABLE = new CaloLatitudeTable(CaloLatitudeTable.DEFAULT_INTERVAL_COUNT);
+		
+	}
+	
 	/**
 	 * Pre calculation for 2 * PI
 	 */
@@ -45,8 +113,31 @@ public class CaloCoordinateUtil
 	 */
 	private static final double RES_360dPI = 360.0 / CaloMath.PI;
 	
+	/**
+	 * Mean earth radius in meters as used by {@link #calculateDistance(double, double, double, double)}
+	 */
+	static final double EARTH_RADIUS = 6371000.0;
+	
+	/**
+	 * Length of 1 degree of a great circle in meters
+	 */
+	static final double METERS_PER_DEGREE = EARTH_RADIUS * RES_PId180;
+	
+	/**
+	 * Largest difference of latitude and longitude in degrees, about 11 kilometers, for which
+	 * {@link #calculateDistanceAdaptive(double, double, double, double)} uses the equirectangular approximation
+	 */
+	public static final double DEFAULT_FLAT_SPAN = 0.1;
+	
+	/**
+	 * Largest absolute latitude for which the equirectangular approximation is used by
+	 * {@link #calculateDistanceAdaptive(double, double, double, double, double)}
+	 */
+	private static final double MAX_FLAT_LATITUDE = 80;
+	
 	/**
 	 * Normalize the latitude so a lat|lon coordinate can be used like a x|y point.
+	 * {@link #getLatitudeTable()} interpolates it faster within a fraction of a millimeter.
 	 * @param latitude
 	 * 		latitude to normalize
 	 * @return normalized latitude
@@ -60,6 +151,7 @@ public class CaloCoordinateUtil
 	
 	/**
 	 * Denormalize the latitude which essentially reverts {@link #normalizeLatitude(double)}.
+	 * {@link #getLatitudeTable()} interpolates it faster within a fraction of a millimeter.
 	 * @param latitude
 	 * 		latitude to denormalize
 	 * @return denormalized latitude
@@ -82,13 +174,420 @@ public class CaloCoordinateUtil
 			@NonNull final CaloCoordinate start,
 			@NonNull final CaloCoordinate end)
 	{
-		final double p = 0.017453292519943295; // CaloMath.PI / 180
-		final double a = 0.5 - CaloMath.cos((end.getLatitude() - start.getLatitude()) * p) / 2
-				+ CaloMath.cos(start.getLatitude() * p) * CaloMath.cos(end.getLatitude() * p)
-				* (1 - CaloMath.cos((end.getLongitude() - start.getLongitude()) * p)) / 2;
+		return calculateDistance(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
+	}
+	
+	/**
+	 * Calculate the distance between to locations.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @return distance between the locations in meters
+	 */
+	public static double calculateDistance(
+			final double startLatitude,
+			final double startLongitude,
+			final double endLatitude,
+			final double endLongitude)
+	{
+		return calculateDistance(startLatitude, startLongitude, cosLatitude(startLatitude),
+				endLatitude, endLongitude, cosLatitude(endLatitude));
+	}
+	
+	/**
+	 * Calculate the distance between to locations like {@link #calculateDistance(double, double, double, double)}
+	 * with the functions of the given {@link CaloMathStrategy}.
+	 * With {@link CaloMathStrategyFast} the result differs by less than 0.1 millimeters.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @param math
+	 * 		{@link CaloMathStrategy} to calculate with
+	 * @return distance between the locations in meters
+	 */
+	public static double calculateDistance(
+			final double startLatitude,
+			final double startLongitude,
+			final double endLatitude,
+			final double endLongitude,
+			@NonNull final CaloMathStrategy math)
+	{
+		return calculateDistance(startLatitude, startLongitude, math.cos(startLatitude * RES_PId180),
+				endLatitude, endLongitude, math.cos(endLatitude * RES_PId180), math);
+	}
+	
+	/**
+	 * Calculate the distance between to locations with the equirectangular approximation, treating the earth as flat
+	 * around the mean latitude of the locations. This needs only one cosine and a square root. <p></p>
+	 * Compared to the exact great circle distance the error grows with the cube of the distance: for latitudes up to
+	 * 80 degrees it is below 5 micrometers for a span of 0.01 degrees, below 5 millimeters for 0.1 degrees and
+	 * below 5 meters for 1 degree. Up to a span of about 0.05 degrees it is even more accurate than
+	 * {@link #calculateDistance(double, double, double, double)}, which loses precision on very short distances.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @return approximated distance between the locations in meters
+	 */
+	public static double calculateDistanceEquirectangular(
+			final double startLatitude,
+			final double startLongitude,
+			final double endLatitude,
+			final double endLongitude)
+	{
+		double deltaLongitude = endLongitude - startLongitude;
+		if (deltaLongitude > 180)
+		{
+			deltaLongitude -= 360;
+		}
+		else if (deltaLongitude < -180)
+		{
+			deltaLongitude += 360;
+		}
+		final double x = deltaLongitude * CaloMath.cos((startLatitude + endLatitude) * 0.5 * RES_PId180);
+		final double y = endLatitude - startLatitude;
+		return METERS_PER_DEGREE * CaloMath.sqrt(x * x + y * y);
+	}
+	
+	/**
+	 * Calculate the distance between to locations, using the equirectangular approximation if latitude and
+	 * longitude differ by at most {@link #DEFAULT_FLAT_SPAN}. The error is below 5 millimeters for latitudes
+	 * up to 80 degrees.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @return distance between the locations in meters
+	 * @see #calculateDistanceAdaptive(double, double, double, double, double)
+	 */
+	public static double calculateDistanceAdaptive(
+			final double startLatitude,
+			final double startLongitude,
+			final double endLatitude,
+			final double endLongitude)
+	{
+		return calculateDistanceAdaptive(startLatitude, startLongitude, endLatitude, endLongitude, DEFAULT_FLAT_SPAN);
+	}
+	
+	/**
+	 * Calculate the distance between to locations, using
+	 * {@link #calculateDistanceEquirectangular(double, double, double, double)} if latitude and longitude differ
+	 * by at most the given span and both latitudes are within 80 degrees, else
+	 * {@link #calculateDistance(double, double, double, double)}.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @param flatSpan
+	 * 		largest difference of latitude and longitude in degrees to use the equirectangular approximation for,
+	 * 		see {@link #calculateDistanceEquirectangular(double, double, double, double)} for the resulting error
+	 * @return distance between the locations in meters
+	 */
+	public static double calculateDistanceAdaptive(
+			final double startLatitude,
+			final double startLongitude,
+			final double endLatitude,
+			final double endLongitude,
+			final double flatSpan)
+	{
+		if (CaloMath.abs(endLatitude - startLatitude) <= flatSpan && CaloMath.abs(endLongitude - startLongitude) <= flatSpan
+				&& CaloMath.abs(startLatitude) <= MAX_FLAT_LATITUDE && CaloMath.abs(endLatitude) <= MAX_FLAT_LATITUDE)
+		{
+			return calculateDistanceEquirectangular(startLatitude, startLongitude, endLatitude, endLongitude);
+		}
+		return calculateDistance(startLatitude, startLongitude, endLatitude, endLongitude);
+	}
+	
+	/**
+	 * Calculate the distance between to locations with the cosine of their latitudes already known
+	 * and the functions of the given {@link CaloMathStrategy}.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param startCosLatitude
+	 * 		cosine of the latitude of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @param endCosLatitude
+	 * 		cosine of the latitude of the ending location
+	 * @param math
+	 * 		{@link CaloMathStrategy} to calculate with
+	 * @return distance between the locations in meters
+	 */
+	private static double calculateDistance(
+			final double startLatitude,
+			final double startLongitude,
+			final double startCosLatitude,
+			final double endLatitude,
+			final double endLongitude,
+			final double endCosLatitude,
+			@NonNull final CaloMathStrategy math)
+	{
+		final double a = 0.5 - math.cos((endLatitude - startLatitude) * RES_PId180) / 2
+				+ startCosLatitude * endCosLatitude
+				* (1 - math.cos((endLongitude - startLongitude) * RES_PId180)) / 2;
+		return 12742000.0 * math.asin(CaloMath.sqrt(a)); // 2 * R; R = 6371000 meters
+	}
+	
+	/**
+	 * Calculate the distance between to locations with the cosine of their latitudes already known.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param startCosLatitude
+	 * 		{@link #cosLatitude(double)} of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @param endCosLatitude
+	 * 		{@link #cosLatitude(double)} of the ending location
+	 * @return distance between the locations in meters
+	 */
+	static double calculateDistance(
+			final double startLatitude,
+			final double startLongitude,
+			final double startCosLatitude,
+			final double endLatitude,
+			final double endLongitude,
+			final double endCosLatitude)
+	{
+		final double a = 0.5 - CaloMath.cos((endLatitude - startLatitude) * RES_PId180) / 2
+				+ startCosLatitude * endCosLatitude
+				* (1 - CaloMath.cos((endLongitude - startLongitude) * RES_PId180)) / 2;
 		return 12742000.0 * CaloMath.asin(CaloMath.sqrt(a)); // 2 * R; R = 6371000 meters
 	}
 	
+	/**
+	 * Calculate the cosine of the given latitude as used by the distance calculation.
+	 * @param latitude
+	 * 		latitude in degrees
+	 * @return cosine of the latitude
+	 */
+	static double cosLatitude(final double latitude)
+	{
+		return CaloMath.cos(latitude * RES_PId180);
+	}
+	
+	/**
+	 * Calculate the length of the track described by the given {@link CaloCoordinateList}.
+	 * Gives the same result as summing up {@link #calculateDistance(CaloCoordinate, CaloCoordinate)}
+	 * of all consecutive coordinates, but calculates the cosine of every latitude only once.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @return length of the track in meters
+	 */
+	public static double calculateLength(@NonNull final CaloCoordinateList<?> list)
+	{
+		return calculateCumulativeDistances(list, null);
+	}
+	
+	/**
+	 * Calculate the length of the track described by the given {@link CaloCoordinateList} with the functions of
+	 * the given {@link CaloMathStrategy}. With {@link CaloMathStrategyFast} every distance between consecutive
+	 * coordinates differs by less than 0.1 millimeters.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param math
+	 * 		{@link CaloMathStrategy} to calculate with
+	 * @return length of the track in meters
+	 */
+	public static double calculateLength(@NonNull final CaloCoordinateList<?> list, @NonNull final CaloMathStrategy math)
+	{
+		final int size = list.size();
+		if (size == 0)
+		{
+			return 0;
+		}
+		double latitude = list.getLatitude(0);
+		double longitude = list.getLongitude(0);
+		double cosLatitude = math.cos(latitude * RES_PId180);
+		double length = 0;
+		for (int i = 1; i < size; i++)
+		{
+			final double nextLatitude = list.getLatitude(i);
+			final double nextLongitude = list.getLongitude(i);
+			final double nextCosLatitude = math.cos(nextLatitude * RES_PId180);
+			length += calculateDistance(latitude, longitude, cosLatitude, nextLatitude, nextLongitude, nextCosLatitude, math);
+			latitude = nextLatitude;
+			longitude = nextLongitude;
+			cosLatitude = nextCosLatitude;
+		}
+		return length;
+	}
+	
+	/**
+	 * Calculate the distance from the first coordinate to every coordinate along the track described by the given
+	 * {@link CaloCoordinateList} in one pass.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param cumulativeDistances
+	 * 		array of at least the size of the list to fill with the distance along the track in meters
+	 * 		at every index, may be null if only the length of the track is required
+	 * @return length of the track in meters
+	 */
+	public static double calculateCumulativeDistances(
+			@NonNull final CaloCoordinateList<?> list,
+			@Nullable final double[] cumulativeDistances)
+	{
+		final int size = list.size();
+		if (cumulativeDistances != null && cumulativeDistances.length < size)
+		{
+			throw new IllegalArgumentException("Array length " + cumulativeDistances.length + " < list size " + size);
+		}
+		if (size == 0)
+		{
+			return 0;
+		}
+		if (list instanceof CaloCoordinateListPacked)
+		{
+			return calculateCumulativeDistances(((CaloCoordinateListPacked<?>) list).coordinates, size, cumulativeDistances);
+		}
+		double latitude = list.getLatitude(0);
+		double longitude = list.getLongitude(0);
+		double cosLatitude = cosLatitude(latitude);
+		double length = 0;
+		if (cumulativeDistances != null)
+		{
+			cumulativeDistances[0] = 0;
+		}
+		for (int i = 1; i < size; i++)
+		{
+			final double nextLatitude = list.getLatitude(i);
+			final double nextLongitude = list.getLongitude(i);
+			final double nextCosLatitude = cosLatitude(nextLatitude);
+			length += calculateDistance(latitude, longitude, cosLatitude, nextLatitude, nextLongitude, nextCosLatitude);
+			if (cumulativeDistances != null)
+			{
+				cumulativeDistances[i] = length;
+			}
+			latitude = nextLatitude;
+			longitude = nextLongitude;
+			cosLatitude = nextCosLatitude;
+		}
+		return length;
+	}
+	
+	/**
+	 * Calculate the cumulative distances on interleaved latitudes and longitudes.
+	 * @param coordinates
+	 * 		latitude at {@code 2 * index} and longitude at {@code 2 * index + 1}
+	 * @param size
+	 * 		number of coordinates to use, must be at least 1
+	 * @param cumulativeDistances
+	 * 		array to fill or null
+	 * @return length of the track in meters
+	 * @see #calculateCumulativeDistances(CaloCoordinateList, double[])
+	 */
+	private static double calculateCumulativeDistances(
+			@NonNull final double[] coordinates,
+			final int size,
+			@Nullable final double[] cumulativeDistances)
+	{
+		double latitude = coordinates[0];
+		double longitude = coordinates[1];
+		double cosLatitude = cosLatitude(latitude);
+		double length = 0;
+		if (cumulativeDistances != null)
+		{
+			cumulativeDistances[0] = 0;
+		}
+		for (int i = 1; i < size; i++)
+		{
+			final double nextLatitude = coordinates[2 * i];
+			final double nextLongitude = coordinates[2 * i + 1];
+			final double nextCosLatitude = cosLatitude(nextLatitude);
+			length += calculateDistance(latitude, longitude, cosLatitude, nextLatitude, nextLongitude, nextCosLatitude);
+			if (cumulativeDistances != null)
+			{
+				cumulativeDistances[i] = length;
+			}
+			latitude = nextLatitude;
+			longitude = nextLongitude;
+			cosLatitude = nextCosLatitude;
+		}
+		return length;
+	}
+	
+	/**
+	 * Get the fastest available {@link CaloDistanceKernel}. This is the vectorized kernel of the calimoto-logic-vector
+	 * library if it is on the class path, the JVM runs with {@code --add-modules jdk.incubator.vector} and the CPU
+	 * accelerates the vector operations, else {@link CaloDistanceKernelScalar}. The system property
+	 * {@link #DISTANCE_KERNEL_PROPERTY} overrides the selection, which happens on the first call.
+	 * Callers may also use a kernel directly, e.g. {@link CaloDistanceKernelScalar#INSTANCE}.
+	 * @return fastest available {@link CaloDistanceKernel}
+	 */
+	@NonNull
+	public static CaloDistanceKernel getDistanceKernel()
+	{
+		return DistanceKernelHolder.KERNEL;
+	}
+	
+	/**
+	 * Get the shared {@link CaloLatitudeTable} with {@link CaloLatitudeTable#DEFAULT_INTERVAL_COUNT} intervals,
+	 * which is created on first use.
+	 * @return shared {@link CaloLatitudeTable}
+	 */
+	@NonNull
+	public static CaloLatitudeTable getLatitudeTable()
+	{
+		return LatitudeTableHolder.TABLE;
+	}
+	
+	/**
+	 * Calculate the distances from the given location to the locations in the given arrays with the
+	 * fastest available {@link CaloDistanceKernel}. Every distance is within {@link CaloDistanceKernel#EPSILON}
+	 * of {@link #calculateDistance(double, double, double, double)}.
+	 * @param latitude
+	 * 		latitude of the location to calculate the distances from
+	 * @param longitude
+	 * 		longitude of the location to calculate the distances from
+	 * @param latitudes
+	 * 		latitudes of the locations to calculate the distances to
+	 * @param longitudes
+	 * 		longitudes of the locations to calculate the distances to
+	 * @param distances
+	 * 		array to fill with the distance in meters at every index
+	 * @param length
+	 * 		number of locations to calculate the distances to
+	 */
+	public static void calculateDistances(
+			final double latitude,
+			final double longitude,
+			@NonNull final double[] latitudes,
+			@NonNull final double[] longitudes,
+			@NonNull final double[] distances,
+			final int length)
+	{
+		DistanceKernelHolder.KERNEL.calculateDistances(latitude, longitude, latitudes, longitudes, distances, length);
+	}
+	
 	/**
 	 * Get the length of 1 degree of latitude in meters.
 	 * @return length of 1 degree of latitude in meters
@@ -0,0 +1,383 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Analyzer of the curvature of a track which consumes the locations one at a time, e.g. while recording, or analyzes
+ * a whole {@link CaloCoordinateList} into primitive arrays. Every location is processed once in constant time. <p></p>
+ * For every location, called vertex, the analyzer calculates:
+ * <ul>
+ *     <li>the heading change in degrees from the incoming to the outgoing segment, positive for left turns,
+ *     with the headings calculated by {@link CaloMath#atan2(double, double)} in the normalized projection of
+ *     {@link CaloCoordinateUtil#normalizeLatitude(double)}, which preserves angles</li>
+ *     <li>the turn radius in meters, which is the mean length of both segments divided by the heading change in radians,
+ *     infinite if the heading does not change</li>
+ *     <li>the curviness in degrees per kilometer, which is the sum of the absolute heading changes of the vertices
+ *     within the window before and including the vertex divided by the window length</li>
+ * </ul>
+ * The first and the last vertex have no heading change. Duplicate locations are skipped for the headings, so their
+ * vertices have no heading change either. A vertex is complete when the next location has been added. <p></p>
+ * The analyzer only allocates memory when the number of vertices within a window exceeds the ones seen before, so
+ * reusing one instance with {@link #reset()} creates no garbage. This class is not thread safe.
+ */
+public class CaloCurvatureAnalyzer
+{
+	/**
+	 * Default length of the window for the curviness in meters
+	 */
+	public static final double DEFAULT_WINDOW_IN_METERS = 1000;
+	
+	/**
+	 * Initial number of vertices of the window to reserve memory for
+	 */
+	private static final int INITIAL_WINDOW_CAPACITY = 64;
+	
+	// attributes
+	private final double windowInMeters;
+	private int count;
+	private double length;
+	private double latitude;
+	private double longitude;
+	private double normalizedLatitude;
+	private double cosLatitude;
+	private boolean hasHeading;
+	private double heading;
+	private double segmentLength;
+	private double headingChange;
+	private double turnRadius = Double.POSITIVE_INFINITY;
+	private double totalTurn;
+	private double curviness;
+	/**
+	 * Ring buffer of the distance along the track and the total turn of every vertex within the window
+	 */
+	@NonNull
+	private double[] windowDistances = new double[INITIAL_WINDOW_CAPACITY];
+	@NonNull
+	private double[] windowTurns = new double[INITIAL_WINDOW_CAPACITY];
+	private int windowStart;
+	private int windowSize;
+	private double windowStartTurn;
+	
+	/**
+	 * Create a new {@link CaloCurvatureAnalyzer} instance with the {@link #DEFAULT_WINDOW_IN_METERS}.
+	 */
+	public CaloCurvatureAnalyzer()
+	{
+		this(DEFAULT_WINDOW_IN_METERS);
+	}
+	
+	/**
+	 * Create a new {@link CaloCurvatureAnalyzer} instance.
+	 * @param windowInMeters
+	 * 		length of the window for the curviness in meters
+	 */
+	public CaloCurvatureAnalyzer(final double windowInMeters)
+	{
+		if (!(windowInMeters > 0) || windowInMeters == Double.POSITIVE_INFINITY)
+		{
+			throw new IllegalArgumentException("Illegal window: " + windowInMeters);
+		}
+		this.windowInMeters = windowInMeters;
+	}
+	
+	/**
+	 * Get the length of the window for the curviness.
+	 * @return length of the window in meters
+	 */
+	public double getWindowInMeters()
+	{
+		return this.windowInMeters;
+	}
+	
+	/**
+	 * Add the next location of the track, which completes the vertex of the previous location.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 */
+	public void add(final double latitude, final double longitude)
+	{
+		final double normalizedLatitude = CaloCoordinateUtil.normalizeLatitude(latitude);
+		final double cosLatitude = CaloCoordinateUtil.cosLatitude(latitude);
+		if (this.count > 0)
+		{
+			final double segmentLength = CaloCoordinateUtil.calculateDistance(this.latitude, this.longitude, this.cosLatitude,
+					latitude, longitude, cosLatitude);
+			double change = 0;
+			double radius = Double.POSITIVE_INFINITY;
+			if (segmentLength > 0)
+			{
+				double longitudeDifference = longitude - this.longitude;
+				if (longitudeDifference > 180)
+				{
+					longitudeDifference -= 360;
+				}
+				else if (longitudeDifference < -180)
+				{
+					longitudeDifference += 360;
+				}
+				final double heading = CaloMath.atan2(normalizedLatitude - this.normalizedLatitude, longitudeDifference);
+				if (this.hasHeading)
+				{
+					change = heading - this.heading;
+					if (change > CaloMath.PI)
+					{
+						change -= 2 * CaloMath.PI;
+					}
+					else if (change <= -CaloMath.PI)
+					{
+						change += 2 * CaloMath.PI;
+					}
+					if (change != 0)
+					{
+						radius = (this.segmentLength + segmentLength) / (2 * CaloMath.abs(change));
+					}
+				}
+				this.hasHeading = true;
+				this.heading = heading;
+				this.segmentLength = segmentLength;
+			}
+			completeVertex(CaloMath.toDegrees(change), radius);
+			this.length += segmentLength;
+		}
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.normalizedLatitude = normalizedLatitude;
+		this.cosLatitude = cosLatitude;
+		this.count++;
+	}
+	
+	/**
+	 * Analyze the given track from scratch, writing the results of the vertex at index i to index i of the arrays.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param headingChanges
+	 * 		array to write the heading changes in degrees to or null
+	 * @param turnRadii
+	 * 		array to write the turn radii in meters to or null
+	 * @param curviness
+	 * 		array to write the curviness in degrees per kilometer to or null
+	 * @return curviness of the whole track in degrees per kilometer, 0 if shorter than 2 locations
+	 */
+	public double analyze(
+			@NonNull final CaloCoordinateList<?> list,
+			@Nullable final double[] headingChanges,
+			@Nullable final double[] turnRadii,
+			@Nullable final double[] curviness)
+	{
+		final int size = list.size();
+		checkLength(headingChanges, size);
+		checkLength(turnRadii, size);
+		checkLength(curviness, size);
+		reset();
+		for (int i = 0; i < size; i++)
+		{
+			add(list.getLatitude(i), list.getLongitude(i));
+			if (i > 0)
+			{
+				write(i - 1, headingChanges, turnRadii, curviness);
+			}
+		}
+		if (size > 0)
+		{
+			// the last vertex has no outgoing segment
+			completeVertex(0, Double.POSITIVE_INFINITY);
+			write(size - 1, headingChanges, turnRadii, curviness);
+		}
+		return getTotalCurviness();
+	}
+	
+	/**
+	 * Reset the analyzer to start a new track, keeping the memory reserved for the window.
+	 */
+	public void reset()
+	{
+		this.count = 0;
+		this.length = 0;
+		this.hasHeading = false;
+		this.headingChange = 0;
+		this.turnRadius = Double.POSITIVE_INFINITY;
+		this.totalTurn = 0;
+		this.curviness = 0;
+		this.windowStart = 0;
+		this.windowSize = 0;
+		this.windowStartTurn = 0;
+	}
+	
+	/**
+	 * Get the number of locations added since the last reset.
+	 * @return number of added locations
+	 */
+	public int getCount()
+	{
+		return this.count;
+	}
+	
+	/**
+	 * Get the length of the added track.
+	 * @return length in meters
+	 */
+	public double getLength()
+	{
+		return this.length;
+	}
+	
+	/**
+	 * Get the heading change of the last complete vertex.
+	 * @return heading change in degrees, positive for left turns, 0 if there is none
+	 */
+	public double getHeadingChange()
+	{
+		return this.headingChange;
+	}
+	
+	/**
+	 * Get the turn radius of the last complete vertex.
+	 * @return turn radius in meters, infinite if the heading does not change
+	 */
+	public double getTurnRadius()
+	{
+		return this.turnRadius;
+	}
+	
+	/**
+	 * Get the curviness of the window ending at the last complete vertex.
+	 * @return curviness in degrees per kilometer
+	 */
+	public double getCurviness()
+	{
+		return this.curviness;
+	}
+	
+	/**
+	 * Get the sum of the absolute heading changes of all complete vertices.
+	 * @return total turn in degrees
+	 */
+	public double getTotalTurn()
+	{
+		return this.totalTurn;
+	}
+	
+	/**
+	 * Get the curviness of the whole added track.
+	 * @return total turn in degrees per kilometer of length, 0 if the length is 0
+	 */
+	public double getTotalCurviness()
+	{
+		return this.length > 0 ? 1000 * this.totalTurn / this.length : 0;
+	}
+	
+	/**
+	 * Store the results of the vertex at the current length and move the window to end at it.
+	 * @param change
+	 * 		heading change in degrees
+	 * @param radius
+	 * 		turn radius in meters
+	 */
+	private void completeVertex(final double change, final double radius)
+	{
+		this.headingChange = change;
+		this.turnRadius = radius;
+		this.totalTurn += CaloMath.abs(change);
+		if (this.windowSize == this.windowDistances.length)
+		{
+			growWindow();
+		}
+		final int end = (this.windowStart + this.windowSize) % this.windowDistances.length;
+		this.windowDistances[end] = this.length;
+		this.windowTurns[end] = this.totalTurn;
+		this.windowSize++;
+		final double windowStartDistance = this.length - this.windowInMeters;
+		while (this.windowDistances[this.windowStart] <= windowStartDistance)
+		{
+			this.windowStartTurn = this.windowTurns[this.windowStart];
+			this.windowStart = (this.windowStart + 1) % this.windowDistances.length;
+			this.windowSize--;
+		}
+		this.curviness = 1000 * (this.totalTurn - this.windowStartTurn) / this.windowInMeters;
+	}
+	
+	/**
+	 * Double the capacity of the window, moving its vertices to the start of the arrays.
+	 */
+	private void growWindow()
+	{
+		final int capacity = this.windowDistances.length;
+		final double[] distances = new double[2 * capacity];
+		final double[] turns = new double[2 * capacity];
+		final int firstPart = capacity - this.windowStart;
+		System.arraycopy(this.windowDistances, this.windowStart, distances, 0, firstPart);
+		System.arraycopy(this.windowDistances, 0, distances, firstPart, this.windowStart);
+		System.arraycopy(this.windowTurns, this.windowStart, turns, 0, firstPart);
+		System.arraycopy(this.windowTurns, 0, turns, firstPart, this.windowStart);
+		this.windowDistances = distances;
+		this.windowTurns = turns;
+		this.windowStart = 0;
+	}
+	
+	/**
+	 * Write the results of the last complete vertex to the given arrays.
+	 * @param index
+	 * 		index of the vertex
+	 * @param headingChanges
+	 * 		array of the heading changes or null
+	 * @param turnRadii
+	 * 		array of the turn radii or null
+	 * @param curviness
+	 * 		array of the curviness or null
+	 */
+	private void write(
+			final int index,
+			@Nullable final double[] headingChanges,
+			@Nullable final double[] turnRadii,
+			@Nullable final double[] curviness)
+	{
+		if (headingChanges != null)
+		{
+			headingChanges[index] = this.headingChange;
+		}
+		if (turnRadii != null)
+		{
+			turnRadii[index] = this.turnRadius;
+		}
+		if (curviness != null)
+		{
+			curviness[index] = this.curviness;
+		}
+	}
+	
+	/**
+	 * Check that the given array can hold a value for every location.
+	 * @param array
+	 * 		array to check or null
+	 * @param size
+	 * 		number of locations
+	 */
+	private static void checkLength(@Nullable final double[] array, final int size)
+	{
+		if (array != null && array.length < size)
+		{
+			throw new IllegalArgumentException("Array length " + array.length + " < list size " + size);
+		}
+	}
+	
+}
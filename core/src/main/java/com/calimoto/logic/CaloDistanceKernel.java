@@ -0,0 +1,61 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Kernel calculating the distances from one location to many locations given as primitive arrays,
+ * e.g. one row of a distance matrix. <p></p>
+ * Implementations calculate the same haversine formula as
+ * {@link CaloCoordinateUtil#calculateDistance(double, double, double, double)}, but may use a different evaluation
+ * of the trigonometric functions. Every distance must not differ from the scalar formula by more than
+ * {@link #EPSILON} meters. Use {@link CaloCoordinateUtil#getDistanceKernel()} to get the fastest available kernel.
+ */
+public interface CaloDistanceKernel
+{
+	/**
+	 * Maximum difference in meters between a distance calculated by a kernel and
+	 * {@link CaloCoordinateUtil#calculateDistance(double, double, double, double)}
+	 */
+	public static final double EPSILON = 0.001;
+	
+	/**
+	 * Calculate the distances from the given location to the locations in the given arrays.
+	 * @param latitude
+	 * 		latitude of the location to calculate the distances from
+	 * @param longitude
+	 * 		longitude of the location to calculate the distances from
+	 * @param latitudes
+	 * 		latitudes of the locations to calculate the distances to
+	 * @param longitudes
+	 * 		longitudes of the locations to calculate the distances to
+	 * @param distances
+	 * 		array to fill with the distance in meters at every index
+	 * @param length
+	 * 		number of locations to calculate the distances to
+	 */
+	public void calculateDistances(
+			double latitude,
+			double longitude,
+			@NonNull double[] latitudes,
+			@NonNull double[] longitudes,
+			@NonNull double[] distances,
+			int length);
+	
+}
@@ -0,0 +1,75 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link CaloDistanceKernel} calculating one distance after the other with
+ * {@link CaloCoordinateUtil#calculateDistance(double, double, double, double)}, so its results are exact.
+ * Used wherever no vectorized kernel is available, e.g. on Android.
+ */
+public class CaloDistanceKernelScalar implements CaloDistanceKernel
+{
+	/**
+	 * Shared instance
+	 */
+	public static final CaloDistanceKernelScalar INSTANCE = new CaloDistanceKernelScalar();
+	
+	@Override
+	public void calculateDistances(
+			final double latitude,
+			final double longitude,
+			@NonNull final double[] latitudes,
+			@NonNull final double[] longitudes,
+			@NonNull final double[] distances,
+			final int length)
+	{
+		checkArrays(latitudes, longitudes, distances, length);
+		final double cosLatitude = CaloCoordinateUtil.cosLatitude(latitude);
+		for (int i = 0; i < length; i++)
+		{
+			distances[i] = CaloCoordinateUtil.calculateDistance(latitude, longitude, cosLatitude,
+					latitudes[i], longitudes[i], CaloCoordinateUtil.cosLatitude(latitudes[i]));
+		}
+	}
+	
+	/**
+	 * Check that the given arrays hold at least the given number of locations.
+	 * @param latitudes
+	 * 		latitudes of the locations
+	 * @param longitudes
+	 * 		longitudes of the locations
+	 * @param distances
+	 * 		array for the distances
+	 * @param length
+	 * 		number of locations
+	 */
+	public static void checkArrays(
+			@NonNull final double[] latitudes,
+			@NonNull final double[] longitudes,
+			@NonNull final double[] distances,
+			final int length)
+	{
+		if (length < 0 || latitudes.length < length || longitudes.length < length || distances.length < length)
+		{
+			throw new IllegalArgumentException("Arrays too short for " + length + " locations");
+		}
+	}
+	
+}
@@ -0,0 +1,305 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Lookup table for {@link CaloCoordinateUtil#normalizeLatitude(double)} and
+ * {@link CaloCoordinateUtil#denormalizeLatitude(double)}, e.g. to unproject every pixel row of a map view or tile grid.
+ * <p></p>
+ * Both functions are odd, so each table covers the positive half with the given number of intervals of equal width.
+ * Within an interval the function is interpolated by the cubic Hermite polynomial of the exact values and
+ * derivatives at both ends, which costs a few multiplications instead of a logarithm or an exponential and an
+ * arc tangent. The error is bounded by the fourth derivative of the function, see {@link #getMaxErrorInMeters()}.
+ * Arguments outside the tables, i.e. latitudes beyond the limit of the normalization, normalized latitudes beyond
+ * 180 and NaN, are delegated to {@link CaloCoordinateUtil}. <p></p>
+ * Creating a table calculates all values, {@link CaloCoordinateUtil#getLatitudeTable()} provides a shared table created
+ * on first use. The instance is immutable and can be shared between threads.
+ */
+public class CaloLatitudeTable
+{
+	/**
+	 * Number of intervals of the shared table, with an error below 1 millimeter
+	 */
+	public static final int DEFAULT_INTERVAL_COUNT = 1024;
+	
+	/**
+	 * Maximum number of intervals of a table
+	 */
+	public static final int MAX_INTERVAL_COUNT = 1 << 24;
+	
+	/**
+	 * Bound of the rounding errors of the interpolation and the exact calculation in meters
+	 */
+	private static final double ROUNDING_ERROR_IN_METERS = 1e-8;
+	
+	/**
+	 * Latitude at which the normalized latitude reaches 180
+	 */
+	private static final double MAX_LATITUDE = CaloCoordinateUtil.denormalizeLatitude(180);
+	
+	/**
+	 * Largest normalized latitude of the table
+	 */
+	private static final double MAX_NORMALIZED_LATITUDE = 180;
+	
+	/**
+	 * Pre calculation for PI / 180
+	 */
+	private static final double RES_PId180 = CaloMath.PI / 180;
+	
+	/**
+	 * Pre calculation for (PI / 180)^3 / 384, the third power of the conversion of the fourth derivative from radians
+	 * to degrees divided by the factor of the error of the cubic Hermite interpolation
+	 */
+	private static final double RES_HERMITE_ERROR = RES_PId180 * RES_PId180 * RES_PId180 / 384;
+	
+	// attributes
+	private final int intervalCount;
+	private final double maxErrorInMeters;
+	/**
+	 * Intervals per degree of latitude
+	 */
+	private final double latitudeScale;
+	/**
+	 * Intervals per degree of normalized latitude
+	 */
+	private final double normalizedScale;
+	/**
+	 * Coefficients of the polynomial of interval i of the normalization at {@code 4 * i} to {@code 4 * i + 3},
+	 * from the constant one to the cubic one
+	 */
+	@NonNull
+	private final double[] normalizeCoefficients;
+	/**
+	 * Coefficients of the polynomial of interval i of the denormalization at {@code 4 * i} to {@code 4 * i + 3},
+	 * from the constant one to the cubic one
+	 */
+	@NonNull
+	private final double[] denormalizeCoefficients;
+	
+	/**
+	 * Create a new {@link CaloLatitudeTable} instance.
+	 * @param intervalCount
+	 * 		number of intervals of each table, from 1 to {@link #MAX_INTERVAL_COUNT}, taking 64 bytes per interval
+	 */
+	public CaloLatitudeTable(final int intervalCount)
+	{
+		if (intervalCount < 1 || intervalCount > MAX_INTERVAL_COUNT)
+		{
+			throw new IllegalArgumentException("Illegal interval count: " + intervalCount);
+		}
+		this.intervalCount = intervalCount;
+		this.maxErrorInMeters = calculateMaxErrorInMeters(intervalCount);
+		this.latitudeScale = intervalCount / MAX_LATITUDE;
+		this.normalizedScale = intervalCount / MAX_NORMALIZED_LATITUDE;
+		this.normalizeCoefficients = new double[4 * intervalCount];
+		this.denormalizeCoefficients = new double[4 * intervalCount];
+		final double latitudeStep = MAX_LATITUDE / intervalCount;
+		final double normalizedStep = MAX_NORMALIZED_LATITUDE / intervalCount;
+		double normalized = 0;
+		double slope = 1;
+		double latitudeOfNormalized = 0;
+		double slopeOfNormalized = 1;
+		for (int i = 0; i < intervalCount; i++)
+		{
+			// the derivative of the normalization is 1 / cos(latitude), the one of the denormalization cos(latitude)
+			final double nextLatitude = (i + 1) * latitudeStep;
+			final double nextNormalized = CaloCoordinateUtil.normalizeLatitude(nextLatitude);
+			final double nextSlope = 1 / CaloMath.cos(nextLatitude * RES_PId180);
+			setCoefficients(this.normalizeCoefficients, i, latitudeStep, normalized, slope, nextNormalized, nextSlope);
+			normalized = nextNormalized;
+			slope = nextSlope;
+			final double nextLatitudeOfNormalized = CaloCoordinateUtil.denormalizeLatitude((i + 1) * normalizedStep);
+			final double nextSlopeOfNormalized = CaloMath.cos(nextLatitudeOfNormalized * RES_PId180);
+			setCoefficients(this.denormalizeCoefficients, i, normalizedStep,
+					latitudeOfNormalized, slopeOfNormalized, nextLatitudeOfNormalized, nextSlopeOfNormalized);
+			latitudeOfNormalized = nextLatitudeOfNormalized;
+			slopeOfNormalized = nextSlopeOfNormalized;
+		}
+	}
+	
+	/**
+	 * Create a new {@link CaloLatitudeTable} instance with the least number of intervals for the given error.
+	 * @param maxErrorInMeters
+	 * 		maximum error of both functions in meters, at least 1e-8 meters for the rounding errors
+	 * @return new {@link CaloLatitudeTable}
+	 */
+	@NonNull
+	public static CaloLatitudeTable forMaxError(final double maxErrorInMeters)
+	{
+		if (!(maxErrorInMeters >= ROUNDING_ERROR_IN_METERS)
+				|| calculateMaxErrorInMeters(MAX_INTERVAL_COUNT) > maxErrorInMeters)
+		{
+			throw new IllegalArgumentException("Illegal max error: " + maxErrorInMeters);
+		}
+		int low = 1;
+		int high = MAX_INTERVAL_COUNT;
+		while (low < high)
+		{
+			final int middle = (low + high) >>> 1;
+			if (calculateMaxErrorInMeters(middle) <= maxErrorInMeters)
+			{
+				high = middle;
+			}
+			else
+			{
+				low = middle + 1;
+			}
+		}
+		return new CaloLatitudeTable(low);
+	}
+	
+	/**
+	 * Get the number of intervals of each table.
+	 * @return number of intervals
+	 */
+	public int getIntervalCount()
+	{
+		return this.intervalCount;
+	}
+	
+	/**
+	 * Get the guaranteed bound of the error of both functions in meters. For the denormalization it is the distance
+	 * to the exact latitude, for the normalization the distance to the latitude of the exact normalized latitude,
+	 * which is the error of a location projected to a map.
+	 * @return maximum error in meters
+	 */
+	public double getMaxErrorInMeters()
+	{
+		return this.maxErrorInMeters;
+	}
+	
+	/**
+	 * Normalize the latitude like {@link CaloCoordinateUtil#normalizeLatitude(double)}
+	 * within {@link #getMaxErrorInMeters()}.
+	 * @param latitude
+	 * 		latitude to normalize
+	 * @return normalized latitude
+	 */
+	public double normalizeLatitude(final double latitude)
+	{
+		final double absolute = CaloMath.abs(latitude);
+		if (!(absolute < MAX_LATITUDE))
+		{
+			return CaloCoordinateUtil.normalizeLatitude(latitude);
+		}
+		final double normalized = interpolate(this.normalizeCoefficients, absolute * this.latitudeScale);
+		return latitude < 0 ? -normalized : normalized;
+	}
+	
+	/**
+	 * Denormalize the latitude like {@link CaloCoordinateUtil#denormalizeLatitude(double)}
+	 * within {@link #getMaxErrorInMeters()}.
+	 * @param latitude
+	 * 		latitude to denormalize
+	 * @return denormalized latitude
+	 */
+	public double denormalizeLatitude(final double latitude)
+	{
+		final double absolute = CaloMath.abs(latitude);
+		if (!(absolute < MAX_NORMALIZED_LATITUDE))
+		{
+			return CaloCoordinateUtil.denormalizeLatitude(latitude);
+		}
+		final double denormalized = interpolate(this.denormalizeCoefficients, absolute * this.normalizedScale);
+		return latitude < 0 ? -denormalized : denormalized;
+	}
+	
+	/**
+	 * Evaluate the polynomial of the interval containing the given position.
+	 * @param coefficients
+	 * 		coefficients of the polynomials of all intervals
+	 * @param position
+	 * 		position in intervals, from 0 to the interval count
+	 * @return interpolated value
+	 */
+	private double interpolate(@NonNull final double[] coefficients, final double position)
+	{
+		final int interval = CaloMath.min((int) position, this.intervalCount - 1);
+		final double fraction = position - interval;
+		final int index = 4 * interval;
+		return ((coefficients[index + 3] * fraction + coefficients[index + 2]) * fraction + coefficients[index + 1]) * fraction
+				+ coefficients[index];
+	}
+	
+	/**
+	 * Set the coefficients of the cubic Hermite polynomial of the given interval in the fraction of the interval.
+	 * @param coefficients
+	 * 		coefficients of the polynomials of all intervals
+	 * @param interval
+	 * 		index of the interval
+	 * @param step
+	 * 		width of the interval
+	 * @param value
+	 * 		value at the start of the interval
+	 * @param slope
+	 * 		derivative at the start of the interval
+	 * @param nextValue
+	 * 		value at the end of the interval
+	 * @param nextSlope
+	 * 		derivative at the end of the interval
+	 */
+	private static void setCoefficients(
+			@NonNull final double[] coefficients,
+			final int interval,
+			final double step,
+			final double value,
+			final double slope,
+			final double nextValue,
+			final double nextSlope)
+	{
+		final int index = 4 * interval;
+		coefficients[index] = value;
+		coefficients[index + 1] = step * slope;
+		coefficients[index + 2] = 3 * (nextValue - value) - step * (2 * slope + nextSlope);
+		coefficients[index + 3] = 2 * (value - nextValue) + step * (slope + nextSlope);
+	}
+	
+	/**
+	 * Calculate the bound of the error of the tables with the given number of intervals. The error of the cubic Hermite
+	 * interpolation is at most {@code step^4 / 384} times the maximum of the fourth derivative within the interval.
+	 * <ul>
+	 *     <li>The fourth derivative of the normalization is {@code (PI / 180)^3 * s * t * (6 * s^2 - 1)} with
+	 *     {@code s = 1 / cos(latitude)} and {@code t = tan(latitude)}. An error of the normalized latitude moves
+	 *     the location by {@code cos(latitude)} times the error.</li>
+	 *     <li>The fourth derivative of the denormalization is {@code (PI / 180)^3 * c * t * (5 * c^2 - t^2)} with
+	 *     {@code c = 1 / cosh(u)} and {@code t = tanh(u)} for {@code u = PI / 180 * normalizedLatitude},
+	 *     which is at most 5 times {@code (PI / 180)^3}.</li>
+	 * </ul>
+	 * @param intervalCount
+	 * 		number of intervals of each table
+	 * @return maximum error in meters
+	 */
+	private static double calculateMaxErrorInMeters(final int intervalCount)
+	{
+		final double latitudeStep = MAX_LATITUDE / intervalCount;
+		final double normalizedStep = MAX_NORMALIZED_LATITUDE / intervalCount;
+		final double latitudeStep4 = latitudeStep * latitudeStep * latitudeStep * latitudeStep;
+		final double normalizedStep4 = normalizedStep * normalizedStep * normalizedStep * normalizedStep;
+		// all factors grow with the latitude, so the last interval has the largest error
+		final double secant = 1 / CaloMath.cos(MAX_LATITUDE * RES_PId180);
+		final double tangent = CaloMath.sqrt(secant * secant - 1);
+		final double cosine = CaloMath.cos((MAX_LATITUDE - latitudeStep) * RES_PId180);
+		final double normalizeError = RES_HERMITE_ERROR * latitudeStep4 * secant * tangent * (6 * secant * secant - 1) * cosine;
+		final double maxError = CaloMath.max(normalizeError, 5 * RES_HERMITE_ERROR * normalizedStep4);
+		return maxError * CaloCoordinateUtil.METERS_PER_DEGREE + ROUNDING_ERROR_IN_METERS;
+	}
+	
+}
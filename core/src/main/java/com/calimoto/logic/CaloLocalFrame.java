@@ -0,0 +1,218 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Local flat frame around a reference location, converting latitudes and longitudes to meters north and east of the
+ * reference with the scales precalculated at the reference latitude. Use it for repeated distance calculations in
+ * the same area, e.g. matching GPS fixes to nearby points. <p></p>
+ * As the length of a degree of longitude is only exact at the reference latitude, the relative error of east-west
+ * distances is about {@code tan(referenceLatitude) * distanceToReference / 6371000}, e.g. 0.02 percent within
+ * 1 kilometer of a reference at 48 degrees. North-south distances are exact on the spherical earth.
+ * The frame does not wrap at the antimeridian unless the reference is near it, and is not usable near the poles.
+ */
+public class CaloLocalFrame
+{
+	// attributes
+	private final double referenceLatitude;
+	private final double referenceLongitude;
+	private final double metersPerDegreeLatitude;
+	private final double metersPerDegreeLongitude;
+	
+	/**
+	 * Create a new {@link CaloLocalFrame} instance.
+	 * @param referenceLatitude
+	 * 		latitude of the origin of the frame
+	 * @param referenceLongitude
+	 * 		longitude of the origin of the frame
+	 */
+	public CaloLocalFrame(final double referenceLatitude, final double referenceLongitude)
+	{
+		this.referenceLatitude = referenceLatitude;
+		this.referenceLongitude = referenceLongitude;
+		this.metersPerDegreeLatitude = CaloCoordinateUtil.METERS_PER_DEGREE;
+		this.metersPerDegreeLongitude = CaloCoordinateUtil.METERS_PER_DEGREE * CaloCoordinateUtil.cosLatitude(referenceLatitude);
+	}
+	
+	/**
+	 * Create a new {@link CaloLocalFrame} instance.
+	 * @param reference
+	 * 		{@link CaloCoordinate} of the origin of the frame
+	 */
+	public CaloLocalFrame(@NonNull final CaloCoordinate reference)
+	{
+		this(reference.getLatitude(), reference.getLongitude());
+	}
+	
+	/**
+	 * Get the latitude of the origin of the frame.
+	 * @return reference latitude
+	 */
+	public double getReferenceLatitude()
+	{
+		return this.referenceLatitude;
+	}
+	
+	/**
+	 * Get the longitude of the origin of the frame.
+	 * @return reference longitude
+	 */
+	public double getReferenceLongitude()
+	{
+		return this.referenceLongitude;
+	}
+	
+	/**
+	 * Get the length of 1 degree of latitude.
+	 * @return length of 1 degree of latitude in meters
+	 */
+	public double getMetersPerDegreeLatitude()
+	{
+		return this.metersPerDegreeLatitude;
+	}
+	
+	/**
+	 * Get the length of 1 degree of longitude at the reference latitude.
+	 * @return length of 1 degree of longitude in meters
+	 */
+	public double getMetersPerDegreeLongitude()
+	{
+		return this.metersPerDegreeLongitude;
+	}
+	
+	/**
+	 * Convert the given longitude to the distance east of the reference.
+	 * @param longitude
+	 * 		longitude to convert
+	 * @return x coordinate in meters, negative for west of the reference
+	 */
+	public double toX(final double longitude)
+	{
+		double deltaLongitude = longitude - this.referenceLongitude;
+		if (deltaLongitude > 180)
+		{
+			deltaLongitude -= 360;
+		}
+		else if (deltaLongitude < -180)
+		{
+			deltaLongitude += 360;
+		}
+		return deltaLongitude * this.metersPerDegreeLongitude;
+	}
+	
+	/**
+	 * Convert the given latitude to the distance north of the reference.
+	 * @param latitude
+	 * 		latitude to convert
+	 * @return y coordinate in meters, negative for south of the reference
+	 */
+	public double toY(final double latitude)
+	{
+		return (latitude - this.referenceLatitude) * this.metersPerDegreeLatitude;
+	}
+	
+	/**
+	 * Convert the given x coordinate back to the longitude, reverting {@link #toX(double)}.
+	 * @param x
+	 * 		x coordinate in meters
+	 * @return longitude
+	 */
+	public double toLongitude(final double x)
+	{
+		return this.referenceLongitude + x / this.metersPerDegreeLongitude;
+	}
+	
+	/**
+	 * Convert the given y coordinate back to the latitude, reverting {@link #toY(double)}.
+	 * @param y
+	 * 		y coordinate in meters
+	 * @return latitude
+	 */
+	public double toLatitude(final double y)
+	{
+		return this.referenceLatitude + y / this.metersPerDegreeLatitude;
+	}
+	
+	/**
+	 * Calculate the distance of the given location to the reference.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return distance in meters
+	 */
+	public double calculateDistance(final double latitude, final double longitude)
+	{
+		return CaloMath.sqrt(calculateSquaredDistance(this.referenceLatitude, this.referenceLongitude, latitude, longitude));
+	}
+	
+	/**
+	 * Calculate the distance between two locations.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @return distance between the locations in meters
+	 */
+	public double calculateDistance(
+			final double startLatitude,
+			final double startLongitude,
+			final double endLatitude,
+			final double endLongitude)
+	{
+		return CaloMath.sqrt(calculateSquaredDistance(startLatitude, startLongitude, endLatitude, endLongitude));
+	}
+	
+	/**
+	 * Calculate the squared distance between two locations, which is enough to compare distances and saves
+	 * the square root.
+	 * @param startLatitude
+	 * 		latitude of the starting location
+	 * @param startLongitude
+	 * 		longitude of the starting location
+	 * @param endLatitude
+	 * 		latitude of the ending location
+	 * @param endLongitude
+	 * 		longitude of the ending location
+	 * @return squared distance between the locations in square meters
+	 */
+	public double calculateSquaredDistance(
+			final double startLatitude,
+			final double startLongitude,
+			final double endLatitude,
+			final double endLongitude)
+	{
+		final double x = toX(endLongitude) - toX(startLongitude);
+		final double y = (endLatitude - startLatitude) * this.metersPerDegreeLatitude;
+		return x * x + y * y;
+	}
+	
+	@NonNull
+	@Override
+	public String toString()
+	{
+		return this.referenceLatitude + ", " + this.referenceLongitude;
+	}
+	
+}
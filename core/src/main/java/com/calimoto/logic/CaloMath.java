@@ -116,6 +116,21 @@ public class CaloMath
 		return Math.max(Math.min(value, max), min);
 	}
 	
+	/**
+	 * Return the value interpolated linearly between the given values.
+	 * @param start
+	 * 		value at fraction 0
+	 * @param end
+	 * 		value at fraction 1
+	 * @param fraction
+	 * 		fraction between 0 and 1
+	 * @return interpolated value
+	 */
+	public static double lerp(final double start, final double end, final double fraction)
+	{
+		return start + fraction * (end - start);
+	}
+	
 	/**
 	 * Return the floored value of the given value.
 	 * @param value
@@ -330,4 +345,17 @@ public class CaloMath
 		return Math.random();
 	}
 	
+	/**
+	 * Mix the bits of the given value so every input bit affects every output bit (finalizer of SplitMix64).
+	 * @param value
+	 * 		value to mix
+	 * @return mixed value
+	 */
+	static long mix(long value)
+	{
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+	
 }
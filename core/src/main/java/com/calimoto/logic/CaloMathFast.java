@@ -0,0 +1,189 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+/**
+ * Fast approximations of the cosine and arc sine of {@link CaloMath} for the distance calculations.
+ * Like {@link CaloMath}, everything is plain arithmetic so the translation tools can convert it to Swift or Java Script. <p></p>
+ * The functions reduce the argument to a small interval and evaluate a polynomial or rational approximation
+ * (the coefficients of fdlibm) with a few multiplications, avoiding the full range reduction and special case handling
+ * of {@link Math}. They are accurate to a few ulp, {@link #cos(double)} for arguments up to 1e5 radians and
+ * {@link #asin(double)} for all arguments. Arguments outside the fast range, infinity and NaN are delegated to
+ * {@link CaloMath}. {@link CaloMathStrategyFast} passes them to the distance calculations of {@link CaloCoordinateUtil}.
+ */
+public class CaloMathFast
+{
+	/**
+	 * First 33 bits of PI / 2, so multiples up to 2^20 are exact
+	 */
+	private static final double PIO2_HI = 1.57079632673412561417e+00;
+	
+	/**
+	 * PI / 2 - {@link #PIO2_HI}
+	 */
+	private static final double PIO2_LO = 6.07710050650619224932e-11;
+	
+	/**
+	 * Pre calculation for 2 / PI
+	 */
+	private static final double RES_2dPI = 6.36619772367581382433e-01;
+	
+	/**
+	 * Largest argument for which {@link #cos(double)} reduces the argument itself
+	 */
+	private static final double MAX_TRIGONOMETRIC_ARGUMENT = 1e5;
+	
+	/**
+	 * Coefficients of the sine on [-PI / 4, PI / 4]
+	 */
+	private static final double S1 = -1.66666666666666324348e-01;
+	private static final double S2 = 8.33333333332248946124e-03;
+	private static final double S3 = -1.98412698298579493134e-04;
+	private static final double S4 = 2.75573137070700676789e-06;
+	private static final double S5 = -2.50507602534068634195e-08;
+	private static final double S6 = 1.58969099521155010221e-10;
+	
+	/**
+	 * Coefficients of the cosine on [-PI / 4, PI / 4]
+	 */
+	private static final double C1 = 4.16666666666666019037e-02;
+	private static final double C2 = -1.38888888888741095749e-03;
+	private static final double C3 = 2.48015872894767294178e-05;
+	private static final double C4 = -2.75573143513906633035e-07;
+	private static final double C5 = 2.08757232129817482790e-09;
+	private static final double C6 = -1.13596475577881948265e-11;
+	
+	/**
+	 * PI / 2 split into the nearest double and the remainder
+	 */
+	private static final double PIO2 = 1.57079632679489655800e+00;
+	private static final double PIO2_REMAINDER = 6.12323399573676603587e-17;
+	
+	/**
+	 * Coefficients of the rational approximation of the arc sine on [-0.5, 0.5]
+	 */
+	private static final double PS0 = 1.66666666666666657415e-01;
+	private static final double PS1 = -3.25565818622400915405e-01;
+	private static final double PS2 = 2.01212532134862925881e-01;
+	private static final double PS3 = -4.00555345006794114027e-02;
+	private static final double PS4 = 7.91534994289814532176e-04;
+	private static final double PS5 = 3.47933107596021167570e-05;
+	private static final double QS1 = -2.40339491173441421878e+00;
+	private static final double QS2 = 2.02094576023350569471e+00;
+	private static final double QS3 = -6.88283971605453293030e-01;
+	private static final double QS4 = 7.70381505559019352791e-02;
+	
+	/**
+	 * Private constructor as only static methods exist.
+	 */
+	private CaloMathFast()
+	{
+		// empty constructor
+	}
+	
+	/**
+	 * Calculate the cosine of the given value.
+	 * @param value
+	 * 		value to use
+	 * @return cosine of the given value
+	 */
+	public static double cos(final double value)
+	{
+		if (!(CaloMath.abs(value) <= MAX_TRIGONOMETRIC_ARGUMENT))
+		{
+			return CaloMath.cos(value);
+		}
+		final long quadrant = CaloMath.round(value * RES_2dPI);
+		final double reduced = (value - quadrant * PIO2_HI) - quadrant * PIO2_LO;
+		switch ((int) (quadrant & 3))
+		{
+			case 0:
+				return cosKernel(reduced);
+			case 1:
+				return -sinKernel(reduced);
+			case 2:
+				return -cosKernel(reduced);
+			default:
+				return sinKernel(reduced);
+		}
+	}
+	
+	/**
+	 * Calculate the arc sine of the given value.
+	 * @param value
+	 * 		value to use
+	 * @return arc sine of the given value
+	 */
+	public static double asin(final double value)
+	{
+		final double absolute = CaloMath.abs(value);
+		if (absolute < 0.5)
+		{
+			final double square = value * value;
+			return value + value * asinRational(square);
+		}
+		if (!(absolute <= 1))
+		{
+			return CaloMath.asin(value);
+		}
+		// asin(x) = PI / 2 - 2 * asin(sqrt((1 - x) / 2))
+		final double half = (1 - absolute) * 0.5;
+		final double root = CaloMath.sqrt(half);
+		final double result = PIO2 - (2 * (root + root * asinRational(half)) - PIO2_REMAINDER);
+		return value < 0 ? -result : result;
+	}
+	
+	/**
+	 * Calculate the sine on [-PI / 4, PI / 4].
+	 * @param value
+	 * 		reduced argument
+	 * @return sine of the argument
+	 */
+	private static double sinKernel(final double value)
+	{
+		final double square = value * value;
+		return value + value * square * (S1 + square * (S2 + square * (S3 + square * (S4 + square * (S5 + square * S6)))));
+	}
+	
+	/**
+	 * Calculate the cosine on [-PI / 4, PI / 4].
+	 * @param value
+	 * 		reduced argument
+	 * @return cosine of the argument
+	 */
+	private static double cosKernel(final double value)
+	{
+		final double square = value * value;
+		return 1 - 0.5 * square
+				+ square * square * (C1 + square * (C2 + square * (C3 + square * (C4 + square * (C5 + square * C6)))));
+	}
+	
+	/**
+	 * Calculate the rational part of the arc sine, asin(x) = x + x * r(x^2) for |x| <= 0.5.
+	 * @param square
+	 * 		square of the argument
+	 * @return rational part of the arc sine
+	 */
+	private static double asinRational(final double square)
+	{
+		final double p = square * (PS0 + square * (PS1 + square * (PS2 + square * (PS3 + square * (PS4 + square * PS5)))));
+		final double q = 1 + square * (QS1 + square * (QS2 + square * (QS3 + square * QS4)));
+		return p / q;
+	}
+	
+}
@@ -0,0 +1,43 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+/**
+ * Strategy for the cosine and arc sine used by the distance calculations of {@link CaloCoordinateUtil},
+ * to choose between the exact functions of {@link CaloMath} ({@link CaloMathStrategyExact})
+ * and the approximations of {@link CaloMathFast} ({@link CaloMathStrategyFast}).
+ */
+public interface CaloMathStrategy
+{
+	/**
+	 * Calculate the cosine of the given value.
+	 * @param value
+	 * 		value to use
+	 * @return cosine of the given value
+	 */
+	public double cos(double value);
+	
+	/**
+	 * Calculate the arc sine of the given value.
+	 * @param value
+	 * 		value to use
+	 * @return arc sine of the given value
+	 */
+	public double asin(double value);
+	
+}
@@ -0,0 +1,48 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+/**
+ * {@link CaloMathStrategy} for distances using the cosine and arc sine of {@link CaloMathFast}. The distances of
+ * {@link CaloCoordinateUtil} differ from the exact ones by less than 0.1 millimeters and are about 1.7 times faster
+ * on HotSpot, measured with the {@code CaloMathStrategyBenchmark}. <p></p>
+ * The normalization of latitudes has no strategy: {@link Math#sin(double)}, {@link Math#log(double)} and
+ * {@link Math#exp(double)} are compiler intrinsics on HotSpot, so approximations would be slower, and it has no budget
+ * for a less accurate polynomial, as the cosine of the haversine formula does not for short distances.
+ * {@link CaloLatitudeTable} approximates the normalization within a given error instead.
+ */
+public class CaloMathStrategyFast implements CaloMathStrategy
+{
+	/**
+	 * Shared instance
+	 */
+	public static final CaloMathStrategyFast INSTANCE = new CaloMathStrategyFast();
+	
+	@Override
+	public double cos(final double value)
+	{
+		return CaloMathFast.cos(value);
+	}
+	
+	@Override
+	public double asin(final double value)
+	{
+		return CaloMathFast.asin(value);
+	}
+	
+}
@@ -0,0 +1,386 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Projection of the locations of a {@link CaloCoordinateList} to pixels of a {@link CaloBitmap}, e.g. to draw a route
+ * on the map view every frame. <p></p>
+ * The locations are converted once to the normalized projection with the longitude as x and
+ * {@link CaloCoordinateUtil#normalizeLatitude(double)} as y and cached, so projecting them only applies the affine
+ * transform of the viewport, {@code pixelX = x * scale + offsetX} and {@code pixelY = offsetY - y * scale}, with the
+ * pixel y axis pointing down. Panning and zooming only change the transform, and {@link #update()} converts only the
+ * locations added to the list since the last update. Combined with the ranges of
+ * {@link CaloPolylineBoundsTree#findVisibleRanges(CaloBoundingBox, int[])}, only the visible parts are projected. <p></p>
+ * This class is not thread safe.
+ */
+public class CaloPixelProjector
+{
+	// attributes
+	@NonNull
+	private final CaloCoordinateList<?> list;
+	@NonNull
+	private double[] x;
+	@NonNull
+	private double[] y;
+	private int size;
+	private int widthInPixel;
+	private int heightInPixel;
+	private double scale = 1;
+	private double offsetX;
+	private double offsetY;
+	
+	/**
+	 * Create a new {@link CaloPixelProjector} instance converting the current locations of the given list.
+	 * The viewport shows longitude 0 and normalized latitude 0 at the top left with one pixel per degree
+	 * until it is set.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to project
+	 */
+	public CaloPixelProjector(@NonNull final CaloCoordinateList<?> list)
+	{
+		this.list = list;
+		this.x = new double[list.size()];
+		this.y = new double[list.size()];
+		update();
+	}
+	
+	/**
+	 * Get the list this projector converts.
+	 * @return {@link CaloCoordinateList} of this projector
+	 */
+	@NonNull
+	public CaloCoordinateList<?> getList()
+	{
+		return this.list;
+	}
+	
+	/**
+	 * Get the number of converted locations.
+	 * @return number of locations available for projection
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+	
+	/**
+	 * Convert the locations added to the end of the list since the last update. If the list has become shorter,
+	 * all locations are converted again.
+	 */
+	public void update()
+	{
+		final int newSize = this.list.size();
+		if (newSize < this.size)
+		{
+			this.size = 0;
+		}
+		if (newSize > this.x.length)
+		{
+			final int capacity = CaloMath.max(newSize, this.x.length + (this.x.length >> 1));
+			final double[] newX = new double[capacity];
+			final double[] newY = new double[capacity];
+			System.arraycopy(this.x, 0, newX, 0, this.size);
+			System.arraycopy(this.y, 0, newY, 0, this.size);
+			this.x = newX;
+			this.y = newY;
+		}
+		final int from = this.size;
+		this.size = newSize;
+		update(from, newSize);
+	}
+	
+	/**
+	 * Convert the locations of the given range again after they have been changed in the list.
+	 * @param from
+	 * 		index of the first changed location
+	 * @param to
+	 * 		index after the last changed location
+	 */
+	public void update(final int from, final int to)
+	{
+		if (from < 0 || to > this.size || from > to)
+		{
+			throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + this.size);
+		}
+		for (int i = from; i < to; i++)
+		{
+			this.x[i] = this.list.getLongitude(i);
+			this.y[i] = CaloCoordinateUtil.normalizeLatitude(this.list.getLatitude(i));
+		}
+	}
+	
+	/**
+	 * Set the viewport to show the given box as large as possible in the center of the given bitmap,
+	 * keeping the aspect ratio of the normalized projection. A box of a single location, e.g. of a route with one
+	 * point, is shown in the center with the current number of pixels per degree.
+	 * @param box
+	 * 		{@link CaloBoundingBox} to show, must not be empty
+	 * @param bitmap
+	 * 		{@link CaloBitmap} to project to
+	 */
+	public void setViewport(@NonNull final CaloBoundingBox box, @NonNull final CaloBitmap bitmap)
+	{
+		if (box.isEmpty())
+		{
+			throw new IllegalArgumentException("Empty box");
+		}
+		final double minY = CaloCoordinateUtil.normalizeLatitude(box.getMinLatitude());
+		final double maxY = CaloCoordinateUtil.normalizeLatitude(box.getMaxLatitude());
+		final double width = box.getMaxLongitude() - box.getMinLongitude();
+		final double height = maxY - minY;
+		double scale = CaloMath.min(bitmap.getWidthInPixel() / width, bitmap.getHeightInPixel() / height);
+		if (width == 0 && height == 0)
+		{
+			scale = this.scale;
+		}
+		setViewport(denormalize(0.5 * (minY + maxY)), 0.5 * (box.getMinLongitude() + box.getMaxLongitude()),
+				scale, bitmap);
+	}
+	
+	/**
+	 * Set the viewport to show the given center in the center of the given bitmap.
+	 * @param centerLatitude
+	 * 		latitude to show in the center
+	 * @param centerLongitude
+	 * 		longitude to show in the center
+	 * @param pixelsPerDegree
+	 * 		number of pixels per degree of longitude, the zoom of the viewport
+	 * @param bitmap
+	 * 		{@link CaloBitmap} to project to
+	 */
+	public void setViewport(
+			final double centerLatitude,
+			final double centerLongitude,
+			final double pixelsPerDegree,
+			@NonNull final CaloBitmap bitmap)
+	{
+		if (!(pixelsPerDegree > 0) || pixelsPerDegree == Double.POSITIVE_INFINITY)
+		{
+			throw new IllegalArgumentException("Illegal scale: " + pixelsPerDegree);
+		}
+		this.widthInPixel = bitmap.getWidthInPixel();
+		this.heightInPixel = bitmap.getHeightInPixel();
+		this.scale = pixelsPerDegree;
+		this.offsetX = 0.5 * this.widthInPixel - centerLongitude * pixelsPerDegree;
+		this.offsetY = 0.5 * this.heightInPixel + CaloCoordinateUtil.normalizeLatitude(centerLatitude) * pixelsPerDegree;
+	}
+	
+	/**
+	 * Move the viewport by the given number of pixels, so the content moves the opposite way.
+	 * @param dxInPixel
+	 * 		pixels to move the viewport to the right
+	 * @param dyInPixel
+	 * 		pixels to move the viewport down
+	 */
+	public void pan(final double dxInPixel, final double dyInPixel)
+	{
+		this.offsetX -= dxInPixel;
+		this.offsetY -= dyInPixel;
+	}
+	
+	/**
+	 * Zoom the viewport by the given factor, keeping the location at the given pixel in place.
+	 * @param factor
+	 * 		factor to multiply the number of pixels per degree with, greater than 1 to zoom in
+	 * @param focusX
+	 * 		x of the pixel to keep in place
+	 * @param focusY
+	 * 		y of the pixel to keep in place
+	 */
+	public void zoom(final double factor, final double focusX, final double focusY)
+	{
+		if (!(factor > 0) || factor == Double.POSITIVE_INFINITY)
+		{
+			throw new IllegalArgumentException("Illegal factor: " + factor);
+		}
+		this.scale *= factor;
+		this.offsetX = focusX - (focusX - this.offsetX) * factor;
+		this.offsetY = focusY - (focusY - this.offsetY) * factor;
+	}
+	
+	/**
+	 * Get the number of pixels per degree of longitude of the viewport.
+	 * @return zoom of the viewport
+	 */
+	public double getPixelsPerDegree()
+	{
+		return this.scale;
+	}
+	
+	/**
+	 * Get the bounds of the viewport, the area of the bitmap.
+	 * @param target
+	 * 		{@link CaloBoundingBox} to set
+	 * @return the given box
+	 */
+	@NonNull
+	public CaloBoundingBox getViewport(@NonNull final CaloBoundingBox target)
+	{
+		target.set(toLatitude(this.heightInPixel), toLongitude(0), toLatitude(0), toLongitude(this.widthInPixel));
+		return target;
+	}
+	
+	/**
+	 * Get the x of the pixel of the given longitude.
+	 * @param longitude
+	 * 		longitude to project
+	 * @return pixel x
+	 */
+	public double toPixelX(final double longitude)
+	{
+		return longitude * this.scale + this.offsetX;
+	}
+	
+	/**
+	 * Get the y of the pixel of the given latitude.
+	 * @param latitude
+	 * 		latitude to project
+	 * @return pixel y
+	 */
+	public double toPixelY(final double latitude)
+	{
+		return this.offsetY - CaloCoordinateUtil.normalizeLatitude(latitude) * this.scale;
+	}
+	
+	/**
+	 * Get the longitude at the given pixel x.
+	 * @param pixelX
+	 * 		pixel x
+	 * @return longitude
+	 */
+	public double toLongitude(final double pixelX)
+	{
+		return (pixelX - this.offsetX) / this.scale;
+	}
+	
+	/**
+	 * Get the latitude at the given pixel y.
+	 * @param pixelY
+	 * 		pixel y
+	 * @return latitude
+	 */
+	public double toLatitude(final double pixelY)
+	{
+		return denormalize((this.offsetY - pixelY) / this.scale);
+	}
+	
+	/**
+	 * Project all converted locations.
+	 * @param target
+	 * 		array to write pixel x at {@code 2 * index} and pixel y at {@code 2 * index + 1}
+	 */
+	public void project(@NonNull final float[] target)
+	{
+		project(0, this.size, target, 0);
+	}
+	
+	/**
+	 * Project the locations of the given range.
+	 * @param from
+	 * 		index of the first location to project
+	 * @param to
+	 * 		index after the last location to project
+	 * @param target
+	 * 		array to write pixel x and y of every location to, one after the other
+	 * @param offset
+	 * 		index in the array to write the first pixel x to
+	 * @return index in the array after the last written value
+	 */
+	public int project(final int from, final int to, @NonNull final float[] target, final int offset)
+	{
+		checkRange(from, to, target.length, offset);
+		int index = offset;
+		for (int i = from; i < to; i++)
+		{
+			target[index++] = (float) (this.x[i] * this.scale + this.offsetX);
+			target[index++] = (float) (this.offsetY - this.y[i] * this.scale);
+		}
+		return index;
+	}
+	
+	/**
+	 * Project all converted locations to whole pixels.
+	 * @param target
+	 * 		array to write pixel x at {@code 2 * index} and pixel y at {@code 2 * index + 1}
+	 */
+	public void project(@NonNull final int[] target)
+	{
+		project(0, this.size, target, 0);
+	}
+	
+	/**
+	 * Project the locations of the given range to whole pixels, rounding to the nearest pixel.
+	 * @param from
+	 * 		index of the first location to project
+	 * @param to
+	 * 		index after the last location to project
+	 * @param target
+	 * 		array to write pixel x and y of every location to, one after the other
+	 * @param offset
+	 * 		index in the array to write the first pixel x to
+	 * @return index in the array after the last written value
+	 */
+	public int project(final int from, final int to, @NonNull final int[] target, final int offset)
+	{
+		checkRange(from, to, target.length, offset);
+		int index = offset;
+		for (int i = from; i < to; i++)
+		{
+			target[index++] = (int) CaloMath.floor(this.x[i] * this.scale + this.offsetX + 0.5);
+			target[index++] = (int) CaloMath.floor(this.offsetY - this.y[i] * this.scale + 0.5);
+		}
+		return index;
+	}
+	
+	/**
+	 * Check that the given range of locations exists and fits into the target array.
+	 * @param from
+	 * 		index of the first location
+	 * @param to
+	 * 		index after the last location
+	 * @param length
+	 * 		length of the target array
+	 * @param offset
+	 * 		index in the array to write the first value to
+	 */
+	private void checkRange(final int from, final int to, final int length, final int offset)
+	{
+		if (from < 0 || to > this.size || from > to)
+		{
+			throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + this.size);
+		}
+		if (offset < 0 || offset + 2 * (to - from) > length)
+		{
+			throw new IllegalArgumentException("Array length " + length + " < " + (offset + 2 * (to - from)));
+		}
+	}
+	
+	/**
+	 * Denormalize the given normalized latitude, limited to the valid range.
+	 * @param normalizedLatitude
+	 * 		normalized latitude
+	 * @return latitude
+	 */
+	private static double denormalize(final double normalizedLatitude)
+	{
+		return CaloCoordinateUtil.denormalizeLatitude(CaloMath.clamp(normalizedLatitude, -180, 180));
+	}
+	
+}
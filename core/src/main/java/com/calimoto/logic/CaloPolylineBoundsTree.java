@@ -0,0 +1,508 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Segment tree of the bounding boxes of the segments of a polyline to find the parts of a long polyline
+ * within a viewport, e.g. the map view, in {@code O(log n + k)} for {@code k} visible parts. <p></p>
+ * All calculations take place in the normalized projection with the longitude as x and
+ * {@link CaloCoordinateUtil#normalizeLatitude(double)} as y, in which straight segments are drawn on the map.
+ * The segments are tested exactly with Cohen-Sutherland clipping, so only segments crossing the viewport are found,
+ * not the ones only passing a corner of it. Longitudes do not wrap at the antimeridian, like {@link CaloBoundingBox}.
+ * <p></p>
+ * The tree is a snapshot of the list at construction. The instance is immutable and can be shared between threads.
+ */
+public class CaloPolylineBoundsTree
+{
+	/**
+	 * Outcode of a location left of the viewport
+	 */
+	private static final int LEFT = 1;
+	
+	/**
+	 * Outcode of a location right of the viewport
+	 */
+	private static final int RIGHT = 2;
+	
+	/**
+	 * Outcode of a location below the viewport
+	 */
+	private static final int BOTTOM = 4;
+	
+	/**
+	 * Outcode of a location above the viewport
+	 */
+	private static final int TOP = 8;
+	
+	// attributes
+	/**
+	 * Longitude of every location
+	 */
+	@NonNull
+	private final double[] x;
+	/**
+	 * Normalized latitude of every location
+	 */
+	@NonNull
+	private final double[] y;
+	private final int segmentCount;
+	/**
+	 * Number of leaves, a power of two with leaf i at node {@code leafCount + i}
+	 */
+	private final int leafCount;
+	private final int height;
+	/**
+	 * Bounds of the inner nodes, root at index 1, children of node i at {@code 2 * i} and {@code 2 * i + 1}
+	 */
+	@NonNull
+	private final double[] minX;
+	@NonNull
+	private final double[] minY;
+	@NonNull
+	private final double[] maxX;
+	@NonNull
+	private final double[] maxY;
+	
+	/**
+	 * Create a new {@link CaloPolylineBoundsTree} instance of the current locations of the given list.
+	 * A single location is treated as a segment of zero length.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the polyline
+	 */
+	public CaloPolylineBoundsTree(@NonNull final CaloCoordinateList<?> list)
+	{
+		final int size = list.size();
+		this.x = new double[size];
+		this.y = new double[size];
+		for (int i = 0; i < size; i++)
+		{
+			this.x[i] = list.getLongitude(i);
+			this.y[i] = CaloCoordinateUtil.normalizeLatitude(list.getLatitude(i));
+		}
+		this.segmentCount = size > 1 ? size - 1 : size;
+		int leafCount = 1;
+		int height = 1;
+		while (leafCount < this.segmentCount)
+		{
+			leafCount <<= 1;
+			height++;
+		}
+		this.leafCount = leafCount;
+		this.height = height;
+		this.minX = new double[leafCount];
+		this.minY = new double[leafCount];
+		this.maxX = new double[leafCount];
+		this.maxY = new double[leafCount];
+		for (int node = leafCount - 1; node >= 1; node--)
+		{
+			final int left = 2 * node;
+			this.minX[node] = CaloMath.min(getMinX(left), getMinX(left + 1));
+			this.minY[node] = CaloMath.min(getMinY(left), getMinY(left + 1));
+			this.maxX[node] = CaloMath.max(getMaxX(left), getMaxX(left + 1));
+			this.maxY[node] = CaloMath.max(getMaxY(left), getMaxY(left + 1));
+		}
+	}
+	
+	/**
+	 * Get the number of locations of the polyline.
+	 * @return number of locations
+	 */
+	public int size()
+	{
+		return this.x.length;
+	}
+	
+	/**
+	 * Get the x value of the location at the given index in the normalized projection.
+	 * @param index
+	 * 		index of the location
+	 * @return longitude of the location
+	 */
+	public double getNormalizedX(final int index)
+	{
+		return this.x[index];
+	}
+	
+	/**
+	 * Get the y value of the location at the given index in the normalized projection.
+	 * @param index
+	 * 		index of the location
+	 * @return normalized latitude of the location
+	 */
+	public double getNormalizedY(final int index)
+	{
+		return this.y[index];
+	}
+	
+	/**
+	 * Find the parts of the polyline within the given viewport.
+	 * @param viewport
+	 * 		{@link CaloBoundingBox} of the viewport in latitudes and longitudes
+	 * @param ranges
+	 * 		array to fill with the ascending ranges of the visible locations, the range i from index {@code ranges[2 * i]}
+	 * 		to the index before {@code ranges[2 * i + 1]}, ranges exceeding its length are only counted
+	 * @return number of ranges
+	 */
+	public int findVisibleRanges(@NonNull final CaloBoundingBox viewport, @NonNull final int[] ranges)
+	{
+		if (viewport.isEmpty())
+		{
+			return 0;
+		}
+		return findVisibleRanges(viewport.getMinLongitude(), CaloCoordinateUtil.normalizeLatitude(viewport.getMinLatitude()),
+				viewport.getMaxLongitude(), CaloCoordinateUtil.normalizeLatitude(viewport.getMaxLatitude()), ranges);
+	}
+	
+	/**
+	 * Find the parts of the polyline within the given viewport in the normalized projection. Every range contains
+	 * the locations of consecutive segments crossing the viewport, including the locations outside of it.
+	 * @param minX
+	 * 		minimum longitude of the viewport
+	 * @param minY
+	 * 		minimum normalized latitude of the viewport
+	 * @param maxX
+	 * 		maximum longitude of the viewport
+	 * @param maxY
+	 * 		maximum normalized latitude of the viewport
+	 * @param ranges
+	 * 		array to fill with the ascending ranges of the visible locations, the range i from index {@code ranges[2 * i]}
+	 * 		to the index before {@code ranges[2 * i + 1]}, ranges exceeding its length are only counted
+	 * @return number of ranges
+	 */
+	public int findVisibleRanges(
+			final double minX,
+			final double minY,
+			final double maxX,
+			final double maxY,
+			@NonNull final int[] ranges)
+	{
+		if (this.segmentCount == 0)
+		{
+			return 0;
+		}
+		int count = 0;
+		int from = -1;
+		int to = -1;
+		// iterative depth first traversal visiting the segments in ascending order
+		final int[] stack = new int[2 * this.height];
+		int stackSize = 0;
+		stack[stackSize++] = 1;
+		while (stackSize > 0)
+		{
+			final int node = stack[--stackSize];
+			if (getMinX(node) > maxX || getMaxX(node) < minX || getMinY(node) > maxY || getMaxY(node) < minY)
+			{
+				continue;
+			}
+			if (node < this.leafCount)
+			{
+				stack[stackSize++] = 2 * node + 1;
+				stack[stackSize++] = 2 * node;
+				continue;
+			}
+			final int segment = node - this.leafCount;
+			final int end = end(segment);
+			if (!clipSegment(this.x[segment], this.y[segment], this.x[end], this.y[end], minX, minY, maxX, maxY, null))
+			{
+				continue;
+			}
+			if (to == segment + 1)
+			{
+				to = end + 1;
+				continue;
+			}
+			if (from >= 0)
+			{
+				count = add(ranges, count, from, to);
+			}
+			from = segment;
+			to = end + 1;
+		}
+		if (from >= 0)
+		{
+			count = add(ranges, count, from, to);
+		}
+		return count;
+	}
+	
+	/**
+	 * Clip the segment from the location at the given index to the next location to the given viewport
+	 * in the normalized projection.
+	 * @param segment
+	 * 		index of the start location of the segment
+	 * @param minX
+	 * 		minimum longitude of the viewport
+	 * @param minY
+	 * 		minimum normalized latitude of the viewport
+	 * @param maxX
+	 * 		maximum longitude of the viewport
+	 * @param maxY
+	 * 		maximum normalized latitude of the viewport
+	 * @param result
+	 * 		array to write x and y of the clipped start and end to or null
+	 * @return true if a part of the segment lies within the viewport, else false
+	 */
+	public boolean clipSegment(
+			final int segment,
+			final double minX,
+			final double minY,
+			final double maxX,
+			final double maxY,
+			@Nullable final double[] result)
+	{
+		if (segment < 0 || segment >= this.segmentCount)
+		{
+			throw new IndexOutOfBoundsException("Segment: " + segment + ", Segments: " + this.segmentCount);
+		}
+		final int end = end(segment);
+		return clipSegment(this.x[segment], this.y[segment], this.x[end], this.y[end], minX, minY, maxX, maxY, result);
+	}
+	
+	/**
+	 * Clip the given segment to the given rectangle with the Cohen-Sutherland algorithm.
+	 * @param startX
+	 * 		x of the start of the segment
+	 * @param startY
+	 * 		y of the start of the segment
+	 * @param endX
+	 * 		x of the end of the segment
+	 * @param endY
+	 * 		y of the end of the segment
+	 * @param minX
+	 * 		minimum x of the rectangle
+	 * @param minY
+	 * 		minimum y of the rectangle
+	 * @param maxX
+	 * 		maximum x of the rectangle
+	 * @param maxY
+	 * 		maximum y of the rectangle
+	 * @param result
+	 * 		array to write x and y of the clipped start and end to or null
+	 * @return true if a part of the segment lies within the rectangle, including its border, else false
+	 */
+	public static boolean clipSegment(
+			double startX,
+			double startY,
+			double endX,
+			double endY,
+			final double minX,
+			final double minY,
+			final double maxX,
+			final double maxY,
+			@Nullable final double[] result)
+	{
+		int startCode = outcode(startX, startY, minX, minY, maxX, maxY);
+		int endCode = outcode(endX, endY, minX, minY, maxX, maxY);
+		while ((startCode | endCode) != 0)
+		{
+			if ((startCode & endCode) != 0)
+			{
+				return false;
+			}
+			// move the end outside of the rectangle onto the edge it lies beyond
+			final int code = startCode != 0 ? startCode : endCode;
+			final double clippedX;
+			final double clippedY;
+			if ((code & TOP) != 0)
+			{
+				clippedX = startX + (endX - startX) * (maxY - startY) / (endY - startY);
+				clippedY = maxY;
+			}
+			else if ((code & BOTTOM) != 0)
+			{
+				clippedX = startX + (endX - startX) * (minY - startY) / (endY - startY);
+				clippedY = minY;
+			}
+			else if ((code & RIGHT) != 0)
+			{
+				clippedX = maxX;
+				clippedY = startY + (endY - startY) * (maxX - startX) / (endX - startX);
+			}
+			else
+			{
+				clippedX = minX;
+				clippedY = startY + (endY - startY) * (minX - startX) / (endX - startX);
+			}
+			if (code == startCode)
+			{
+				startX = clippedX;
+				startY = clippedY;
+				startCode = outcode(startX, startY, minX, minY, maxX, maxY);
+			}
+			else
+			{
+				endX = clippedX;
+				endY = clippedY;
+				endCode = outcode(endX, endY, minX, minY, maxX, maxY);
+			}
+		}
+		if (result != null)
+		{
+			result[0] = startX;
+			result[1] = startY;
+			result[2] = endX;
+			result[3] = endY;
+		}
+		return true;
+	}
+	
+	/**
+	 * Calculate the Cohen-Sutherland outcode of the given location.
+	 * @param x
+	 * 		x of the location
+	 * @param y
+	 * 		y of the location
+	 * @param minX
+	 * 		minimum x of the rectangle
+	 * @param minY
+	 * 		minimum y of the rectangle
+	 * @param maxX
+	 * 		maximum x of the rectangle
+	 * @param maxY
+	 * 		maximum y of the rectangle
+	 * @return bits of the sides of the rectangle the location lies beyond, 0 if inside
+	 */
+	private static int outcode(
+			final double x,
+			final double y,
+			final double minX,
+			final double minY,
+			final double maxX,
+			final double maxY)
+	{
+		int code = 0;
+		if (x < minX)
+		{
+			code |= LEFT;
+		}
+		else if (x > maxX)
+		{
+			code |= RIGHT;
+		}
+		if (y < minY)
+		{
+			code |= BOTTOM;
+		}
+		else if (y > maxY)
+		{
+			code |= TOP;
+		}
+		return code;
+	}
+	
+	/**
+	 * Get the index of the end location of the given segment.
+	 * @param segment
+	 * 		index of the start location
+	 * @return index of the end location, the start location itself for a single location
+	 */
+	private int end(final int segment)
+	{
+		return CaloMath.min(segment + 1, this.x.length - 1);
+	}
+	
+	/**
+	 * Get the minimum x of the given node.
+	 * @param node
+	 * 		inner node or leaf
+	 * @return minimum x, infinite for a leaf without segment
+	 */
+	private double getMinX(final int node)
+	{
+		if (node < this.leafCount)
+		{
+			return this.minX[node];
+		}
+		final int segment = node - this.leafCount;
+		return segment < this.segmentCount ? CaloMath.min(this.x[segment], this.x[end(segment)]) : Double.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * Get the minimum y of the given node.
+	 * @param node
+	 * 		inner node or leaf
+	 * @return minimum y, infinite for a leaf without segment
+	 */
+	private double getMinY(final int node)
+	{
+		if (node < this.leafCount)
+		{
+			return this.minY[node];
+		}
+		final int segment = node - this.leafCount;
+		return segment < this.segmentCount ? CaloMath.min(this.y[segment], this.y[end(segment)]) : Double.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * Get the maximum x of the given node.
+	 * @param node
+	 * 		inner node or leaf
+	 * @return maximum x, negative infinite for a leaf without segment
+	 */
+	private double getMaxX(final int node)
+	{
+		if (node < this.leafCount)
+		{
+			return this.maxX[node];
+		}
+		final int segment = node - this.leafCount;
+		return segment < this.segmentCount ? CaloMath.max(this.x[segment], this.x[end(segment)]) : Double.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * Get the maximum y of the given node.
+	 * @param node
+	 * 		inner node or leaf
+	 * @return maximum y, negative infinite for a leaf without segment
+	 */
+	private double getMaxY(final int node)
+	{
+		if (node < this.leafCount)
+		{
+			return this.maxY[node];
+		}
+		final int segment = node - this.leafCount;
+		return segment < this.segmentCount ? CaloMath.max(this.y[segment], this.y[end(segment)]) : Double.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * Add the range to the array if there is space left.
+	 * @param ranges
+	 * 		array to add to
+	 * @param count
+	 * 		number of ranges added so far
+	 * @param from
+	 * 		index of the first location of the range
+	 * @param to
+	 * 		index after the last location of the range
+	 * @return new number of ranges
+	 */
+	private static int add(@NonNull final int[] ranges, final int count, final int from, final int to)
+	{
+		if (2 * count + 1 < ranges.length)
+		{
+			ranges[2 * count] = from;
+			ranges[2 * count + 1] = to;
+		}
+		return count + 1;
+	}
+	
+}
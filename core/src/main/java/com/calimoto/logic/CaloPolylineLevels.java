@@ -0,0 +1,151 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Tolerances at which the coordinates of a polyline are removed by the Douglas-Peucker simplification,
+ * created by {@link CaloPolylineSimplifier#createLevels(CaloCoordinateList)}. <p></p>
+ * The coordinates form the tree of the Douglas-Peucker splits, whose in-order is the order of the polyline.
+ * As the tolerance of a coordinate is never greater than the one of its parent, the coordinates kept for a tolerance
+ * form a subtree at the root, so {@link #extract(double, int[])} only visits the kept coordinates. The instance is
+ * immutable and can be shared between threads.
+ */
+public class CaloPolylineLevels
+{
+	// attributes
+	@NonNull
+	private final double[] tolerances;
+	@NonNull
+	private final int[] left;
+	@NonNull
+	private final int[] right;
+	private final int root;
+	private final int height;
+	
+	/**
+	 * Create a new {@link CaloPolylineLevels} instance.
+	 * @param tolerances
+	 * 		tolerance in meters up to which every coordinate is kept
+	 * @param left
+	 * 		left child of every split coordinate or -1
+	 * @param right
+	 * 		right child of every split coordinate or -1
+	 * @param root
+	 * 		first split coordinate or -1
+	 * @param height
+	 * 		height of the split tree
+	 */
+	CaloPolylineLevels(
+			@NonNull final double[] tolerances,
+			@NonNull final int[] left,
+			@NonNull final int[] right,
+			final int root,
+			final int height)
+	{
+		this.tolerances = tolerances;
+		this.left = left;
+		this.right = right;
+		this.root = root;
+		this.height = height;
+	}
+	
+	/**
+	 * Get the number of coordinates of the polyline.
+	 * @return number of coordinates
+	 */
+	public int size()
+	{
+		return this.tolerances.length;
+	}
+	
+	/**
+	 * Get the tolerance up to which the coordinate at the given index is kept.
+	 * @param index
+	 * 		index of the coordinate
+	 * @return tolerance in meters, infinite for the first and last coordinate
+	 */
+	public double getTolerance(final int index)
+	{
+		return this.tolerances[index];
+	}
+	
+	/**
+	 * Get the indexes of the coordinates kept by the simplification with the given tolerance,
+	 * equal to {@link CaloPolylineSimplifier#simplify(CaloCoordinateList, double, boolean[])}.
+	 * @param toleranceInMeters
+	 * 		maximum distance in meters of a removed coordinate to the simplified polyline
+	 * @param indices
+	 * 		array to fill with the ascending indexes of the kept coordinates, indexes exceeding its length are only counted
+	 * @return number of kept coordinates
+	 */
+	public int extract(final double toleranceInMeters, @NonNull final int[] indices)
+	{
+		final int size = this.tolerances.length;
+		if (size == 0)
+		{
+			return 0;
+		}
+		int count = add(indices, 0, 0);
+		// iterative in-order traversal of the subtree of coordinates with a greater tolerance
+		final int[] stack = new int[this.height];
+		int stackSize = 0;
+		int node = this.root;
+		while (true)
+		{
+			while (node >= 0 && this.tolerances[node] > toleranceInMeters)
+			{
+				stack[stackSize++] = node;
+				node = this.left[node];
+			}
+			if (stackSize == 0)
+			{
+				break;
+			}
+			node = stack[--stackSize];
+			count = add(indices, count, node);
+			node = this.right[node];
+		}
+		if (size > 1)
+		{
+			count = add(indices, count, size - 1);
+		}
+		return count;
+	}
+	
+	/**
+	 * Add the index to the array if there is space left.
+	 * @param indices
+	 * 		array to add to
+	 * @param count
+	 * 		number of indexes added so far
+	 * @param index
+	 * 		index to add
+	 * @return new number of indexes
+	 */
+	private static int add(@NonNull final int[] indices, final int count, final int index)
+	{
+		if (count < indices.length)
+		{
+			indices[count] = index;
+		}
+		return count + 1;
+	}
+	
+}
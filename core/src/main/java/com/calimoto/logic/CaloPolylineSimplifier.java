@@ -0,0 +1,291 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Douglas-Peucker simplification of polylines stored in a {@link CaloCoordinateList}. <p></p>
+ * Distances are measured in the normalized space of {@link CaloCoordinateUtil#normalizeLatitude(double)}
+ * and converted to meters by the scale at the latitude of the measured point. The implementation is iterative,
+ * so it handles tracks of millions of points without running out of stack.
+ */
+public class CaloPolylineSimplifier
+{
+	/**
+	 * Simplify the given polyline by marking the coordinates to keep.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the polyline
+	 * @param toleranceInMeters
+	 * 		maximum distance in meters of a removed coordinate to the simplified polyline
+	 * @param keep
+	 * 		array of at least the size of the list, set to true for every coordinate to keep and false otherwise
+	 * @return number of coordinates to keep
+	 */
+	public static int simplify(
+			@NonNull final CaloCoordinateList<?> list,
+			final double toleranceInMeters,
+			@NonNull final boolean[] keep)
+	{
+		final int size = list.size();
+		if (keep.length < size)
+		{
+			throw new IllegalArgumentException("Array length " + keep.length + " < list size " + size);
+		}
+		for (int i = 0; i < size; i++)
+		{
+			keep[i] = false;
+		}
+		if (size <= 2)
+		{
+			for (int i = 0; i < size; i++)
+			{
+				keep[i] = true;
+			}
+			return size;
+		}
+		final Projection projection = new Projection(list);
+		keep[0] = true;
+		keep[size - 1] = true;
+		int count = 2;
+		int[] stack = new int[64];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		stack[stackSize++] = size - 1;
+		while (stackSize > 0)
+		{
+			final int end = stack[--stackSize];
+			final int start = stack[--stackSize];
+			final int farthest = projection.findFarthest(start, end);
+			if (farthest >= 0 && projection.farthestDistance > toleranceInMeters)
+			{
+				keep[farthest] = true;
+				count++;
+				if (stackSize + 4 > stack.length)
+				{
+					final int[] newStack = new int[2 * stack.length];
+					System.arraycopy(stack, 0, newStack, 0, stackSize);
+					stack = newStack;
+				}
+				stack[stackSize++] = start;
+				stack[stackSize++] = farthest;
+				stack[stackSize++] = farthest;
+				stack[stackSize++] = end;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Simplify the given polyline into a new {@link CaloCoordinateList}.
+	 * Performs a shallow copy of the kept elements.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the polyline
+	 * @param toleranceInMeters
+	 * 		maximum distance in meters of a removed coordinate to the simplified polyline
+	 * @param listFactory
+	 * 		{@link CaloCoordinateListFactory} to create the simplified list
+	 * @param <Coordinate>
+	 * 		{@link CaloCoordinate} type
+	 * @param <ListType>
+	 * 		type of the simplified list
+	 * @return simplified list
+	 */
+	@NonNull
+	public static <Coordinate extends CaloCoordinate, ListType extends CaloCoordinateList<Coordinate>> ListType simplify(
+			@NonNull final CaloCoordinateList<? extends Coordinate> list,
+			final double toleranceInMeters,
+			@NonNull final CaloCoordinateListFactory<Coordinate, ListType> listFactory)
+	{
+		final boolean[] keep = new boolean[list.size()];
+		final ListType simplified = listFactory.create(simplify(list, toleranceInMeters, keep));
+		for (int i = 0; i < keep.length; i++)
+		{
+			if (keep[i])
+			{
+				simplified.add(list.get(i));
+			}
+		}
+		return simplified;
+	}
+	
+	/**
+	 * Precompute the tolerance at which every coordinate of the given polyline is removed,
+	 * to extract the simplification for any tolerance, e.g. per zoom level, in time proportional to the output.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the polyline
+	 * @return {@link CaloPolylineLevels} of the polyline
+	 */
+	@NonNull
+	public static CaloPolylineLevels createLevels(@NonNull final CaloCoordinateList<?> list)
+	{
+		final int size = list.size();
+		final double[] tolerances = new double[size];
+		final int[] left = new int[size];
+		final int[] right = new int[size];
+		if (size <= 2)
+		{
+			for (int i = 0; i < size; i++)
+			{
+				tolerances[i] = Double.POSITIVE_INFINITY;
+			}
+			return new CaloPolylineLevels(tolerances, left, right, -1, 0);
+		}
+		final Projection projection = new Projection(list);
+		tolerances[0] = Double.POSITIVE_INFINITY;
+		tolerances[size - 1] = Double.POSITIVE_INFINITY;
+		// intervals to split with the tolerance of the parent and the slot to link the split coordinate into
+		int[] stack = new int[64];
+		double[] parentTolerances = new double[32];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		stack[stackSize++] = size - 1;
+		stack[stackSize++] = -1;
+		stack[stackSize++] = 0;
+		parentTolerances[0] = Double.POSITIVE_INFINITY;
+		int root = -1;
+		int height = 0;
+		while (stackSize > 0)
+		{
+			final int depth = stack[--stackSize];
+			final int link = stack[--stackSize];
+			final int end = stack[--stackSize];
+			final int start = stack[--stackSize];
+			final double parentTolerance = parentTolerances[stackSize / 4];
+			final int farthest = projection.findFarthest(start, end);
+			if (farthest < 0)
+			{
+				continue;
+			}
+			tolerances[farthest] = CaloMath.min(projection.farthestDistance, parentTolerance);
+			left[farthest] = -1;
+			right[farthest] = -1;
+			if (link < 0)
+			{
+				root = farthest;
+			}
+			else if ((link & 1) == 0)
+			{
+				left[link >> 1] = farthest;
+			}
+			else
+			{
+				right[link >> 1] = farthest;
+			}
+			height = CaloMath.max(height, depth + 1);
+			if (stackSize + 8 > stack.length)
+			{
+				final int[] newStack = new int[2 * stack.length];
+				System.arraycopy(stack, 0, newStack, 0, stackSize);
+				stack = newStack;
+				final double[] newParentTolerances = new double[stack.length / 4];
+				System.arraycopy(parentTolerances, 0, newParentTolerances, 0, stackSize / 4);
+				parentTolerances = newParentTolerances;
+			}
+			parentTolerances[stackSize / 4] = tolerances[farthest];
+			stack[stackSize++] = start;
+			stack[stackSize++] = farthest;
+			stack[stackSize++] = farthest << 1;
+			stack[stackSize++] = depth + 1;
+			parentTolerances[stackSize / 4] = tolerances[farthest];
+			stack[stackSize++] = farthest;
+			stack[stackSize++] = end;
+			stack[stackSize++] = (farthest << 1) | 1;
+			stack[stackSize++] = depth + 1;
+		}
+		return new CaloPolylineLevels(tolerances, left, right, root, height);
+	}
+	
+	/**
+	 * Polyline projected into the normalized space with the scale in meters per normalized degree at every coordinate.
+	 */
+	private static final class Projection
+	{
+		// attributes
+		@NonNull
+		private final double[] x;
+		@NonNull
+		private final double[] y;
+		@NonNull
+		private final double[] scale;
+		/**
+		 * Distance in meters of the coordinate found by the last {@link #findFarthest(int, int)}
+		 */
+		private double farthestDistance;
+		
+		/**
+		 * Create a new {@link Projection} instance.
+		 * @param list
+		 * 		{@link CaloCoordinateList} to project
+		 */
+		private Projection(@NonNull final CaloCoordinateList<?> list)
+		{
+			final int size = list.size();
+			this.x = new double[size];
+			this.y = new double[size];
+			this.scale = new double[size];
+			for (int i = 0; i < size; i++)
+			{
+				final double latitude = list.getLatitude(i);
+				this.x[i] = list.getLongitude(i);
+				this.y[i] = CaloCoordinateUtil.normalizeLatitude(latitude);
+				this.scale[i] = CaloCoordinateUtil.METERS_PER_DEGREE * CaloCoordinateUtil.cosLatitude(latitude);
+			}
+		}
+		
+		/**
+		 * Find the coordinate between start and end farthest from the segment between them.
+		 * @param start
+		 * 		index of the start coordinate
+		 * @param end
+		 * 		index of the end coordinate
+		 * @return index of the farthest coordinate or -1 if there is no coordinate between start and end
+		 */
+		private int findFarthest(final int start, final int end)
+		{
+			final double startX = this.x[start];
+			final double startY = this.y[start];
+			final double deltaX = this.x[end] - startX;
+			final double deltaY = this.y[end] - startY;
+			final double lengthSquared = deltaX * deltaX + deltaY * deltaY;
+			int farthest = -1;
+			double farthestDistanceSquared = -1;
+			for (int i = start + 1; i < end; i++)
+			{
+				double offsetX = this.x[i] - startX;
+				double offsetY = this.y[i] - startY;
+				if (lengthSquared > 0)
+				{
+					final double fraction = CaloMath.clamp((offsetX * deltaX + offsetY * deltaY) / lengthSquared, 0.0, 1.0);
+					offsetX -= fraction * deltaX;
+					offsetY -= fraction * deltaY;
+				}
+				final double distanceSquared = (offsetX * offsetX + offsetY * offsetY) * this.scale[i] * this.scale[i];
+				if (distanceSquared > farthestDistanceSquared)
+				{
+					farthest = i;
+					farthestDistanceSquared = distanceSquared;
+				}
+			}
+			this.farthestDistance = CaloMath.sqrt(farthestDistanceSquared);
+			return farthest;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,371 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Snaps locations, e.g. GPS fixes during navigation, to the nearest point on the segments of a route
+ * stored in a {@link CaloCoordinateList}. <p></p>
+ * The segments are bucketed into a uniform grid in the normalized space of {@link CaloCoordinateUtil#normalizeLatitude(double)},
+ * a segment being registered in the cells it passes and their neighbors, so a segment not registered in the rings of
+ * cells up to a ring is at least one more cell away. A query first checks the segments around the hint, usually the
+ * segment of the previous fix, which win over equally near segments, e.g. where the route runs back on itself. Then it
+ * only visits the rings of cells which may contain a nearer segment, so for a fix within a cell of the route the query
+ * ends after the center cell and following the route costs the hinted segments and the segments of one cell per fix.
+ * Queries do not allocate and write into a {@link Result} owned by the caller. <p></p>
+ * The projection onto a segment is calculated in a local flat frame around the queried location, which is exact
+ * enough for segments within a few kilometers. Points appended to the route are indexed by {@link #update()}.
+ * Queries do not modify the snapper, so concurrent queries are safe as long as no update runs.
+ */
+public class CaloRouteSnapper
+{
+	/**
+	 * Result of {@link #snap(double, double, int, Result)}, create one per navigation session and thread and reuse it for every fix.
+	 */
+	public static final class Result
+	{
+		// attributes
+		/**
+		 * Walk over the grid cells, kept here so queries do not allocate
+		 */
+		@NonNull
+		private final CaloCellRing ring = new CaloCellRing();
+		private int segmentIndex = -1;
+		private double fraction;
+		private double distance;
+		private double latitude;
+		private double longitude;
+		
+		/**
+		 * Get the index of the segment, which starts at the coordinate of the same index.
+		 * @return index of the segment or -1 if the route has no segment
+		 */
+		public int getSegmentIndex()
+		{
+			return this.segmentIndex;
+		}
+		
+		/**
+		 * Get the fraction along the segment of the snapped point.
+		 * @return fraction from 0 at the start to 1 at the end of the segment
+		 */
+		public double getFraction()
+		{
+			return this.fraction;
+		}
+		
+		/**
+		 * Get the distance from the queried location to the snapped point.
+		 * @return distance in meters
+		 */
+		public double getDistance()
+		{
+			return this.distance;
+		}
+		
+		/**
+		 * Get the latitude of the snapped point.
+		 * @return latitude of the snapped point
+		 */
+		public double getLatitude()
+		{
+			return this.latitude;
+		}
+		
+		/**
+		 * Get the longitude of the snapped point.
+		 * @return longitude of the snapped point
+		 */
+		public double getLongitude()
+		{
+			return this.longitude;
+		}
+		
+	}
+	
+	/**
+	 * Number of segments checked before the hint
+	 */
+	private static final int HINT_BEFORE = 2;
+	
+	/**
+	 * Number of segments checked after the hint
+	 */
+	private static final int HINT_AFTER = 8;
+	
+	private static final int MIN_CAPACITY = 16;
+	
+	// attributes
+	@NonNull
+	private final CaloCoordinateList<?> route;
+	private final double cellSizeInMeters;
+	/**
+	 * Cell size in normalized degrees, derived from the latitude of the first point
+	 */
+	private double cellSize;
+	@NonNull
+	private final CaloCellTable cells = new CaloCellTable();
+	/**
+	 * Latitude at {@code 2 * index} and longitude at {@code 2 * index + 1}
+	 */
+	@NonNull
+	private double[] locations = new double[2 * MIN_CAPACITY];
+	private int size;
+	/**
+	 * Segment of every grid entry
+	 */
+	@NonNull
+	private int[] entrySegments = new int[MIN_CAPACITY];
+	/**
+	 * Next entry of the same cell or {@link CaloCellTable#NONE}
+	 */
+	@NonNull
+	private int[] entryNext = new int[MIN_CAPACITY];
+	private int entryCount;
+	private int minCellX = Integer.MAX_VALUE;
+	private int maxCellX = Integer.MIN_VALUE;
+	private int minCellY = Integer.MAX_VALUE;
+	private int maxCellY = Integer.MIN_VALUE;
+	
+	/**
+	 * Create a new {@link CaloRouteSnapper} instance and index all segments of the given route.
+	 * @param route
+	 * 		{@link CaloCoordinateList} of the route
+	 * @param cellSizeInMeters
+	 * 		edge length of a grid cell in meters at the latitude of the first point,
+	 * 		should be about the typical distance of a fix to the route
+	 */
+	public CaloRouteSnapper(@NonNull final CaloCoordinateList<?> route, final double cellSizeInMeters)
+	{
+		if (!(cellSizeInMeters > 0))
+		{
+			throw new IllegalArgumentException("Illegal cell size: " + cellSizeInMeters);
+		}
+		this.route = route;
+		this.cellSizeInMeters = cellSizeInMeters;
+		update();
+	}
+	
+	/**
+	 * Get the number of indexed segments.
+	 * @return number of indexed segments
+	 */
+	public int getSegmentCount()
+	{
+		return CaloMath.max(this.size - 1, 0);
+	}
+	
+	/**
+	 * Index all segments added to the end of the route since the last update.
+	 */
+	public void update()
+	{
+		final int routeSize = this.route.size();
+		if (routeSize < this.size)
+		{
+			throw new IllegalStateException("Route shrunk from " + this.size + " to " + routeSize + ", create a new snapper");
+		}
+		for (int i = this.size; i < routeSize; i++)
+		{
+			addPoint(this.route.getLatitude(i), this.route.getLongitude(i));
+		}
+	}
+	
+	/**
+	 * Snap the given location to the nearest point on the route.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param hint
+	 * 		segment index of the previous fix or -1 if unknown, the segments around it are preferred if equally near
+	 * @param result
+	 * 		{@link Result} to write the snapped point to
+	 * @return true if the location was snapped, false if the route has no segment
+	 */
+	public boolean snap(final double latitude, final double longitude, final int hint, @NonNull final Result result)
+	{
+		final int segmentCount = getSegmentCount();
+		result.segmentIndex = -1;
+		result.distance = Double.POSITIVE_INFINITY;
+		if (segmentCount == 0)
+		{
+			return false;
+		}
+		final double scaleX = CaloCoordinateUtil.METERS_PER_DEGREE * CaloCoordinateUtil.cosLatitude(latitude);
+		if (hint >= 0 && hint < segmentCount)
+		{
+			final int end = CaloMath.min(hint + HINT_AFTER, segmentCount - 1);
+			for (int segment = CaloMath.max(hint - HINT_BEFORE, 0); segment <= end; segment++)
+			{
+				check(latitude, longitude, scaleX, segment, result);
+			}
+		}
+		final CaloCellRing ring = result.ring;
+		// segments are registered one cell around the cells they pass, rows and cells visited are limited to about
+		// the cost of checking all segments
+		ring.start(longitude, CaloCoordinateUtil.normalizeLatitude(latitude), this.cellSize, 1,
+				this.minCellX, this.minCellY, this.maxCellX, this.maxCellY, 2 * segmentCount);
+		while (ring.next(result.distance))
+		{
+			for (int entry = this.cells.get(ring.getCellX(), ring.getCellY()); entry != CaloCellTable.NONE;
+					entry = this.entryNext[entry])
+			{
+				check(latitude, longitude, scaleX, this.entrySegments[entry], result);
+			}
+		}
+		if (ring.isOverBudget())
+		{
+			// the segments are spread over much more cells, e.g. for a location far from the route
+			for (int segment = 0; segment < segmentCount; segment++)
+			{
+				check(latitude, longitude, scaleX, segment, result);
+			}
+		}
+		final int start = result.segmentIndex;
+		result.latitude = CaloMath.lerp(this.locations[2 * start], this.locations[2 * start + 2], result.fraction);
+		result.longitude = CaloMath.lerp(this.locations[2 * start + 1], this.locations[2 * start + 3], result.fraction);
+		result.distance = CaloCoordinateUtil.calculateDistance(latitude, longitude, result.latitude, result.longitude);
+		return true;
+	}
+	
+	/**
+	 * Project the location onto the given segment and keep it in the result if it is nearer than the current one.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param scaleX
+	 * 		meters per degree of longitude at the location
+	 * @param segment
+	 * 		index of the segment
+	 * @param result
+	 * 		{@link Result} with the nearest segment so far, distance in the local flat frame
+	 */
+	private void check(
+			final double latitude,
+			final double longitude,
+			final double scaleX,
+			final int segment,
+			@NonNull final Result result)
+	{
+		final double startX = (this.locations[2 * segment + 1] - longitude) * scaleX;
+		final double startY = (this.locations[2 * segment] - latitude) * CaloCoordinateUtil.METERS_PER_DEGREE;
+		final double deltaX = (this.locations[2 * segment + 3] - longitude) * scaleX - startX;
+		final double deltaY = (this.locations[2 * segment + 2] - latitude) * CaloCoordinateUtil.METERS_PER_DEGREE - startY;
+		final double lengthSquared = deltaX * deltaX + deltaY * deltaY;
+		final double fraction = lengthSquared == 0 ? 0
+				: CaloMath.clamp(-(startX * deltaX + startY * deltaY) / lengthSquared, 0.0, 1.0);
+		final double x = startX + fraction * deltaX;
+		final double y = startY + fraction * deltaY;
+		final double distance = CaloMath.sqrt(x * x + y * y);
+		if (distance < result.distance)
+		{
+			result.segmentIndex = segment;
+			result.fraction = fraction;
+			result.distance = distance;
+		}
+	}
+	
+	/**
+	 * Add a point to the route and register the segment ending at it in the grid.
+	 * @param latitude
+	 * 		latitude of the point
+	 * @param longitude
+	 * 		longitude of the point
+	 */
+	private void addPoint(final double latitude, final double longitude)
+	{
+		if (this.size == 0)
+		{
+			this.cellSize = this.cellSizeInMeters
+					/ CaloCoordinateGridIndex.metersPerDegree(CaloMath.abs(CaloCoordinateUtil.normalizeLatitude(latitude)));
+		}
+		if (2 * this.size == this.locations.length)
+		{
+			final double[] newLocations = new double[2 * (this.size + (this.size >> 1))];
+			System.arraycopy(this.locations, 0, newLocations, 0, 2 * this.size);
+			this.locations = newLocations;
+		}
+		this.locations[2 * this.size] = latitude;
+		this.locations[2 * this.size + 1] = longitude;
+		this.size++;
+		if (this.size < 2)
+		{
+			return;
+		}
+		final int segment = this.size - 2;
+		// walk the rows of cells passed by the segment, widened by one cell for the rounding at the cell borders
+		final double x0 = this.locations[2 * segment + 1] / this.cellSize;
+		final double y0 = CaloCoordinateUtil.normalizeLatitude(this.locations[2 * segment]) / this.cellSize;
+		final double x1 = longitude / this.cellSize;
+		final double y1 = CaloCoordinateUtil.normalizeLatitude(latitude) / this.cellSize;
+		final int firstRow = (int) CaloMath.floor(CaloMath.min(y0, y1)) - 1;
+		final int lastRow = (int) CaloMath.floor(CaloMath.max(y0, y1)) + 1;
+		for (int row = firstRow; row <= lastRow; row++)
+		{
+			double xa = x0;
+			double xb = x1;
+			if (y1 != y0)
+			{
+				// part of the segment within the row widened by one cell
+				xa = CaloMath.lerp(x0, x1, CaloMath.clamp((row - 1 - y0) / (y1 - y0), 0, 1));
+				xb = CaloMath.lerp(x0, x1, CaloMath.clamp((row + 2 - y0) / (y1 - y0), 0, 1));
+			}
+			final int fromX = (int) CaloMath.floor(CaloMath.min(xa, xb)) - 1;
+			final int toX = (int) CaloMath.floor(CaloMath.max(xa, xb)) + 1;
+			for (int cellX = fromX; cellX <= toX; cellX++)
+			{
+				addEntry(cellX, row, segment);
+			}
+			this.minCellX = CaloMath.min(this.minCellX, fromX);
+			this.maxCellX = CaloMath.max(this.maxCellX, toX);
+		}
+		this.minCellY = CaloMath.min(this.minCellY, firstRow);
+		this.maxCellY = CaloMath.max(this.maxCellY, lastRow);
+	}
+	
+	/**
+	 * Register the segment in the given cell.
+	 * @param cellX
+	 * 		x index of the cell
+	 * @param cellY
+	 * 		y index of the cell
+	 * @param segment
+	 * 		index of the segment
+	 */
+	private void addEntry(final int cellX, final int cellY, final int segment)
+	{
+		if (this.entryCount == this.entrySegments.length)
+		{
+			final int capacity = this.entryCount + (this.entryCount >> 1);
+			final int[] newSegments = new int[capacity];
+			System.arraycopy(this.entrySegments, 0, newSegments, 0, this.entryCount);
+			this.entrySegments = newSegments;
+			final int[] newNext = new int[capacity];
+			System.arraycopy(this.entryNext, 0, newNext, 0, this.entryCount);
+			this.entryNext = newNext;
+		}
+		this.entrySegments[this.entryCount] = segment;
+		this.entryNext[this.entryCount] = this.cells.get(cellX, cellY);
+		this.cells.put(cellX, cellY, this.entryCount);
+		this.entryCount++;
+	}
+	
+}
@@ -0,0 +1,440 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of the segments of a set of tracks by the Web Mercator tiles of one zoom level they cross, e.g. to render
+ * route overlays as map tiles on the fly. <p></p>
+ * Every segment is assigned to the tiles of its rows it passes, extended by a buffer in pixels for the width of the
+ * drawn line, so a few tiles near the corners of the extended segment are included without being touched by it.
+ * A single location is treated as a segment of zero length. The ranges of each tile are stored in one array, so a
+ * lookup of a tile costs a hash lookup and an array copy. Tiles are addressed like {@link CaloTileUtil}.
+ * <p></p>
+ * The index is a snapshot of the tracks at construction. The instance is immutable and can be shared between threads.
+ */
+public class CaloTileIndex
+{
+	// attributes
+	private final int zoom;
+	private final int trackCount;
+	/**
+	 * Ordinal of every occupied tile
+	 */
+	@NonNull
+	private final CaloCellTable tiles;
+	@NonNull
+	private final int[] tileX;
+	@NonNull
+	private final int[] tileY;
+	/**
+	 * First range of the tile with ordinal i at {@code offsets[i]}, with {@code offsets[tileCount]} being the range count
+	 */
+	@NonNull
+	private final int[] offsets;
+	/**
+	 * Track, first location and location after the last one of range i at {@code 3 * i}, {@code 3 * i + 1}
+	 * and {@code 3 * i + 2}
+	 */
+	@NonNull
+	private final int[] ranges;
+	
+	/**
+	 * Create a new {@link CaloTileIndex} instance of the current locations of the given tracks without buffer.
+	 * @param tracks
+	 * 		tracks to index, addressed by their index in the list
+	 * @param zoom
+	 * 		zoom level of the tiles
+	 */
+	public CaloTileIndex(@NonNull final List<? extends CaloCoordinateList<?>> tracks, final int zoom)
+	{
+		this(tracks, zoom, 0);
+	}
+	
+	/**
+	 * Create a new {@link CaloTileIndex} instance of the current locations of the given tracks.
+	 * @param tracks
+	 * 		tracks to index, addressed by their index in the list
+	 * @param zoom
+	 * 		zoom level of the tiles
+	 * @param bufferInPixels
+	 * 		distance in pixels to a segment within which tiles are assigned to it, e.g. half the line width
+	 */
+	public CaloTileIndex(
+			@NonNull final List<? extends CaloCoordinateList<?>> tracks,
+			final int zoom,
+			final double bufferInPixels)
+	{
+		CaloTileUtil.checkZoom(zoom);
+		if (!(bufferInPixels >= 0))
+		{
+			throw new IllegalArgumentException("Illegal buffer: " + bufferInPixels);
+		}
+		this.zoom = zoom;
+		this.trackCount = tracks.size();
+		// project every location only once for both passes
+		final int[] trackOffsets = new int[this.trackCount + 1];
+		for (int track = 0; track < this.trackCount; track++)
+		{
+			trackOffsets[track + 1] = trackOffsets[track] + tracks.get(track).size();
+		}
+		final double[] x = new double[trackOffsets[this.trackCount]];
+		final double[] y = new double[x.length];
+		for (int track = 0; track < this.trackCount; track++)
+		{
+			final CaloCoordinateList<?> list = tracks.get(track);
+			final int offset = trackOffsets[track];
+			for (int i = 0; i < list.size(); i++)
+			{
+				x[offset + i] = CaloTileUtil.longitudeToTileX(list.getLongitude(i), zoom);
+				y[offset + i] = CaloTileUtil.latitudeToTileY(list.getLatitude(i), zoom);
+			}
+		}
+		final double buffer = bufferInPixels / CaloTileUtil.TILE_SIZE;
+		final Buckets buckets = new Buckets();
+		rasterize(buckets, x, y, trackOffsets, buffer, zoom);
+		buckets.startFilling();
+		rasterize(buckets, x, y, trackOffsets, buffer, zoom);
+		buckets.finishFilling();
+		this.tiles = buckets.tiles;
+		this.tileX = buckets.tileX;
+		this.tileY = buckets.tileY;
+		this.offsets = buckets.offsets;
+		this.ranges = buckets.ranges;
+	}
+	
+	/**
+	 * Get the zoom level of the tiles.
+	 * @return zoom level
+	 */
+	public int getZoom()
+	{
+		return this.zoom;
+	}
+	
+	/**
+	 * Get the number of indexed tracks.
+	 * @return number of tracks
+	 */
+	public int getTrackCount()
+	{
+		return this.trackCount;
+	}
+	
+	/**
+	 * Get the number of tiles crossed by any track.
+	 * @return number of occupied tiles
+	 */
+	public int getTileCount()
+	{
+		return this.tiles.size();
+	}
+	
+	/**
+	 * Get the tiles crossed by any track in the order of their first crossing.
+	 * @param tiles
+	 * 		array to fill with the tiles, the tile i with x at {@code tiles[2 * i]} and y at {@code tiles[2 * i + 1]},
+	 * 		tiles exceeding its length are only counted
+	 * @return number of occupied tiles
+	 */
+	public int getTiles(@NonNull final int[] tiles)
+	{
+		final int tileCount = this.tiles.size();
+		final int count = CaloMath.min(tileCount, tiles.length / 2);
+		for (int i = 0; i < count; i++)
+		{
+			tiles[2 * i] = this.tileX[i];
+			tiles[2 * i + 1] = this.tileY[i];
+		}
+		return tileCount;
+	}
+	
+	/**
+	 * Get the number of ranges crossing the given tile, e.g. to size the array for {@link #find(int, int, int[])}.
+	 * @param tileX
+	 * 		column of the tile
+	 * @param tileY
+	 * 		row of the tile
+	 * @return number of ranges
+	 */
+	public int getRangeCount(final int tileX, final int tileY)
+	{
+		final int ordinal = this.tiles.get(tileX, tileY);
+		return ordinal == CaloCellTable.NONE ? 0 : this.offsets[ordinal + 1] - this.offsets[ordinal];
+	}
+	
+	/**
+	 * Find the parts of the tracks crossing the given tile. Every range contains the locations of consecutive segments
+	 * of a track crossing the tile, including the locations outside of it. The ranges are ordered by track and location.
+	 * @param tileX
+	 * 		column of the tile
+	 * @param tileY
+	 * 		row of the tile
+	 * @param ranges
+	 * 		array to fill with the ranges, the range i of the track with index {@code ranges[3 * i]} from location
+	 * 		{@code ranges[3 * i + 1]} to the location before {@code ranges[3 * i + 2]}, ranges exceeding its length
+	 * 		are only counted
+	 * @return number of ranges
+	 */
+	public int find(final int tileX, final int tileY, @NonNull final int[] ranges)
+	{
+		final int ordinal = this.tiles.get(tileX, tileY);
+		if (ordinal == CaloCellTable.NONE)
+		{
+			return 0;
+		}
+		final int from = this.offsets[ordinal];
+		final int count = this.offsets[ordinal + 1] - from;
+		System.arraycopy(this.ranges, 3 * from, ranges, 0, 3 * CaloMath.min(count, ranges.length / 3));
+		return count;
+	}
+	
+	/**
+	 * Assign every segment of the given tracks to the tiles it crosses.
+	 * @param buckets
+	 * 		{@link Buckets} to add the segments to
+	 * @param x
+	 * 		tile x with fraction of every location
+	 * @param y
+	 * 		tile y with fraction of every location
+	 * @param trackOffsets
+	 * 		index of the first location of every track in the coordinate arrays, followed by their length
+	 * @param buffer
+	 * 		buffer in tiles
+	 * @param zoom
+	 * 		zoom level of the tiles
+	 */
+	private static void rasterize(
+			@NonNull final Buckets buckets,
+			@NonNull final double[] x,
+			@NonNull final double[] y,
+			@NonNull final int[] trackOffsets,
+			final double buffer,
+			final int zoom)
+	{
+		for (int track = 0; track < trackOffsets.length - 1; track++)
+		{
+			final int offset = trackOffsets[track];
+			final int size = trackOffsets[track + 1] - offset;
+			if (size == 1)
+			{
+				rasterize(buckets, x[offset], y[offset], x[offset], y[offset], buffer, zoom, track, 0, 1);
+			}
+			for (int segment = 0; segment < size - 1; segment++)
+			{
+				final int index = offset + segment;
+				rasterize(buckets, x[index], y[index], x[index + 1], y[index + 1], buffer, zoom, track, segment, segment + 2);
+			}
+		}
+	}
+	
+	/**
+	 * Assign the given segment to the tiles it crosses, row by row with the part of the segment within the row.
+	 * @param buckets
+	 * 		{@link Buckets} to add the segment to
+	 * @param x0
+	 * 		tile x of the start
+	 * @param y0
+	 * 		tile y of the start
+	 * @param x1
+	 * 		tile x of the end
+	 * @param y1
+	 * 		tile y of the end
+	 * @param buffer
+	 * 		buffer in tiles
+	 * @param zoom
+	 * 		zoom level of the tiles
+	 * @param track
+	 * 		index of the track
+	 * @param from
+	 * 		index of the first location of the segment
+	 * @param to
+	 * 		index after the last location of the segment
+	 */
+	private static void rasterize(
+			@NonNull final Buckets buckets,
+			final double x0,
+			final double y0,
+			final double x1,
+			final double y1,
+			final double buffer,
+			final int zoom,
+			final int track,
+			final int from,
+			final int to)
+	{
+		final double minY = CaloMath.min(y0, y1);
+		final double maxY = CaloMath.max(y0, y1);
+		final int lastRow = CaloTileUtil.toTile(maxY + buffer, zoom);
+		for (int row = CaloTileUtil.toTile(minY - buffer, zoom); row <= lastRow; row++)
+		{
+			double xa = x0;
+			double xb = x1;
+			if (maxY > minY)
+			{
+				// part of the segment within the row extended by the buffer
+				final double fromFraction = CaloMath.clamp((row - buffer - y0) / (y1 - y0), 0, 1);
+				final double toFraction = CaloMath.clamp((row + 1 + buffer - y0) / (y1 - y0), 0, 1);
+				xa = CaloMath.lerp(x0, x1, fromFraction);
+				xb = CaloMath.lerp(x0, x1, toFraction);
+			}
+			final int lastColumn = CaloTileUtil.toTile(CaloMath.max(xa, xb) + buffer, zoom);
+			for (int column = CaloTileUtil.toTile(CaloMath.min(xa, xb) - buffer, zoom); column <= lastColumn; column++)
+			{
+				buckets.add(column, row, track, from, to);
+			}
+		}
+	}
+	
+	/**
+	 * Ranges of the tiles while building the index, first counted and then filled in a second pass in the same order.
+	 */
+	private static final class Buckets
+	{
+		// attributes
+		@NonNull
+		private final CaloCellTable tiles = new CaloCellTable();
+		@NonNull
+		private int[] tileX = new int[16];
+		@NonNull
+		private int[] tileY = new int[16];
+		/**
+		 * Number of ranges of every tile while counting, index of the next range while filling
+		 */
+		@NonNull
+		private int[] offsets = new int[16];
+		/**
+		 * Track of the last range of every tile
+		 */
+		@NonNull
+		private int[] lastTrack = new int[16];
+		/**
+		 * Index after the last location of the last range of every tile
+		 */
+		@NonNull
+		private int[] lastTo = new int[16];
+		@NonNull
+		private int[] ranges = new int[0];
+		private boolean filling;
+		
+		/**
+		 * Add the given segment to the given tile, extending the last range of the tile if the segment continues it.
+		 * @param tileX
+		 * 		column of the tile
+		 * @param tileY
+		 * 		row of the tile
+		 * @param track
+		 * 		index of the track
+		 * @param from
+		 * 		index of the first location of the segment
+		 * @param to
+		 * 		index after the last location of the segment
+		 */
+		private void add(final int tileX, final int tileY, final int track, final int from, final int to)
+		{
+			int ordinal = this.tiles.get(tileX, tileY);
+			if (ordinal == CaloCellTable.NONE)
+			{
+				ordinal = addTile(tileX, tileY);
+			}
+			if (this.lastTrack[ordinal] == track && this.lastTo[ordinal] > from)
+			{
+				this.lastTo[ordinal] = to;
+				if (this.filling)
+				{
+					this.ranges[3 * (this.offsets[ordinal] - 1) + 2] = to;
+				}
+				return;
+			}
+			this.lastTrack[ordinal] = track;
+			this.lastTo[ordinal] = to;
+			if (this.filling)
+			{
+				final int range = this.offsets[ordinal]++;
+				this.ranges[3 * range] = track;
+				this.ranges[3 * range + 1] = from;
+				this.ranges[3 * range + 2] = to;
+			}
+			else
+			{
+				this.offsets[ordinal]++;
+			}
+		}
+		
+		/**
+		 * Add the given tile while counting.
+		 * @param tileX
+		 * 		column of the tile
+		 * @param tileY
+		 * 		row of the tile
+		 * @return ordinal of the tile
+		 */
+		private int addTile(final int tileX, final int tileY)
+		{
+			final int ordinal = this.tiles.size();
+			if (ordinal == this.tileX.length)
+			{
+				final int capacity = ordinal + (ordinal >> 1);
+				this.tileX = Arrays.copyOf(this.tileX, capacity);
+				this.tileY = Arrays.copyOf(this.tileY, capacity);
+				this.offsets = Arrays.copyOf(this.offsets, capacity);
+				this.lastTrack = Arrays.copyOf(this.lastTrack, capacity);
+				this.lastTo = Arrays.copyOf(this.lastTo, capacity);
+			}
+			this.tiles.put(tileX, tileY, ordinal);
+			this.tileX[ordinal] = tileX;
+			this.tileY[ordinal] = tileY;
+			this.lastTrack[ordinal] = -1;
+			return ordinal;
+		}
+		
+		/**
+		 * Turn the counts into offsets and allocate the ranges for the second pass.
+		 */
+		private void startFilling()
+		{
+			final int tileCount = this.tiles.size();
+			this.tileX = Arrays.copyOf(this.tileX, tileCount);
+			this.tileY = Arrays.copyOf(this.tileY, tileCount);
+			final int[] counts = this.offsets;
+			this.offsets = new int[tileCount + 1];
+			for (int i = 0; i < tileCount; i++)
+			{
+				this.offsets[i + 1] = this.offsets[i] + counts[i];
+				this.lastTrack[i] = -1;
+			}
+			this.ranges = new int[3 * this.offsets[tileCount]];
+			this.filling = true;
+		}
+		
+		/**
+		 * After the second pass, every offset points to the first range of the next tile, so shift them back.
+		 */
+		private void finishFilling()
+		{
+			System.arraycopy(this.offsets, 0, this.offsets, 1, this.offsets.length - 1);
+			this.offsets[0] = 0;
+		}
+		
+	}
+	
+}
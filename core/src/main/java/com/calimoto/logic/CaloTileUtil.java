@@ -0,0 +1,296 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Util class for the addressing of Web Mercator map tiles by zoom level z, column x and row y, with x growing to the
+ * east and y growing to the south from the top left tile 0/0/0. <p></p>
+ * The tile coordinates are the normalized coordinates of {@link CaloCoordinateUtil#normalizeLatitude(double)} scaled
+ * to the world of {@code 2^z} tiles, so latitudes are limited to about 85.0511 degrees like the normalized latitude.
+ * Pixels are world pixels of {@link #TILE_SIZE} pixels per tile, the pixel of a location within its tile is
+ * {@code pixel - TILE_SIZE * tile}. Longitudes do not wrap at the antimeridian.
+ * {@link CaloTileIndex} finds the parts of tracks crossing a tile.
+ */
+public class CaloTileUtil
+{
+	/**
+	 * Width and height of a tile in pixels
+	 */
+	public static final int TILE_SIZE = 256;
+	
+	/**
+	 * Maximum supported zoom level, so tile indexes fit into an {@code int}
+	 */
+	public static final int MAX_ZOOM = 30;
+	
+	/**
+	 * Private constructor as only static methods exist.
+	 */
+	private CaloTileUtil()
+	{
+		// empty constructor
+	}
+	
+	/**
+	 * Get the number of tiles in each direction of the given zoom level.
+	 * @param zoom
+	 * 		zoom level
+	 * @return {@code 2^zoom}
+	 */
+	public static int getTileCount(final int zoom)
+	{
+		checkZoom(zoom);
+		return 1 << zoom;
+	}
+	
+	/**
+	 * Convert the given longitude to a tile x with fraction at the given zoom level.
+	 * @param longitude
+	 * 		longitude to convert
+	 * @param zoom
+	 * 		zoom level
+	 * @return tile x with fraction, from 0 at -180 degrees to {@code 2^zoom} at 180 degrees
+	 */
+	public static double longitudeToTileX(final double longitude, final int zoom)
+	{
+		return (longitude + 180) / 360 * getTileCount(zoom);
+	}
+	
+	/**
+	 * Convert the given latitude to a tile y with fraction at the given zoom level.
+	 * @param latitude
+	 * 		latitude to convert
+	 * @param zoom
+	 * 		zoom level
+	 * @return tile y with fraction, from 0 at the north to {@code 2^zoom} at the south
+	 */
+	public static double latitudeToTileY(final double latitude, final int zoom)
+	{
+		return normalizedLatitudeToTileY(CaloCoordinateUtil.normalizeLatitude(latitude), zoom);
+	}
+	
+	/**
+	 * Convert the given normalized latitude to a tile y with fraction at the given zoom level.
+	 * @param normalizedLatitude
+	 * 		latitude normalized by {@link CaloCoordinateUtil#normalizeLatitude(double)}
+	 * @param zoom
+	 * 		zoom level
+	 * @return tile y with fraction, from 0 at the north to {@code 2^zoom} at the south
+	 */
+	public static double normalizedLatitudeToTileY(final double normalizedLatitude, final int zoom)
+	{
+		return (180 - normalizedLatitude) / 360 * getTileCount(zoom);
+	}
+	
+	/**
+	 * Get the column of the tile containing the given longitude.
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param zoom
+	 * 		zoom level
+	 * @return tile x, limited to the existing tiles
+	 */
+	public static int getTileX(final double longitude, final int zoom)
+	{
+		return toTile(longitudeToTileX(longitude, zoom), zoom);
+	}
+	
+	/**
+	 * Get the row of the tile containing the given latitude.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param zoom
+	 * 		zoom level
+	 * @return tile y, limited to the existing tiles
+	 */
+	public static int getTileY(final double latitude, final int zoom)
+	{
+		return toTile(latitudeToTileY(latitude, zoom), zoom);
+	}
+	
+	/**
+	 * Get the longitude of the given tile x with fraction, e.g. the west edge of a tile.
+	 * @param tileX
+	 * 		tile x with fraction
+	 * @param zoom
+	 * 		zoom level
+	 * @return longitude
+	 */
+	public static double tileXToLongitude(final double tileX, final int zoom)
+	{
+		return tileX / getTileCount(zoom) * 360 - 180;
+	}
+	
+	/**
+	 * Get the latitude of the given tile y with fraction, e.g. the north edge of a tile.
+	 * @param tileY
+	 * 		tile y with fraction
+	 * @param zoom
+	 * 		zoom level
+	 * @return latitude
+	 */
+	public static double tileYToLatitude(final double tileY, final int zoom)
+	{
+		return CaloCoordinateUtil.denormalizeLatitude(180 - tileY / getTileCount(zoom) * 360);
+	}
+	
+	/**
+	 * Convert the given longitude to a world pixel x at the given zoom level.
+	 * @param longitude
+	 * 		longitude to convert
+	 * @param zoom
+	 * 		zoom level
+	 * @return pixel x with fraction
+	 */
+	public static double longitudeToPixelX(final double longitude, final int zoom)
+	{
+		return TILE_SIZE * longitudeToTileX(longitude, zoom);
+	}
+	
+	/**
+	 * Convert the given latitude to a world pixel y at the given zoom level.
+	 * @param latitude
+	 * 		latitude to convert
+	 * @param zoom
+	 * 		zoom level
+	 * @return pixel y with fraction
+	 */
+	public static double latitudeToPixelY(final double latitude, final int zoom)
+	{
+		return TILE_SIZE * latitudeToTileY(latitude, zoom);
+	}
+	
+	/**
+	 * Convert the given world pixel x to a longitude at the given zoom level.
+	 * @param pixelX
+	 * 		pixel x with fraction
+	 * @param zoom
+	 * 		zoom level
+	 * @return longitude
+	 */
+	public static double pixelXToLongitude(final double pixelX, final int zoom)
+	{
+		return tileXToLongitude(pixelX / TILE_SIZE, zoom);
+	}
+	
+	/**
+	 * Convert the given world pixel y to a latitude at the given zoom level.
+	 * @param pixelY
+	 * 		pixel y with fraction
+	 * @param zoom
+	 * 		zoom level
+	 * @return latitude
+	 */
+	public static double pixelYToLatitude(final double pixelY, final int zoom)
+	{
+		return tileYToLatitude(pixelY / TILE_SIZE, zoom);
+	}
+	
+	/**
+	 * Get the bounding box of the given tile.
+	 * @param tileX
+	 * 		column of the tile
+	 * @param tileY
+	 * 		row of the tile
+	 * @param zoom
+	 * 		zoom level
+	 * @param target
+	 * 		{@link CaloBoundingBox} to set
+	 * @return the given box
+	 */
+	@NonNull
+	public static CaloBoundingBox getTileBoundingBox(
+			final int tileX,
+			final int tileY,
+			final int zoom,
+			@NonNull final CaloBoundingBox target)
+	{
+		target.set(tileYToLatitude(tileY + 1, zoom), tileXToLongitude(tileX, zoom),
+				tileYToLatitude(tileY, zoom), tileXToLongitude(tileX + 1, zoom));
+		return target;
+	}
+	
+	/**
+	 * Get the range of the tiles covered by the given bounding box.
+	 * @param box
+	 * 		{@link CaloBoundingBox} to cover
+	 * @param zoom
+	 * 		zoom level
+	 * @param range
+	 * 		array to write minimum x, minimum y, maximum x and maximum y of the tiles to, all inclusive
+	 * @return number of covered tiles, 0 if the box is empty
+	 */
+	public static long getTileRange(@NonNull final CaloBoundingBox box, final int zoom, @NonNull final int[] range)
+	{
+		if (box.isEmpty())
+		{
+			return 0;
+		}
+		range[0] = getTileX(box.getMinLongitude(), zoom);
+		range[1] = getTileY(box.getMaxLatitude(), zoom);
+		range[2] = getTileX(box.getMaxLongitude(), zoom);
+		range[3] = getTileY(box.getMinLatitude(), zoom);
+		return (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1);
+	}
+	
+	/**
+	 * Combine the given tile address to a single key, e.g. for a cache.
+	 * @param tileX
+	 * 		column of the tile
+	 * @param tileY
+	 * 		row of the tile
+	 * @param zoom
+	 * 		zoom level
+	 * @return key of the tile, unique for all zoom levels, with the keys of each zoom level following the ones
+	 * 		of the lower zoom levels
+	 */
+	public static long toKey(final int tileX, final int tileY, final int zoom)
+	{
+		checkZoom(zoom);
+		return ((1L << 2 * zoom) - 1) / 3 + ((long) tileY << zoom) + tileX;
+	}
+	
+	/**
+	 * Get the index of the tile containing the given tile coordinate.
+	 * @param tile
+	 * 		tile x or y with fraction
+	 * @param zoom
+	 * 		zoom level
+	 * @return tile index, limited to the existing tiles
+	 */
+	static int toTile(final double tile, final int zoom)
+	{
+		return (int) CaloMath.clamp(CaloMath.floor(tile), 0, (1 << zoom) - 1);
+	}
+	
+	/**
+	 * Check that the given zoom level is supported.
+	 * @param zoom
+	 * 		zoom level to check
+	 */
+	static void checkZoom(final int zoom)
+	{
+		if (zoom < 0 || zoom > MAX_ZOOM)
+		{
+			throw new IllegalArgumentException("Illegal zoom: " + zoom);
+		}
+	}
+	
+}
@@ -85,4 +85,26 @@ public class CaloTimeUtil
 		return WEEK_IN_MILLIS * weeks;
 	}
 	
+	/**
+	 * Convert the given number of milliseconds into seconds.
+	 * @param millis
+	 * 		number of milliseconds to convert
+	 * @return given number of milliseconds in seconds
+	 */
+	public static double millisToSeconds(final long millis)
+	{
+		return millis / (double) SECOND_IN_MILLIS;
+	}
+	
+	/**
+	 * Convert the given number of milliseconds into hours.
+	 * @param millis
+	 * 		number of milliseconds to convert
+	 * @return given number of milliseconds in hours
+	 */
+	public static double millisToHours(final long millis)
+	{
+		return millis / (double) HOUR_IN_MILLIS;
+	}
+	
 }
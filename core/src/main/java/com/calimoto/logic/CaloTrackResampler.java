@@ -0,0 +1,272 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Resampling of tracks to locations at a fixed distance along the track, e.g. to compare or
+ * average tracks recorded with different GPS rates. <p></p>
+ * The resampled track starts with the first location, continues with a location every interval and ends with the last
+ * location. The locations are interpolated linearly in latitude and longitude between the original locations,
+ * using the distances of {@link CaloCoordinateUtil#calculateCumulativeDistances(CaloCoordinateList, double[])}.
+ * {@link CaloCoordinateListParallel} gives the same results for long tracks using several cores.
+ * {@link CaloTrackResamplerStreaming} resamples in a single pass into a preallocated list, also by time.
+ */
+public class CaloTrackResampler
+{
+	/**
+	 * Private constructor as only static methods exist.
+	 */
+	private CaloTrackResampler()
+	{
+		// empty constructor
+	}
+	
+	/**
+	 * Get the number of locations of a track of the given length resampled at the given interval.
+	 * @param length
+	 * 		length of the track in meters
+	 * @param intervalInMeters
+	 * 		distance between the resampled locations in meters
+	 * @return number of resampled locations including the first and the last location
+	 */
+	public static int getResampledSize(final double length, final double intervalInMeters)
+	{
+		if (!(intervalInMeters > 0))
+		{
+			throw new IllegalArgumentException("Illegal interval: " + intervalInMeters);
+		}
+		final double intervals = CaloMath.floor(length / intervalInMeters);
+		if (intervals >= Integer.MAX_VALUE - 1)
+		{
+			throw new IllegalArgumentException("Interval " + intervalInMeters + " too small for length " + length);
+		}
+		final int size = (int) intervals + 1;
+		return (size - 1) * intervalInMeters < length ? size + 1 : size;
+	}
+	
+	/**
+	 * Get the number of locations of a track of the given duration resampled at the given time interval.
+	 * @param durationInMillis
+	 * 		duration of the track in milliseconds
+	 * @param intervalInMillis
+	 * 		time between the resampled locations in milliseconds
+	 * @return number of resampled locations including the first and the last location
+	 */
+	public static int getResampledSize(final long durationInMillis, final long intervalInMillis)
+	{
+		if (intervalInMillis <= 0)
+		{
+			throw new IllegalArgumentException("Illegal interval: " + intervalInMillis);
+		}
+		final long intervals = durationInMillis / intervalInMillis;
+		if (intervals >= Integer.MAX_VALUE - 1)
+		{
+			throw new IllegalArgumentException("Interval " + intervalInMillis + " too small for duration " + durationInMillis);
+		}
+		return intervals * intervalInMillis < durationInMillis ? (int) intervals + 2 : (int) intervals + 1;
+	}
+	
+	/**
+	 * Resample the given track to locations at the given interval along the track into the given list in a single pass,
+	 * see {@link CaloTrackResamplerStreaming#byDistance(CaloCoordinateListPacked, double)}. No garbage is produced if
+	 * the capacity of the list is sufficient.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param intervalInMeters
+	 * 		distance between the resampled locations in meters
+	 * @param target
+	 * 		{@link CaloCoordinateListPacked} to replace the content of with the resampled track,
+	 * 		not the list itself or a view of it
+	 */
+	public static void resample(
+			@NonNull final CaloCoordinateList<?> list,
+			final double intervalInMeters,
+			@NonNull final CaloCoordinateListPacked<?> target)
+	{
+		checkTarget(list, target);
+		final CaloTrackResamplerStreaming resampler = CaloTrackResamplerStreaming.byDistance(target, intervalInMeters);
+		target.removeAll();
+		resampler.addAll(list);
+		resampler.finish();
+	}
+	
+	/**
+	 * Resample the given track to locations at the given time interval into the given list in a single pass,
+	 * see {@link CaloTrackResamplerStreaming#byTime(CaloCoordinateListPacked, long)}. No garbage is produced if
+	 * the capacity of the list is sufficient, see {@link #getResampledSize(long, long)}.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param timesInMillis
+	 * 		ascending timestamp in milliseconds of every location of the list
+	 * @param intervalInMillis
+	 * 		time between the resampled locations in milliseconds
+	 * @param target
+	 * 		{@link CaloCoordinateListPacked} to replace the content of with the resampled track,
+	 * 		not the list itself or a view of it
+	 */
+	public static void resampleByTime(
+			@NonNull final CaloCoordinateList<?> list,
+			@NonNull final long[] timesInMillis,
+			final long intervalInMillis,
+			@NonNull final CaloCoordinateListPacked<?> target)
+	{
+		checkTarget(list, target);
+		final CaloTrackResamplerStreaming resampler = CaloTrackResamplerStreaming.byTime(target, intervalInMillis);
+		target.removeAll();
+		resampler.addAll(list, timesInMillis);
+		resampler.finish();
+	}
+	
+	/**
+	 * Check that the target of a resampling is not the resampled list, as it is cleared before the list is read.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param target
+	 * 		{@link CaloCoordinateListPacked} to write the resampled track to
+	 */
+	private static void checkTarget(
+			@NonNull final CaloCoordinateList<?> list,
+			@NonNull final CaloCoordinateListPacked<?> target)
+	{
+		if (target == list)
+		{
+			throw new IllegalArgumentException("Target is the resampled list");
+		}
+	}
+	
+	/**
+	 * Resample the given track to locations at the given interval along the track.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track
+	 * @param intervalInMeters
+	 * 		distance between the resampled locations in meters
+	 * @param listFactory
+	 * 		factory to create the resampled list
+	 * @param <Coordinate>
+	 * 		{@link CaloCoordinate} type
+	 * @return resampled track, empty if the track is empty
+	 */
+	@NonNull
+	public static <Coordinate extends CaloCoordinate> CaloCoordinateListPacked<Coordinate> resample(
+			@NonNull final CaloCoordinateList<?> list,
+			final double intervalInMeters,
+			@NonNull final CaloCoordinateListFactoryPacked<Coordinate> listFactory)
+	{
+		final int size = list.size();
+		if (size == 0)
+		{
+			getResampledSize(0, intervalInMeters);
+			return listFactory.create();
+		}
+		final double[] cumulativeDistances = new double[size];
+		final double length = CaloCoordinateUtil.calculateCumulativeDistances(list, cumulativeDistances);
+		final int resampledSize = getResampledSize(length, intervalInMeters);
+		final CaloCoordinateListPacked<Coordinate> resampled = listFactory.create(resampledSize);
+		resample(list, cumulativeDistances, intervalInMeters, resampledSize, resampled.coordinates, 0, resampledSize);
+		resampled.size = resampledSize;
+		return resampled;
+	}
+	
+	/**
+	 * Calculate a range of the resampled locations.
+	 * @param list
+	 * 		{@link CaloCoordinateList} of the track, must not be empty
+	 * @param cumulativeDistances
+	 * 		distance along the track at every index of the list
+	 * @param intervalInMeters
+	 * 		distance between the resampled locations in meters
+	 * @param resampledSize
+	 * 		number of resampled locations as given by {@link #getResampledSize(double, double)}
+	 * @param target
+	 * 		array to write latitude at {@code 2 * index} and longitude at {@code 2 * index + 1}
+	 * @param from
+	 * 		index of the first resampled location to calculate
+	 * @param to
+	 * 		index after the last resampled location to calculate
+	 */
+	static void resample(
+			@NonNull final CaloCoordinateList<?> list,
+			@NonNull final double[] cumulativeDistances,
+			final double intervalInMeters,
+			final int resampledSize,
+			@NonNull final double[] target,
+			final int from,
+			final int to)
+	{
+		final int last = list.size() - 1;
+		final double length = cumulativeDistances[last];
+		int segment = findSegment(cumulativeDistances, last, from * intervalInMeters);
+		for (int i = from; i < to; i++)
+		{
+			final double distance = i * intervalInMeters;
+			if (i == resampledSize - 1 && distance != length)
+			{
+				target[2 * i] = list.getLatitude(last);
+				target[2 * i + 1] = list.getLongitude(last);
+				continue;
+			}
+			while (segment < last - 1 && cumulativeDistances[segment + 1] <= distance)
+			{
+				segment++;
+			}
+			if (segment == last)
+			{
+				// track of a single location
+				target[2 * i] = list.getLatitude(last);
+				target[2 * i + 1] = list.getLongitude(last);
+				continue;
+			}
+			final double segmentLength = cumulativeDistances[segment + 1] - cumulativeDistances[segment];
+			final double fraction = segmentLength > 0 ? (distance - cumulativeDistances[segment]) / segmentLength : 0;
+			target[2 * i] = CaloMath.lerp(list.getLatitude(segment), list.getLatitude(segment + 1), fraction);
+			target[2 * i + 1] = CaloMath.lerp(list.getLongitude(segment), list.getLongitude(segment + 1), fraction);
+		}
+	}
+	
+	/**
+	 * Find the segment containing the given distance along the track.
+	 * @param cumulativeDistances
+	 * 		distance along the track at every index
+	 * @param last
+	 * 		index of the last location of the track
+	 * @param distance
+	 * 		distance along the track in meters
+	 * @return largest index of a segment start not after the distance, at most {@code last - 1} unless {@code last} is 0
+	 */
+	static int findSegment(@NonNull final double[] cumulativeDistances, final int last, final double distance)
+	{
+		int low = 0;
+		int high = CaloMath.max(last - 1, 0);
+		while (low < high)
+		{
+			final int middle = (low + high + 1) >>> 1;
+			if (cumulativeDistances[middle] <= distance)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+	
+}
@@ -0,0 +1,350 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Resampler which consumes the locations of a track one at a time and appends the resampled locations to a target list
+ * in the same pass, e.g. while recording. It keeps no copy of the track and creates no objects, so with a target list
+ * of sufficient capacity no garbage is produced. <p></p>
+ * The resampled track starts with the first location, continues with a location every interval and ends with the last
+ * location after {@link #finish()}, like {@link CaloTrackResampler}:
+ * <ul>
+ *     <li>{@link #byDistance(CaloCoordinateListPacked, double)} places the locations every interval along the track,
+ *     accumulating the distances like {@link CaloCoordinateUtil#calculateCumulativeDistances(CaloCoordinateList, double[])}</li>
+ *     <li>{@link #byTime(CaloCoordinateListPacked, long)} places the locations every interval after the timestamp of the
+ *     first location, so the resampled location at index i has the timestamp {@code getStartTime() + i * interval},
+ *     except the last one, which has the timestamp of the last location</li>
+ * </ul>
+ * Times are in milliseconds like {@link CaloTimeUtil}.
+ */
+public class CaloTrackResamplerStreaming
+{
+	// attributes
+	@NonNull
+	private final CaloCoordinateListPacked<?> target;
+	private final double intervalInMeters;
+	private final long intervalInMillis;
+	private final boolean byTime;
+	private int count;
+	private int resampledCount;
+	private double latitude;
+	private double longitude;
+	private double cosLatitude;
+	private double distance;
+	private long startTime;
+	private long time;
+	private boolean finished;
+	
+	/**
+	 * Create a new {@link CaloTrackResamplerStreaming} instance.
+	 * @param target
+	 * 		{@link CaloCoordinateListPacked} to append the resampled locations to
+	 * @param intervalInMeters
+	 * 		distance between the resampled locations in meters, if resampled by distance
+	 * @param intervalInMillis
+	 * 		time between the resampled locations in milliseconds, if resampled by time
+	 * @param byTime
+	 * 		true to resample by time, false to resample by distance
+	 */
+	private CaloTrackResamplerStreaming(
+			@NonNull final CaloCoordinateListPacked<?> target,
+			final double intervalInMeters,
+			final long intervalInMillis,
+			final boolean byTime)
+	{
+		this.target = target;
+		this.intervalInMeters = intervalInMeters;
+		this.intervalInMillis = intervalInMillis;
+		this.byTime = byTime;
+	}
+	
+	/**
+	 * Create a resampler placing the resampled locations at a fixed distance along the track.
+	 * @param target
+	 * 		{@link CaloCoordinateListPacked} to append the resampled locations to
+	 * @param intervalInMeters
+	 * 		distance between the resampled locations in meters
+	 * @return new {@link CaloTrackResamplerStreaming}
+	 */
+	@NonNull
+	public static CaloTrackResamplerStreaming byDistance(
+			@NonNull final CaloCoordinateListPacked<?> target,
+			final double intervalInMeters)
+	{
+		if (!(intervalInMeters > 0) || intervalInMeters == Double.POSITIVE_INFINITY)
+		{
+			throw new IllegalArgumentException("Illegal interval: " + intervalInMeters);
+		}
+		return new CaloTrackResamplerStreaming(target, intervalInMeters, 0, false);
+	}
+	
+	/**
+	 * Create a resampler placing the resampled locations at a fixed time interval.
+	 * The locations have to be added with timestamps in ascending order.
+	 * @param target
+	 * 		{@link CaloCoordinateListPacked} to append the resampled locations to
+	 * @param intervalInMillis
+	 * 		time between the resampled locations in milliseconds
+	 * @return new {@link CaloTrackResamplerStreaming}
+	 */
+	@NonNull
+	public static CaloTrackResamplerStreaming byTime(
+			@NonNull final CaloCoordinateListPacked<?> target,
+			final long intervalInMillis)
+	{
+		if (intervalInMillis <= 0)
+		{
+			throw new IllegalArgumentException("Illegal interval: " + intervalInMillis);
+		}
+		return new CaloTrackResamplerStreaming(target, 0, intervalInMillis, true);
+	}
+	
+	/**
+	 * Get the list the resampled locations are appended to.
+	 * @return target {@link CaloCoordinateListPacked}
+	 */
+	@NonNull
+	public CaloCoordinateListPacked<?> getTarget()
+	{
+		return this.target;
+	}
+	
+	/**
+	 * Check if this resampler places the locations at a fixed time interval.
+	 * @return true if resampled by time, false if resampled by distance
+	 */
+	public boolean isByTime()
+	{
+		return this.byTime;
+	}
+	
+	/**
+	 * Get the number of locations added since the last reset.
+	 * @return number of added locations
+	 */
+	public int getCount()
+	{
+		return this.count;
+	}
+	
+	/**
+	 * Get the number of resampled locations appended to the target since the last reset.
+	 * @return number of resampled locations
+	 */
+	public int getResampledCount()
+	{
+		return this.resampledCount;
+	}
+	
+	/**
+	 * Get the distance along the track up to the last added location.
+	 * @return length of the added track in meters, 0 if resampled by time
+	 */
+	public double getDistance()
+	{
+		return this.distance;
+	}
+	
+	/**
+	 * Get the timestamp of the first added location.
+	 * @return timestamp in milliseconds, 0 if resampled by distance or no location was added
+	 */
+	public long getStartTime()
+	{
+		return this.startTime;
+	}
+	
+	/**
+	 * Add the next location of the track, if resampled by distance.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @throws IllegalStateException
+	 * 		if resampled by time or already finished
+	 */
+	public void add(final double latitude, final double longitude)
+	{
+		if (this.byTime)
+		{
+			throw new IllegalStateException("Resampling by time requires timestamps");
+		}
+		checkNotFinished();
+		final double cosLatitude = CaloCoordinateUtil.cosLatitude(latitude);
+		if (this.count > 0)
+		{
+			final double start = this.distance;
+			final double end = start + CaloCoordinateUtil.calculateDistance(
+					this.latitude, this.longitude, this.cosLatitude, latitude, longitude, cosLatitude);
+			double next = this.resampledCount * this.intervalInMeters;
+			while (next < end)
+			{
+				appendInterpolated(latitude, longitude, (next - start) / (end - start));
+				next = this.resampledCount * this.intervalInMeters;
+			}
+			this.distance = end;
+		}
+		else
+		{
+			this.target.add(latitude, longitude);
+			this.resampledCount = 1;
+		}
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.cosLatitude = cosLatitude;
+		this.count++;
+	}
+	
+	/**
+	 * Add the next location of the track with its timestamp. The timestamp is ignored if resampled by distance.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param timeInMillis
+	 * 		timestamp of the location in milliseconds, not before the timestamp of the previous location
+	 */
+	public void add(final double latitude, final double longitude, final long timeInMillis)
+	{
+		if (!this.byTime)
+		{
+			add(latitude, longitude);
+			return;
+		}
+		checkNotFinished();
+		if (this.count > 0)
+		{
+			if (timeInMillis < this.time)
+			{
+				throw new IllegalArgumentException("Timestamp " + timeInMillis + " before previous " + this.time);
+			}
+			long next = this.startTime + this.resampledCount * this.intervalInMillis;
+			while (next < timeInMillis)
+			{
+				appendInterpolated(latitude, longitude, (double) (next - this.time) / (timeInMillis - this.time));
+				next = this.startTime + this.resampledCount * this.intervalInMillis;
+			}
+		}
+		else
+		{
+			this.target.add(latitude, longitude);
+			this.resampledCount = 1;
+			this.startTime = timeInMillis;
+		}
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.time = timeInMillis;
+		this.count++;
+	}
+	
+	/**
+	 * Add all locations of the given {@link CaloCoordinateList}, if resampled by distance.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to add
+	 */
+	public void addAll(@NonNull final CaloCoordinateList<?> list)
+	{
+		for (int i = 0; i < list.size(); i++)
+		{
+			add(list.getLatitude(i), list.getLongitude(i));
+		}
+	}
+	
+	/**
+	 * Add all locations of the given {@link CaloCoordinateList} with their timestamps.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to add
+	 * @param timesInMillis
+	 * 		timestamp in milliseconds of every location of the list
+	 */
+	public void addAll(@NonNull final CaloCoordinateList<?> list, @NonNull final long[] timesInMillis)
+	{
+		if (timesInMillis.length < list.size())
+		{
+			throw new IllegalArgumentException("Array length " + timesInMillis.length + " < list size " + list.size());
+		}
+		for (int i = 0; i < list.size(); i++)
+		{
+			add(list.getLatitude(i), list.getLongitude(i), timesInMillis[i]);
+		}
+	}
+	
+	/**
+	 * Append the last added location to end the resampled track, unless it has already been appended because it lies
+	 * exactly at an interval. Further locations can not be added until {@link #reset()}, calling this again has no effect.
+	 */
+	public void finish()
+	{
+		if (this.count == 0 || this.finished)
+		{
+			return;
+		}
+		this.finished = true;
+		final boolean appended = this.byTime
+				? this.startTime + (this.resampledCount - 1) * this.intervalInMillis >= this.time
+				: (this.resampledCount - 1) * this.intervalInMeters >= this.distance;
+		if (!appended)
+		{
+			this.target.add(this.latitude, this.longitude);
+			this.resampledCount++;
+		}
+	}
+	
+	/**
+	 * Start a new track, appending its resampled locations to the target after the ones already appended.
+	 */
+	public void reset()
+	{
+		this.count = 0;
+		this.resampledCount = 0;
+		this.distance = 0;
+		this.startTime = 0;
+		this.time = 0;
+		this.finished = false;
+	}
+	
+	/**
+	 * Check that {@link #finish()} has not been called since the last reset.
+	 */
+	private void checkNotFinished()
+	{
+		if (this.finished)
+		{
+			throw new IllegalStateException("Resampling finished, reset to start a new track");
+		}
+	}
+	
+	/**
+	 * Append the location at the given fraction of the segment from the previous to the given location.
+	 * @param latitude
+	 * 		latitude of the end of the segment
+	 * @param longitude
+	 * 		longitude of the end of the segment
+	 * @param fraction
+	 * 		fraction of the segment between 0 and 1
+	 */
+	private void appendInterpolated(final double latitude, final double longitude, final double fraction)
+	{
+		this.target.add(CaloMath.lerp(this.latitude, latitude, fraction),
+				CaloMath.lerp(this.longitude, longitude, fraction));
+		this.resampledCount++;
+	}
+	
+}
@@ -0,0 +1,506 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Accumulator of the statistics of a track which consumes the locations one at a time or in primitive batches,
+ * e.g. while recording, without keeping them. The memory used is constant. <p></p>
+ * Distances are calculated like {@link CaloCoordinateUtil#calculateDistance(CaloCoordinate, CaloCoordinate)},
+ * reusing the cosine of the latitude of the previous location, times are in milliseconds like {@link CaloTimeUtil}.
+ * Timestamps are expected to be ascending. <p></p>
+ * Between consecutive locations with timestamp, the segment counts as moving if its speed is at least the stopped speed,
+ * else as stopped. A stop is a sequence of stopped segments lasting at least the minimum stop duration.
+ * Segments without duration, i.e. with a timestamp not after the previous one, keep the state of the previous segment,
+ * or count as moving if there is none, so their distance is part of the moving distance or of the stopped segments.
+ */
+public class CaloTrackStatistics
+{
+	/**
+	 * Default speed in meters per second below which a segment counts as stopped, tolerating GPS jitter
+	 */
+	public static final double DEFAULT_STOPPED_SPEED = 1;
+	
+	/**
+	 * Default minimum duration in milliseconds of a sequence of stopped segments to count as a stop
+	 */
+	public static final long DEFAULT_MIN_STOP_DURATION_IN_MILLIS = 60_000;
+	
+	// attributes
+	private final double stoppedSpeed;
+	private final long minStopDurationInMillis;
+	private int count;
+	private double distance;
+	@NonNull
+	private final CaloBoundingBox boundingBox = new CaloBoundingBox();
+	private double lastLatitude;
+	private double lastLongitude;
+	private double lastCosLatitude;
+	private int timedCount;
+	private long startTime;
+	private long endTime;
+	private boolean lastTimed;
+	private double movingDistance;
+	private long movingTime;
+	private long stoppedTime;
+	private long currentStopTime;
+	private boolean stopped;
+	private int stopCount;
+	private double maxSpeed;
+	
+	/**
+	 * Create a new {@link CaloTrackStatistics} instance with the {@link #DEFAULT_STOPPED_SPEED}
+	 * and the {@link #DEFAULT_MIN_STOP_DURATION_IN_MILLIS}.
+	 */
+	public CaloTrackStatistics()
+	{
+		this(DEFAULT_STOPPED_SPEED, DEFAULT_MIN_STOP_DURATION_IN_MILLIS);
+	}
+	
+	/**
+	 * Create a new {@link CaloTrackStatistics} instance.
+	 * @param stoppedSpeed
+	 * 		speed in meters per second below which a segment counts as stopped
+	 * @param minStopDurationInMillis
+	 * 		minimum duration in milliseconds of a sequence of stopped segments to count as a stop,
+	 * 		0 to count every sequence of stopped segments
+	 */
+	public CaloTrackStatistics(final double stoppedSpeed, final long minStopDurationInMillis)
+	{
+		if (!(stoppedSpeed >= 0))
+		{
+			throw new IllegalArgumentException("Illegal stopped speed: " + stoppedSpeed);
+		}
+		if (minStopDurationInMillis < 0)
+		{
+			throw new IllegalArgumentException("Illegal min stop duration: " + minStopDurationInMillis);
+		}
+		this.stoppedSpeed = stoppedSpeed;
+		this.minStopDurationInMillis = minStopDurationInMillis;
+	}
+	
+	/**
+	 * Add the next location of the track without timestamp.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 */
+	public void add(final double latitude, final double longitude)
+	{
+		addLocation(latitude, longitude);
+		this.lastTimed = false;
+	}
+	
+	/**
+	 * Add the next location of the track.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @param timeInMillis
+	 * 		timestamp of the location in milliseconds
+	 */
+	public void add(final double latitude, final double longitude, final long timeInMillis)
+	{
+		final double segmentLength = addLocation(latitude, longitude);
+		if (this.lastTimed && timeInMillis > this.endTime)
+		{
+			final long segmentTime = timeInMillis - this.endTime;
+			final double speed = segmentLength / CaloTimeUtil.millisToSeconds(segmentTime);
+			if (speed < this.stoppedSpeed)
+			{
+				this.stoppedTime += segmentTime;
+				// the first segment of a stop is counted if the minimum duration is 0
+				if ((this.currentStopTime == 0 || this.currentStopTime < this.minStopDurationInMillis)
+						&& this.currentStopTime + segmentTime >= this.minStopDurationInMillis)
+				{
+					this.stopCount++;
+				}
+				this.currentStopTime += segmentTime;
+				this.stopped = true;
+			}
+			else
+			{
+				this.movingTime += segmentTime;
+				this.movingDistance += segmentLength;
+				this.maxSpeed = CaloMath.max(this.maxSpeed, speed);
+				this.currentStopTime = 0;
+				this.stopped = false;
+			}
+		}
+		else if (this.lastTimed && !this.stopped)
+		{
+			// no duration, so keep the moving state
+			this.movingDistance += segmentLength;
+		}
+		if (this.timedCount == 0)
+		{
+			this.startTime = timeInMillis;
+		}
+		this.endTime = timeInMillis;
+		this.timedCount++;
+		this.lastTimed = true;
+	}
+	
+	/**
+	 * Add the next locations of the track.
+	 * @param latitudes
+	 * 		latitudes of the locations
+	 * @param longitudes
+	 * 		longitudes of the locations
+	 * @param timesInMillis
+	 * 		timestamps of the locations in milliseconds or null if the locations have none
+	 * @param offset
+	 * 		index of the first location in the arrays
+	 * @param length
+	 * 		number of locations to add
+	 */
+	public void add(
+			@NonNull final double[] latitudes,
+			@NonNull final double[] longitudes,
+			@Nullable final long[] timesInMillis,
+			final int offset,
+			final int length)
+	{
+		for (int i = offset; i < offset + length; i++)
+		{
+			if (timesInMillis == null)
+			{
+				add(latitudes[i], longitudes[i]);
+			}
+			else
+			{
+				add(latitudes[i], longitudes[i], timesInMillis[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Add all locations of the given {@link CaloCoordinateList}, with their timestamps if it is a
+	 * {@link CaloCoordinateListTimed}.
+	 * @param list
+	 * 		{@link CaloCoordinateList} to add
+	 */
+	public void addAll(@NonNull final CaloCoordinateList<?> list)
+	{
+		if (list instanceof CaloCoordinateListTimed)
+		{
+			addAll((CaloCoordinateListTimed<?>) list);
+			return;
+		}
+		for (int i = 0; i < list.size(); i++)
+		{
+			add(list.getLatitude(i), list.getLongitude(i));
+		}
+	}
+	
+	/**
+	 * Add all locations of the given {@link CaloCoordinateListTimed} with their timestamps.
+	 * @param track
+	 * 		{@link CaloCoordinateListTimed} to add
+	 */
+	public void addAll(@NonNull final CaloCoordinateListTimed<?> track)
+	{
+		for (int i = 0; i < track.size; i++)
+		{
+			add(track.coordinates[2 * i], track.coordinates[2 * i + 1], track.times[i]);
+		}
+	}
+	
+	/**
+	 * Calculate the distance along the track and the speed at every location of the given track in one pass.
+	 * The speed at a location is the one from the previous to the next location,
+	 * at the first and the last location the one of their segment.
+	 * @param track
+	 * 		{@link CaloCoordinateListTimed} with ascending timestamps
+	 * @param cumulativeDistances
+	 * 		array to write the distance along the track in meters at every index to
+	 * @param speeds
+	 * 		array to write the speed in meters per second at every index to, 0 if no time passes
+	 * @return length of the track in meters
+	 */
+	public static double calculateSpeeds(
+			@NonNull final CaloCoordinateListTimed<?> track,
+			@NonNull final double[] cumulativeDistances,
+			@NonNull final double[] speeds)
+	{
+		final int size = track.size;
+		if (cumulativeDistances.length < size || speeds.length < size)
+		{
+			throw new IllegalArgumentException("Array length " + CaloMath.min(cumulativeDistances.length, speeds.length)
+					+ " < list size " + size);
+		}
+		final double length = CaloCoordinateUtil.calculateCumulativeDistances(track, cumulativeDistances);
+		for (int i = 0; i < size; i++)
+		{
+			final int previous = CaloMath.max(i - 1, 0);
+			final int next = CaloMath.min(i + 1, size - 1);
+			final long time = track.times[next] - track.times[previous];
+			speeds[i] = time > 0
+					? (cumulativeDistances[next] - cumulativeDistances[previous]) / CaloTimeUtil.millisToSeconds(time)
+					: 0;
+		}
+		return length;
+	}
+	
+	/**
+	 * Add the location, updating the distance and the bounding box.
+	 * @param latitude
+	 * 		latitude of the location
+	 * @param longitude
+	 * 		longitude of the location
+	 * @return distance from the previous location in meters, 0 for the first location
+	 */
+	private double addLocation(final double latitude, final double longitude)
+	{
+		final double cosLatitude = CaloCoordinateUtil.cosLatitude(latitude);
+		double segmentLength = 0;
+		if (this.count > 0)
+		{
+			segmentLength = CaloCoordinateUtil.calculateDistance(this.lastLatitude, this.lastLongitude, this.lastCosLatitude,
+					latitude, longitude, cosLatitude);
+			this.distance += segmentLength;
+		}
+		this.boundingBox.extend(latitude, longitude);
+		this.lastLatitude = latitude;
+		this.lastLongitude = longitude;
+		this.lastCosLatitude = cosLatitude;
+		this.count++;
+		return segmentLength;
+	}
+	
+	/**
+	 * Remove all locations to start a new track.
+	 */
+	public void reset()
+	{
+		this.count = 0;
+		this.distance = 0;
+		this.boundingBox.reset();
+		this.timedCount = 0;
+		this.startTime = 0;
+		this.endTime = 0;
+		this.lastTimed = false;
+		this.movingDistance = 0;
+		this.movingTime = 0;
+		this.stoppedTime = 0;
+		this.currentStopTime = 0;
+		this.stopped = false;
+		this.stopCount = 0;
+		this.maxSpeed = 0;
+	}
+	
+	/**
+	 * Get the number of added locations.
+	 * @return number of added locations
+	 */
+	public int getCount()
+	{
+		return this.count;
+	}
+	
+	/**
+	 * Get the distance along the track.
+	 * @return distance in meters
+	 */
+	public double getDistance()
+	{
+		return this.distance;
+	}
+	
+	/**
+	 * Get the minimum latitude of the track.
+	 * @return minimum latitude, infinite if no location was added
+	 */
+	public double getMinLatitude()
+	{
+		return this.boundingBox.getMinLatitude();
+	}
+	
+	/**
+	 * Get the maximum latitude of the track.
+	 * @return maximum latitude, negative infinite if no location was added
+	 */
+	public double getMaxLatitude()
+	{
+		return this.boundingBox.getMaxLatitude();
+	}
+	
+	/**
+	 * Get the minimum longitude of the track.
+	 * @return minimum longitude, infinite if no location was added
+	 */
+	public double getMinLongitude()
+	{
+		return this.boundingBox.getMinLongitude();
+	}
+	
+	/**
+	 * Get the maximum longitude of the track.
+	 * @return maximum longitude, negative infinite if no location was added
+	 */
+	public double getMaxLongitude()
+	{
+		return this.boundingBox.getMaxLongitude();
+	}
+	
+	/**
+	 * Copy the bounding box of the track into the given box.
+	 * @param target
+	 * 		{@link CaloBoundingBox} to set, empty if no location was added
+	 * @return the given box
+	 */
+	@NonNull
+	public CaloBoundingBox getBoundingBox(@NonNull final CaloBoundingBox target)
+	{
+		target.set(this.boundingBox);
+		return target;
+	}
+	
+	/**
+	 * Check if at least one location with timestamp was added.
+	 * @return true if the track has a timestamp, else false
+	 */
+	public boolean hasTime()
+	{
+		return this.timedCount > 0;
+	}
+	
+	/**
+	 * Get the timestamp of the first location with timestamp.
+	 * @return timestamp in milliseconds, 0 if there is none
+	 */
+	public long getStartTime()
+	{
+		return this.startTime;
+	}
+	
+	/**
+	 * Get the timestamp of the last location with timestamp.
+	 * @return timestamp in milliseconds, 0 if there is none
+	 */
+	public long getEndTime()
+	{
+		return this.endTime;
+	}
+	
+	/**
+	 * Get the duration from the first to the last timestamp.
+	 * @return duration in milliseconds
+	 */
+	public long getDurationInMillis()
+	{
+		return this.endTime - this.startTime;
+	}
+	
+	/**
+	 * Get the average speed over the duration of the track.
+	 * @return average speed in meters per second, 0 if the duration is 0
+	 */
+	public double getAverageSpeed()
+	{
+		final long duration = getDurationInMillis();
+		return duration > 0 ? this.distance / CaloTimeUtil.millisToSeconds(duration) : 0;
+	}
+	
+	/**
+	 * Get the average speed over the duration of the track.
+	 * @return average speed in kilometers per hour, 0 if the duration is 0
+	 */
+	public double getAverageSpeedInKilometersPerHour()
+	{
+		final long duration = getDurationInMillis();
+		return duration > 0 ? this.distance / 1000 / CaloTimeUtil.millisToHours(duration) : 0;
+	}
+	
+	/**
+	 * Get the time spent in moving segments.
+	 * @return moving time in milliseconds
+	 */
+	public long getMovingTimeInMillis()
+	{
+		return this.movingTime;
+	}
+	
+	/**
+	 * Get the time spent in stopped segments, including stops shorter than the minimum stop duration.
+	 * @return stopped time in milliseconds
+	 */
+	public long getStoppedTimeInMillis()
+	{
+		return this.stoppedTime;
+	}
+	
+	/**
+	 * Get the number of stops lasting at least the minimum stop duration.
+	 * @return number of stops
+	 */
+	public int getStopCount()
+	{
+		return this.stopCount;
+	}
+	
+	/**
+	 * Get the distance of the moving segments, including segments without duration following a moving segment.
+	 * @return moving distance in meters
+	 */
+	public double getMovingDistance()
+	{
+		return this.movingDistance;
+	}
+	
+	/**
+	 * Get the maximum speed of a segment.
+	 * @return maximum speed in meters per second, 0 if there is no moving segment
+	 */
+	public double getMaxSpeed()
+	{
+		return this.maxSpeed;
+	}
+	
+	/**
+	 * Get the maximum speed of a segment.
+	 * @return maximum speed in kilometers per hour, 0 if there is no moving segment
+	 */
+	public double getMaxSpeedInKilometersPerHour()
+	{
+		return 3.6 * this.maxSpeed;
+	}
+	
+	/**
+	 * Get the average speed of the moving segments.
+	 * @return average moving speed in meters per second, 0 if there is no moving segment
+	 */
+	public double getMovingAverageSpeed()
+	{
+		return this.movingTime > 0 ? this.movingDistance / CaloTimeUtil.millisToSeconds(this.movingTime) : 0;
+	}
+	
+	/**
+	 * Get the average speed of the moving segments.
+	 * @return average moving speed in kilometers per hour, 0 if there is no moving segment
+	 */
+	public double getMovingAverageSpeedInKilometersPerHour()
+	{
+		return this.movingTime > 0 ? this.movingDistance / 1000 / CaloTimeUtil.millisToHours(this.movingTime) : 0;
+	}
+	
+}
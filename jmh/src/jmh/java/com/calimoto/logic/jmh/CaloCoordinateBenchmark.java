@@ -0,0 +1,177 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic.jmh;
+
+import com.calimoto.logic.CaloCoordinate;
+import com.calimoto.logic.CaloCoordinateCursor;
+import com.calimoto.logic.CaloCoordinateFactoryPooled;
+import com.calimoto.logic.CaloCoordinateList;
+import com.calimoto.logic.CaloCoordinateListFactoryPacked;
+import com.calimoto.logic.CaloCoordinatePair;
+import com.calimoto.logic.CaloCoordinateUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for hashing {@link CaloCoordinate}, creating and hashing {@link CaloCoordinatePair}
+ * and reading the coordinates of a packed list, measured per coordinate of a track.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CaloCoordinateBenchmark
+{
+	private static final int SIZE = 10_000;
+	
+	private CaloCoordinate[] coordinates;
+	private CaloCoordinatePair[] pairs;
+	private CaloCoordinateList<CaloCoordinate> packed;
+	private CaloCoordinateFactoryPooled pooledFactory;
+	private CaloCoordinateList<CaloCoordinate> pooled;
+	
+	@Setup
+	public void setup()
+	{
+		final double[] track = TrackGenerator.generate(SIZE, 42);
+		this.coordinates = TrackGenerator.createList(TrackGenerator.LIST_SIMPLE, track).toList().toArray(new CaloCoordinate[0]);
+		this.pairs = new CaloCoordinatePair[SIZE - 1];
+		for (int i = 1; i < SIZE; i++)
+		{
+			this.pairs[i - 1] = new CaloCoordinatePair(this.coordinates[i - 1], this.coordinates[i]);
+		}
+		this.packed = TrackGenerator.createList(TrackGenerator.LIST_PACKED, track);
+		this.pooledFactory = new CaloCoordinateFactoryPooled(16);
+		this.pooled = new CaloCoordinateListFactoryPacked<>(this.pooledFactory).create(SIZE);
+		this.pooled.addAll(this.packed);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public int hashCoordinate()
+	{
+		int hash = 0;
+		for (final CaloCoordinate coordinate : this.coordinates)
+		{
+			hash += CaloCoordinate.hash(coordinate);
+		}
+		return hash;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public void createPair(final Blackhole blackhole)
+	{
+		for (int i = 1; i < SIZE; i++)
+		{
+			blackhole.consume(new CaloCoordinatePair(this.coordinates[i - 1], this.coordinates[i]));
+		}
+	}
+	
+	/**
+	 * Baseline creating the string key {@link CaloCoordinatePair} used for equality before it switched to the raw bits.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public void createPairStringKey(final Blackhole blackhole)
+	{
+		for (int i = 1; i < SIZE; i++)
+		{
+			final CaloCoordinate start = this.coordinates[i - 1];
+			final CaloCoordinate end = this.coordinates[i];
+			blackhole.consume((start.getLatitude() + "," + start.getLongitude() + "|" +
+					end.getLatitude() + "," + end.getLongitude()).hashCode());
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public int dedupePairs()
+	{
+		final Set<CaloCoordinatePair> set = new HashSet<>(2 * SIZE);
+		for (int i = 1; i < SIZE; i++)
+		{
+			set.add(new CaloCoordinatePair(this.coordinates[i - 1], this.coordinates[i]));
+			set.add(new CaloCoordinatePair(this.coordinates[i - 1], this.coordinates[i]));
+		}
+		return set.size();
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public int hashPair()
+	{
+		int hash = 0;
+		for (final CaloCoordinatePair pair : this.pairs)
+		{
+			hash += pair.hashCode();
+		}
+		return hash;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double readPackedGet()
+	{
+		double distance = 0;
+		for (int i = 0; i < SIZE; i++)
+		{
+			distance += CaloCoordinateUtil.calculateDistance(this.coordinates[0], this.packed.get(i));
+		}
+		return distance;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double readPackedPooled()
+	{
+		double distance = 0;
+		for (int i = 0; i < SIZE; i++)
+		{
+			final CaloCoordinate coordinate = this.pooled.get(i);
+			distance += CaloCoordinateUtil.calculateDistance(this.coordinates[0], coordinate);
+			this.pooledFactory.release(coordinate);
+		}
+		return distance;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double readPackedCursor()
+	{
+		double distance = 0;
+		final CaloCoordinateCursor cursor = this.packed.cursor();
+		while (cursor.next())
+		{
+			distance += CaloCoordinateUtil.calculateDistance(this.coordinates[0], cursor);
+		}
+		return distance;
+	}
+	
+}
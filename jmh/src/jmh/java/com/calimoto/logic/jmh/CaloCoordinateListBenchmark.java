@@ -0,0 +1,126 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic.jmh;
+
+import com.calimoto.logic.CaloCoordinate;
+import com.calimoto.logic.CaloCoordinateFactorySimple;
+import com.calimoto.logic.CaloCoordinateList;
+import com.calimoto.logic.CaloCoordinateListFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for copying whole {@link CaloCoordinateList}s, for traversing them without copying
+ * and for splicing segments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CaloCoordinateListBenchmark
+{
+	@Param({"1000", "200000"})
+	public int size;
+	
+	@Param({TrackGenerator.LIST_SIMPLE, TrackGenerator.LIST_PACKED})
+	public String listType;
+	
+	private CaloCoordinateListFactory<CaloCoordinate, ? extends CaloCoordinateList<CaloCoordinate>> factory;
+	private CaloCoordinateList<CaloCoordinate> list;
+	private CaloCoordinateList<CaloCoordinate> segment;
+	
+	@Setup
+	public void setup()
+	{
+		this.factory = TrackGenerator.createFactory(this.listType);
+		this.list = TrackGenerator.createList(this.listType, TrackGenerator.generate(this.size, 42));
+		this.segment = this.factory.create();
+		this.segment.addAll(this.list.subList(this.size / 4, this.size / 2));
+	}
+	
+	@Benchmark
+	public CaloCoordinateList<CaloCoordinate> addAll()
+	{
+		final CaloCoordinateList<CaloCoordinate> copy = this.factory.create();
+		copy.addAll(this.list);
+		return copy;
+	}
+	
+	@Benchmark
+	public CaloCoordinateList<CaloCoordinate> deepCopy()
+	{
+		return this.factory.deepCopy(this.list, CaloCoordinateFactorySimple.INSTANCE);
+	}
+	
+	@Benchmark
+	public List<CaloCoordinate> toList()
+	{
+		return this.list.toList();
+	}
+	
+	@Benchmark
+	public double sumLatitudesToList()
+	{
+		return this.list.toList().stream().mapToDouble(CaloCoordinate::getLatitude).sum();
+	}
+	
+	@Benchmark
+	public double sumLatitudesStream()
+	{
+		return this.list.stream().mapToDouble(CaloCoordinate::getLatitude).sum();
+	}
+	
+	@Benchmark
+	public double sumLatitudes()
+	{
+		return this.list.latitudes().sum();
+	}
+	
+	@Benchmark
+	public int spliceRange()
+	{
+		// replace a quarter of the track and restore it, the size stays unchanged
+		this.list.subList(this.size / 4, this.size / 2).removeAll();
+		this.list.addAll(this.size / 4, this.segment);
+		return this.list.size();
+	}
+	
+	@Benchmark
+	public int spliceSingle()
+	{
+		for (int i = this.size / 2 - 1; i >= this.size / 4; i--)
+		{
+			this.list.remove(i);
+		}
+		for (int i = 0; i < this.segment.size(); i++)
+		{
+			this.list.add(this.size / 4 + i, this.segment.get(i));
+		}
+		return this.list.size();
+	}
+	
+}
@@ -0,0 +1,134 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic.jmh;
+
+import com.calimoto.logic.CaloCoordinate;
+import com.calimoto.logic.CaloCoordinateList;
+import com.calimoto.logic.CaloCoordinateUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the calculations of {@link CaloCoordinateUtil}, measured per coordinate of a track.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CaloCoordinateUtilBenchmark
+{
+	private static final int SIZE = 10_000;
+	
+	@Param({TrackGenerator.LIST_SIMPLE, TrackGenerator.LIST_PACKED})
+	public String listType;
+	
+	private double[] track;
+	private double[] normalizedLatitudes;
+	private CaloCoordinateList<CaloCoordinate> list;
+	
+	@Setup
+	public void setup()
+	{
+		this.track = TrackGenerator.generate(SIZE, 42);
+		this.list = TrackGenerator.createList(this.listType, this.track);
+		this.normalizedLatitudes = new double[SIZE];
+		for (int i = 0; i < SIZE; i++)
+		{
+			this.normalizedLatitudes[i] = CaloCoordinateUtil.normalizeLatitude(this.track[2 * i]);
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public double calculateDistance()
+	{
+		double length = 0;
+		for (int i = 1; i < this.list.size(); i++)
+		{
+			length += CaloCoordinateUtil.calculateDistance(this.list.get(i - 1), this.list.get(i));
+		}
+		return length;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public double calculateDistanceEquirectangular()
+	{
+		double length = 0;
+		for (int i = 1; i < SIZE; i++)
+		{
+			length += CaloCoordinateUtil.calculateDistanceEquirectangular(this.track[2 * i - 2], this.track[2 * i - 1],
+					this.track[2 * i], this.track[2 * i + 1]);
+		}
+		return length;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public double calculateDistanceAdaptive()
+	{
+		double length = 0;
+		for (int i = 1; i < SIZE; i++)
+		{
+			length += CaloCoordinateUtil.calculateDistanceAdaptive(this.track[2 * i - 2], this.track[2 * i - 1],
+					this.track[2 * i], this.track[2 * i + 1]);
+		}
+		return length;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public double calculateLength()
+	{
+		return CaloCoordinateUtil.calculateLength(this.list);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double normalizeLatitude()
+	{
+		double sum = 0;
+		for (int i = 0; i < SIZE; i++)
+		{
+			sum += CaloCoordinateUtil.normalizeLatitude(this.track[2 * i]);
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double denormalizeLatitude()
+	{
+		double sum = 0;
+		for (int i = 0; i < SIZE; i++)
+		{
+			sum += CaloCoordinateUtil.denormalizeLatitude(this.normalizedLatitudes[i]);
+		}
+		return sum;
+	}
+	
+}
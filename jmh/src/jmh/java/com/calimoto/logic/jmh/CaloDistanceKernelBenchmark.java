@@ -0,0 +1,79 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic.jmh;
+
+import com.calimoto.logic.CaloCoordinateUtil;
+import com.calimoto.logic.CaloDistanceKernel;
+import com.calimoto.logic.CaloDistanceKernelScalar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks comparing the {@link CaloDistanceKernel} implementations, measured per distance from one rider
+ * to many points of interest. The default kernel is the vectorized one if the vector module is available and
+ * accelerated by the CPU, see the README.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CaloDistanceKernelBenchmark
+{
+	private static final int SIZE = 10_000;
+	
+	@Param({"scalar", "default"})
+	public String kernelType;
+	
+	private CaloDistanceKernel kernel;
+	private double[] latitudes;
+	private double[] longitudes;
+	private double[] distances;
+	
+	@Setup
+	public void setup()
+	{
+		this.kernel = "scalar".equals(this.kernelType) ? CaloDistanceKernelScalar.INSTANCE : CaloCoordinateUtil.getDistanceKernel();
+		final double[] track = TrackGenerator.generate(SIZE, 42);
+		this.latitudes = new double[SIZE];
+		this.longitudes = new double[SIZE];
+		this.distances = new double[SIZE];
+		for (int i = 0; i < SIZE; i++)
+		{
+			this.latitudes[i] = track[2 * i];
+			this.longitudes[i] = track[2 * i + 1];
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] calculateDistances()
+	{
+		this.kernel.calculateDistances(47.8, 11.2, this.latitudes, this.longitudes, this.distances, SIZE);
+		return this.distances;
+	}
+	
+}
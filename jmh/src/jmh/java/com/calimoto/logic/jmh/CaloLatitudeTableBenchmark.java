@@ -0,0 +1,115 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic.jmh;
+
+import com.calimoto.logic.CaloCoordinateUtil;
+import com.calimoto.logic.CaloLatitudeTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks comparing the normalization of latitudes by {@link CaloLatitudeTable} with the exact one of
+ * {@link CaloCoordinateUtil}, measured per latitude of a track.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CaloLatitudeTableBenchmark
+{
+	private static final int SIZE = 10_000;
+	
+	@Param({"256", "1024", "65536"})
+	public int intervalCount;
+	
+	private CaloLatitudeTable table;
+	private double[] latitudes;
+	private double[] normalizedLatitudes;
+	
+	@Setup
+	public void setup()
+	{
+		this.table = new CaloLatitudeTable(this.intervalCount);
+		final double[] track = TrackGenerator.generate(SIZE, 42);
+		this.latitudes = new double[SIZE];
+		this.normalizedLatitudes = new double[SIZE];
+		for (int i = 0; i < SIZE; i++)
+		{
+			this.latitudes[i] = track[2 * i];
+			this.normalizedLatitudes[i] = CaloCoordinateUtil.normalizeLatitude(track[2 * i]);
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double normalizeLatitudeExact()
+	{
+		double sum = 0;
+		for (int i = 0; i < SIZE; i++)
+		{
+			sum += CaloCoordinateUtil.normalizeLatitude(this.latitudes[i]);
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double normalizeLatitudeTable()
+	{
+		double sum = 0;
+		for (int i = 0; i < SIZE; i++)
+		{
+			sum += this.table.normalizeLatitude(this.latitudes[i]);
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double denormalizeLatitudeExact()
+	{
+		double sum = 0;
+		for (int i = 0; i < SIZE; i++)
+		{
+			sum += CaloCoordinateUtil.denormalizeLatitude(this.normalizedLatitudes[i]);
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double denormalizeLatitudeTable()
+	{
+		double sum = 0;
+		for (int i = 0; i < SIZE; i++)
+		{
+			sum += this.table.denormalizeLatitude(this.normalizedLatitudes[i]);
+		}
+		return sum;
+	}
+	
+}
@@ -0,0 +1,74 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic.jmh;
+
+import com.calimoto.logic.CaloCoordinateUtil;
+import com.calimoto.logic.CaloMathStrategy;
+import com.calimoto.logic.CaloMathStrategyExact;
+import com.calimoto.logic.CaloMathStrategyFast;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks comparing the distances of {@link CaloCoordinateUtil} with exact and fast {@link CaloMathStrategy},
+ * measured per segment of a track.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CaloMathStrategyBenchmark
+{
+	private static final int SIZE = 10_000;
+	
+	@Param({"exact", "fast"})
+	public String strategy;
+	
+	private CaloMathStrategy math;
+	private double[] track;
+	
+	@Setup
+	public void setup()
+	{
+		this.math = "exact".equals(this.strategy) ? CaloMathStrategyExact.INSTANCE : CaloMathStrategyFast.INSTANCE;
+		this.track = TrackGenerator.generate(SIZE, 42);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE - 1)
+	public double calculateDistance()
+	{
+		double length = 0;
+		for (int i = 1; i < SIZE; i++)
+		{
+			length += CaloCoordinateUtil.calculateDistance(this.track[2 * i - 2], this.track[2 * i - 1],
+					this.track[2 * i], this.track[2 * i + 1], this.math);
+		}
+		return length;
+	}
+	
+}
@@ -0,0 +1,129 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic.jmh;
+
+import androidx.annotation.NonNull;
+
+import com.calimoto.logic.CaloCoordinate;
+import com.calimoto.logic.CaloCoordinateFactorySimple;
+import com.calimoto.logic.CaloCoordinateList;
+import com.calimoto.logic.CaloCoordinateListFactory;
+import com.calimoto.logic.CaloCoordinateListFactoryPacked;
+import com.calimoto.logic.CaloCoordinateListFactorySimple;
+
+import java.util.Random;
+
+/**
+ * Generator for synthetic but realistic GPS tracks as recorded on a motorcycle tour:
+ * one fix per second, varying speed, winding roads and a few meters of GPS noise.
+ */
+final class TrackGenerator
+{
+	/**
+	 * List type backed by a {@link java.util.List} of coordinate objects
+	 */
+	static final String LIST_SIMPLE = "simple";
+	
+	/**
+	 * List type backed by a primitive array
+	 */
+	static final String LIST_PACKED = "packed";
+	
+	private static final double METERS_PER_DEGREE = 111319.49;
+	
+	/**
+	 * Private constructor as only static methods exist.
+	 */
+	private TrackGenerator()
+	{
+		// empty constructor
+	}
+	
+	/**
+	 * Generate a track starting in the alps.
+	 * @param size
+	 * 		number of GPS fixes
+	 * @param seed
+	 * 		seed for the random generator so every run measures the same track
+	 * @return latitude at {@code 2 * index} and longitude at {@code 2 * index + 1}
+	 */
+	@NonNull
+	static double[] generate(final int size, final long seed)
+	{
+		final Random random = new Random(seed);
+		final double[] track = new double[2 * size];
+		double latitude = 47.4 + random.nextDouble();
+		double longitude = 10.5 + 2 * random.nextDouble();
+		double heading = 2 * Math.PI * random.nextDouble();
+		double speed = 20;
+		double turnRate = 0;
+		for (int i = 0; i < size; i++)
+		{
+			// curvy roads change the turn rate often, GPS noise is about 3 meters
+			turnRate = 0.9 * turnRate + 0.05 * random.nextGaussian();
+			heading += turnRate;
+			speed = Math.max(3, Math.min(35, speed + random.nextGaussian()));
+			latitude += speed * Math.cos(heading) / METERS_PER_DEGREE;
+			longitude += speed * Math.sin(heading) / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+			track[2 * i] = latitude + 3 * random.nextGaussian() / METERS_PER_DEGREE;
+			track[2 * i + 1] = longitude + 3 * random.nextGaussian() / METERS_PER_DEGREE;
+		}
+		return track;
+	}
+	
+	/**
+	 * Create a {@link CaloCoordinateList} of the given type containing the given track.
+	 * @param listType
+	 * 		{@link #LIST_SIMPLE} or {@link #LIST_PACKED}
+	 * @param track
+	 * 		track as created by {@link #generate(int, long)}
+	 * @return {@link CaloCoordinateList} containing the track
+	 */
+	@NonNull
+	static CaloCoordinateList<CaloCoordinate> createList(@NonNull final String listType, @NonNull final double[] track)
+	{
+		final CaloCoordinateList<CaloCoordinate> list = createFactory(listType).create(track.length / 2);
+		for (int i = 0; i < track.length / 2; i++)
+		{
+			list.add(CaloCoordinateFactorySimple.INSTANCE.create(track[2 * i], track[2 * i + 1]));
+		}
+		return list;
+	}
+	
+	/**
+	 * Create a factory for lists of the given type.
+	 * @param listType
+	 * 		{@link #LIST_SIMPLE} or {@link #LIST_PACKED}
+	 * @return factory for lists of the given type
+	 */
+	@NonNull
+	static CaloCoordinateListFactory<CaloCoordinate, ? extends CaloCoordinateList<CaloCoordinate>> createFactory(
+			@NonNull final String listType)
+	{
+		switch (listType)
+		{
+			case LIST_SIMPLE:
+				return new CaloCoordinateListFactorySimple<>();
+			case LIST_PACKED:
+				return new CaloCoordinateListFactoryPacked<>(CaloCoordinateFactorySimple.INSTANCE);
+			default:
+				throw new IllegalArgumentException("Unknown list type: " + listType);
+		}
+	}
+	
+}
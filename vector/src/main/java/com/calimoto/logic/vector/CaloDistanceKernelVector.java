@@ -0,0 +1,94 @@
+/*
+ *  Licensed to calimoto GmbH under one or more contributor
+ *  license agreements. See the LICENSE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  calimoto GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.calimoto.logic.vector;
+
+import androidx.annotation.NonNull;
+
+import com.calimoto.logic.CaloCoordinateUtil;
+import com.calimoto.logic.CaloDistanceKernel;
+import com.calimoto.logic.CaloDistanceKernelScalar;
+import com.calimoto.logic.CaloMath;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link CaloDistanceKernel} calculating the haversine formula on as many locations at once as the SIMD registers
+ * of the CPU hold, using the incubating Java Vector API. <p></p>
+ * The JVM must run with {@code --add-modules jdk.incubator.vector}. The kernel is only faster than
+ * {@link CaloDistanceKernelScalar} where the JIT compiles the vectorized cosine and arc sine to SIMD instructions,
+ * which is the case for HotSpot on x86 with AVX, see {@link #isAccelerated()}. Loaded by
+ * {@link CaloCoordinateUtil#getDistanceKernel()} if this library is on the class path.
+ */
+public class CaloDistanceKernelVector implements CaloDistanceKernel
+{
+	/**
+	 * Widest vector shape supported by the CPU
+	 */
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	
+	/**
+	 * Pre calculation for PI / 180
+	 */
+	private static final double RES_PId180 = CaloMath.PI / 180.0;
+	
+	/**
+	 * Check if the CPU likely accelerates this kernel, i.e. it is x86 with at least 256 bit vectors, for which HotSpot
+	 * compiles the vectorized cosine and arc sine to SIMD instructions. Elsewhere the vector operations may be
+	 * emulated and slower than {@link CaloDistanceKernelScalar}.
+	 * @return true if the kernel is likely faster than the scalar one, else false
+	 */
+	public static boolean isAccelerated()
+	{
+		final String architecture = System.getProperty("os.arch");
+		return ("amd64".equals(architecture) || "x86_64".equals(architecture)) && SPECIES.length() >= 4;
+	}
+	
+	@Override
+	public void calculateDistances(
+			final double latitude,
+			final double longitude,
+			@NonNull final double[] latitudes,
+			@NonNull final double[] longitudes,
+			@NonNull final double[] distances,
+			final int length)
+	{
+		CaloDistanceKernelScalar.checkArrays(latitudes, longitudes, distances, length);
+		final double cosLatitude = CaloMath.cos(latitude * RES_PId180);
+		final int bound = SPECIES.loopBound(length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length())
+		{
+			final DoubleVector endLatitude = DoubleVector.fromArray(SPECIES, latitudes, i);
+			final DoubleVector endLongitude = DoubleVector.fromArray(SPECIES, longitudes, i);
+			final DoubleVector endCosLatitude = endLatitude.mul(RES_PId180).lanewise(VectorOperators.COS);
+			final DoubleVector cosDeltaLatitude = endLatitude.sub(latitude).mul(RES_PId180).lanewise(VectorOperators.COS);
+			final DoubleVector cosDeltaLongitude = endLongitude.sub(longitude).mul(RES_PId180).lanewise(VectorOperators.COS);
+			// same operation order as CaloCoordinateUtil.calculateDistance
+			final DoubleVector a = cosDeltaLatitude.div(2).neg().add(0.5)
+					.add(endCosLatitude.mul(cosLatitude).mul(cosDeltaLongitude.neg().add(1)).div(2));
+			a.sqrt().lanewise(VectorOperators.ASIN).mul(12742000.0).intoArray(distances, i);
+		}
+		for (; i < length; i++)
+		{
+			distances[i] = CaloCoordinateUtil.calculateDistance(latitude, longitude, latitudes[i], longitudes[i]);
+		}
+	}
+	
+}